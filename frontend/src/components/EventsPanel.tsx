@@ -17,6 +17,8 @@ const EventsPanel: React.FC<EventsPanelProps> = ({ events, onClear }) => {
         return '📝';
       case EventType.BUILD_STARTED:
         return '🔨';
+      case EventType.BUILD_PROGRESS:
+        return '📜';
       case EventType.BUILD_SUCCESS:
         return '✅';
       case EventType.BUILD_FAILED:
@@ -50,6 +52,8 @@ const EventsPanel: React.FC<EventsPanelProps> = ({ events, onClear }) => {
         return 'text-gray-400';
       case EventType.BUILD_STARTED:
         return 'text-orange-400';
+      case EventType.BUILD_PROGRESS:
+        return 'text-gray-400';
       case EventType.BUILD_SUCCESS:
       case EventType.FIXING_SUCCESS:
       case EventType.PROJECT_COMPLETE:
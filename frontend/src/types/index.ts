@@ -18,6 +18,7 @@ export enum EventType {
   GENERATING = 'GENERATING',
   CODE_CHUNK = 'CODE_CHUNK',
   BUILD_STARTED = 'BUILD_STARTED',
+  BUILD_PROGRESS = 'BUILD_PROGRESS',
   BUILD_SUCCESS = 'BUILD_SUCCESS',
   BUILD_FAILED = 'BUILD_FAILED',
   FIXING_STARTED = 'FIXING_STARTED',
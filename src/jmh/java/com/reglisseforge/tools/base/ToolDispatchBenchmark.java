@@ -0,0 +1,148 @@
+package com.reglisseforge.tools.base;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.anthropic.core.JsonValue;
+
+/**
+ * Cost of dispatching one tool call, from its JSON input to the method's return value, on no-op
+ * tools with the signatures of read_file_lines and edit_file.
+ *
+ * The {@code resolved*} benchmarks go through ToolExecutor and the ToolInvoker resolved at
+ * registration by reflection. The {@code generated*} ones go through ToolExecutor too, with the
+ * tools registered from the {@code ToolDispatchBenchmark_Tools_Tools} class ToolProcessor generates,
+ * the way FileReaderTool_Tools and FileEditorTool_Tools are registered in production. The
+ * {@code reflective*} ones bind and call the same methods the way ToolExecutor did before:
+ * annotations read, values converted through toString and Method.invoke on every call.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec@jmh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ToolDispatchBenchmark {
+
+    public static class Tools {
+        @Tool(name = "read_file_lines", description = "Read a range of lines", readOnly = true, path = "filePath")
+        public static String readFileLines(@Param(name = "filePath") String filePath,
+                                           @Param(name = "startLine") int startLine,
+                                           @Param(name = "endLine") int endLine) {
+            return filePath;
+        }
+
+        @Tool(name = "edit_file", description = "Replace a range of lines", path = "filePath")
+        public static String editFile(@Param(name = "filePath") String filePath,
+                                      @Param(name = "startLine") int startLine,
+                                      @Param(name = "endLine") int endLine,
+                                      @Param(name = "newContent") String newContent) {
+            return newContent;
+        }
+    }
+
+    private ToolExecutor executor;
+    private ToolRegistry.ToolInfo readTool;
+    private ToolRegistry.ToolInfo editTool;
+    private ToolExecutor generatedExecutor;
+    private ToolRegistry.ToolInfo generatedReadTool;
+    private ToolRegistry.ToolInfo generatedEditTool;
+    private Method readMethod;
+    private Method editMethod;
+    private JsonValue readInput;
+    private JsonValue editInput;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        ToolRegistry registry = new ToolRegistry();
+        registry.registerStaticMethod(Tools.class, "readFileLines");
+        registry.registerStaticMethod(Tools.class, "editFile");
+        executor = new ToolExecutor(registry);
+        readTool = registry.getTool("read_file_lines");
+        editTool = registry.getTool("edit_file");
+
+        ToolRegistry generatedRegistry = new ToolRegistry();
+        ToolDispatchBenchmark_Tools_Tools.ALL.forEach(generatedRegistry::register);
+        generatedExecutor = new ToolExecutor(generatedRegistry);
+        generatedReadTool = generatedRegistry.getTool("read_file_lines");
+        generatedEditTool = generatedRegistry.getTool("edit_file");
+
+        readMethod = Tools.class.getMethod("readFileLines", String.class, int.class, int.class);
+        editMethod = Tools.class.getMethod("editFile", String.class, int.class, int.class, String.class);
+
+        readInput = JsonValue.from(Map.of("filePath", "/tmp/p/src/main.leo", "startLine", 10, "endLine", 40));
+        editInput = JsonValue.from(Map.of("filePath", "/tmp/p/src/main.leo", "startLine", 12, "endLine", 14,
+                "newContent", "    let x: u64 = a + b;\n    return x;"));
+    }
+
+    @Benchmark
+    public Object resolvedReadFileLines() throws Throwable {
+        return executor.executeTool(readTool, readInput);
+    }
+
+    @Benchmark
+    public Object resolvedEditFile() throws Throwable {
+        return executor.executeTool(editTool, editInput);
+    }
+
+    @Benchmark
+    public Object generatedReadFileLines() throws Throwable {
+        return generatedExecutor.executeTool(generatedReadTool, readInput);
+    }
+
+    @Benchmark
+    public Object generatedEditFile() throws Throwable {
+        return generatedExecutor.executeTool(generatedEditTool, editInput);
+    }
+
+    @Benchmark
+    public Object reflectiveReadFileLines() throws Exception {
+        return invokeReflectively(readMethod, readInput);
+    }
+
+    @Benchmark
+    public Object reflectiveEditFile() throws Exception {
+        return invokeReflectively(editMethod, editInput);
+    }
+
+    private static Object invokeReflectively(Method method, JsonValue input) throws Exception {
+        Map<String, JsonValue> inputMap = input.asObject()
+                .orElseThrow(() -> new IllegalArgumentException("Tool input must be an object"));
+        Parameter[] parameters = method.getParameters();
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Param param = parameters[i].getAnnotation(Param.class);
+            if (param != null) {
+                JsonValue value = inputMap.get(param.name());
+                args[i] = value == null ? null : convert(value.convert(Object.class), parameters[i].getType());
+            }
+        }
+        method.setAccessible(true);
+        return method.invoke(null, args);
+    }
+
+    private static Object convert(Object value, Class<?> type) {
+        if (type.isAssignableFrom(value.getClass())) {
+            return value;
+        }
+        if (type == int.class || type == Integer.class) {
+            return Integer.parseInt(value.toString());
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com.reglisseforge.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to run a short command to completion through `bash -lc` with commons-exec pumpers, against
+ * exec'ing it directly with ProcessOutputReader, as leo commands are run with and without
+ * leo.command.direct-exec.
+ *
+ * The command defaults to `ls --version` so that it runs without leo installed; pass e.g.
+ * -p command="leo --version" to JMH to measure leo itself.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec@jmh
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpawnLatencyBenchmark {
+
+    @Param("ls --version")
+    public String command;
+
+    private List<String> directCommand;
+
+    @Setup
+    public void setUp() {
+        List<String> words = Arrays.asList(command.trim().split("\\s+"));
+        CommandRunner.CommandResult resolved = CommandRunner.runBash("command -v " + words.get(0), null);
+        if (resolved.exitCode() != 0 || resolved.stdout().isBlank()) {
+            throw new IllegalStateException("Cannot resolve " + words.get(0) + " on the login PATH");
+        }
+        directCommand = new ArrayList<>();
+        directCommand.add(resolved.stdout().strip());
+        directCommand.addAll(words.subList(1, words.size()));
+    }
+
+    @Benchmark
+    public CommandRunner.CommandResult bashLogin() {
+        return CommandRunner.runBash(command, null);
+    }
+
+    @Benchmark
+    public CommandRunner.CommandResult directExec() {
+        return CommandRunner.exec(directCommand, null, null, CommandRunner.DEFAULT_TIMEOUT, null);
+    }
+}
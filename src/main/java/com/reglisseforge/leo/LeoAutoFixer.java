@@ -0,0 +1,526 @@
+package com.reglisseforge.leo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.reglisseforge.leo.LeoLexer.Kind;
+import com.reglisseforge.leo.LeoLexer.Token;
+import com.reglisseforge.utils.LeoPrompt;
+
+/**
+ * Deterministic rewrites for the mechanical Leo errors listed in the corrector playbook.
+ *
+ * <ul>
+ *   <li>ETYC0372109: if/else chains that only assign outer variables become ternary assignments,</li>
+ *   <li>EPAR0370005 found 'if': if-expressions become ternaries,</li>
+ *   <li>EPAR0370005 expected ';': a missing semicolon is inserted at the end of the previous line,</li>
+ *   <li>ETYC0372117: a primitive type mismatch gets an explicit {@code as} cast,</li>
+ *   <li>EPAR0370001: an invalid address literal is replaced with the testing address.</li>
+ * </ul>
+ * A rule only fires when the code around the diagnostic has exactly the expected shape;
+ * anything else is left to the LLM.
+ */
+public final class LeoAutoFixer {
+
+    private static final Pattern EXPECTED_SEMICOLON = Pattern.compile("expected '?;'? -- found.*");
+    private static final Pattern TYPE_MISMATCH = Pattern.compile("Expected type `(\\w+)` but type `(\\w+)` was found.*");
+
+    /** Types between which `as` casts are allowed */
+    private static final Set<String> CASTABLE_TYPES = Set.of(
+            "address", "bool", "field", "group", "scalar",
+            "u8", "u16", "u32", "u64", "u128", "i8", "i16", "i32", "i64", "i128");
+
+    /** Tokens ending an expression that is an argument, initializer or operand */
+    private static final Set<String> EXPRESSION_TERMINATORS = Set.of(",", ")", "]", "}", ";");
+
+    private LeoAutoFixer() {}
+
+    /**
+     * A rewrite applied to the source
+     */
+    public record Fix(String code, int line, String description) {}
+
+    /**
+     * Rewritten source and the fixes that produced it
+     */
+    public record Result(String source, List<Fix> fixes) {
+        public boolean changed() {
+            return !fixes.isEmpty();
+        }
+    }
+
+    private record Edit(int start, int end, String replacement, Fix fix) {}
+
+    private record Branch(String condition, int open, int close) {}
+
+    /**
+     * Apply every rule matching one of the diagnostics. Overlapping rewrites are dropped, the
+     * first diagnostic wins.
+     */
+    public static Result apply(String source, List<LeoDiagnostic> diagnostics) {
+        Rewriter rewriter = new Rewriter(source, new LeoLexer(source, "", new ArrayList<>()).tokenize());
+
+        List<Edit> edits = new ArrayList<>();
+        for (LeoDiagnostic diagnostic : diagnostics) {
+            if (!diagnostic.isError() || diagnostic.line() <= 0) {
+                continue;
+            }
+            Optional<Edit> edit = switch (diagnostic.code()) {
+                case "ETYC0372109" -> rewriter.conditionalReassignment(diagnostic);
+                case "EPAR0370005" -> rewriter.isIfAt(diagnostic)
+                        ? rewriter.ifExpression(diagnostic)
+                        : rewriter.missingSemicolon(diagnostic);
+                case "ETYC0372117" -> rewriter.missingCast(diagnostic);
+                case "EPAR0370001" -> rewriter.invalidAddress(diagnostic);
+                default -> Optional.empty();
+            };
+            edit.filter(candidate -> edits.stream().noneMatch(other -> overlaps(candidate, other)))
+                    .ifPresent(edits::add);
+        }
+
+        // Apply back to front so earlier offsets stay valid
+        edits.sort(Comparator.comparingInt(Edit::start).reversed());
+        StringBuilder rewritten = new StringBuilder(source);
+        for (Edit edit : edits) {
+            rewritten.replace(edit.start(), edit.end(), edit.replacement());
+        }
+
+        List<Fix> fixes = edits.stream()
+                .sorted(Comparator.comparingInt(Edit::start))
+                .map(Edit::fix)
+                .toList();
+        return new Result(rewritten.toString(), fixes);
+    }
+
+    private static boolean overlaps(Edit a, Edit b) {
+        if (a.start() == a.end() || b.start() == b.end()) {
+            // Insertions only conflict when they land inside (or at the same point as) the other edit
+            return a.start() >= b.start() && a.start() <= b.end() || b.start() >= a.start() && b.start() <= a.end();
+        }
+        return a.start() < b.end() && b.start() < a.end();
+    }
+
+    /**
+     * Token-level helpers over one source
+     */
+    private static final class Rewriter {
+
+        private final String source;
+        private final List<Token> tokens;
+
+        Rewriter(String source, List<Token> tokens) {
+            this.source = source;
+            this.tokens = tokens;
+        }
+
+        // ---------------------------------------------------------------- rules
+
+        /**
+         * if c1 { x = a; } else if c2 { x = b; } else { x = c; }  →  x = c1 ? a : c2 ? b : c;
+         */
+        Optional<Edit> conditionalReassignment(LeoDiagnostic diagnostic) {
+            int target = indexAt(diagnostic.line(), diagnostic.column());
+            if (target < 0) {
+                return Optional.empty();
+            }
+            int offset = tokens.get(target).offset();
+
+            // Innermost statement-level if chain around the assignment
+            List<Branch> best = null;
+            int bestHead = -1;
+            for (int i = 0; i < tokens.size(); i++) {
+                if (!tokens.get(i).is("if") || (i > 0 && tokens.get(i - 1).is("else"))) {
+                    continue;
+                }
+                List<Branch> chain = parseChain(i, false);
+                if (chain == null) {
+                    continue;
+                }
+                int end = tokens.get(chain.get(chain.size() - 1).close()).end();
+                if (tokens.get(i).offset() <= offset && offset < end
+                        && (best == null || tokens.get(i).offset() > tokens.get(bestHead).offset())) {
+                    best = chain;
+                    bestHead = i;
+                }
+            }
+            if (best == null) {
+                return Optional.empty();
+            }
+
+            // Every branch must only assign plain variables, each at most once
+            List<Map<String, String>> assignments = new ArrayList<>();
+            Map<String, Boolean> variables = new LinkedHashMap<>();
+            for (Branch branch : best) {
+                Map<String, String> values = simpleAssignments(branch.open(), branch.close());
+                if (values == null) {
+                    return Optional.empty();
+                }
+                values.keySet().forEach(name -> variables.put(name, Boolean.TRUE));
+                assignments.add(values);
+            }
+            if (variables.isEmpty() || !independent(best, variables.keySet())) {
+                return Optional.empty();
+            }
+
+            Token head = tokens.get(bestHead);
+            String indent = indentationOf(head.offset());
+            StringBuilder replacement = new StringBuilder();
+            for (String variable : variables.keySet()) {
+                if (!replacement.isEmpty()) {
+                    replacement.append('\n').append(indent);
+                }
+                replacement.append(variable).append(" = ").append(ternary(best, assignments, variable)).append(';');
+            }
+
+            int end = tokens.get(best.get(best.size() - 1).close()).end();
+            return Optional.of(new Edit(head.offset(), end, replacement.toString(),
+                    new Fix(diagnostic.code(), head.line(),
+                            "rewrote conditional assignment of " + String.join(", ", variables.keySet()) + " as a ternary")));
+        }
+
+        /**
+         * let x: T = if c { a } else { b };  →  let x: T = c ? a : b;
+         */
+        Optional<Edit> ifExpression(LeoDiagnostic diagnostic) {
+            int head = indexAt(diagnostic.line(), diagnostic.column());
+            List<Branch> chain = parseChain(head, true);
+            if (chain == null || chain.get(chain.size() - 1).condition() != null) {
+                return Optional.empty();
+            }
+
+            StringBuilder replacement = new StringBuilder();
+            for (Branch branch : chain) {
+                String value = wrap(text(branch.open() + 1, branch.close()));
+                if (value.isEmpty() || containsAtDepthZero(branch.open() + 1, branch.close(), ";")) {
+                    return Optional.empty();
+                }
+                if (branch.condition() != null) {
+                    replacement.append(wrap(branch.condition())).append(" ? ").append(value).append(" : ");
+                } else {
+                    replacement.append(value);
+                }
+            }
+
+            Token start = tokens.get(head);
+            int end = tokens.get(chain.get(chain.size() - 1).close()).end();
+            return Optional.of(new Edit(start.offset(), end, replacement.toString(),
+                    new Fix(diagnostic.code(), start.line(), "rewrote if-expression as a ternary")));
+        }
+
+        /**
+         * Insert the ';' missing at the end of the line before the reported token
+         */
+        Optional<Edit> missingSemicolon(LeoDiagnostic diagnostic) {
+            if (!EXPECTED_SEMICOLON.matcher(diagnostic.message()).matches()) {
+                return Optional.empty();
+            }
+            int found = indexAt(diagnostic.line(), diagnostic.column());
+            if (found <= 0) {
+                return Optional.empty();
+            }
+            Token previous = tokens.get(found - 1);
+            Token next = tokens.get(found);
+            // Only when the statement visibly ends a line; mid-line it is not a missing terminator
+            if (previous.is(";") || previous.is("{") || (previous.line() == next.line() && !next.is("}"))) {
+                return Optional.empty();
+            }
+            return Optional.of(new Edit(previous.end(), previous.end(), ";",
+                    new Fix(diagnostic.code(), previous.line(), "inserted missing ';'")));
+        }
+
+        /**
+         * Expected type `u64` but type `field` was found  →  expr as u64
+         */
+        Optional<Edit> missingCast(LeoDiagnostic diagnostic) {
+            Matcher mismatch = TYPE_MISMATCH.matcher(diagnostic.message());
+            if (!mismatch.matches() || !CASTABLE_TYPES.contains(mismatch.group(1))
+                    || !CASTABLE_TYPES.contains(mismatch.group(2))) {
+                return Optional.empty();
+            }
+            int start = indexAt(diagnostic.line(), diagnostic.column());
+            if (start < 0) {
+                return Optional.empty();
+            }
+
+            // The operand runs to the next terminator; a top-level operator means the span is ambiguous
+            int depth = 0;
+            int end = start;
+            for (; end < tokens.size(); end++) {
+                Token token = tokens.get(end);
+                if (token.kind() == Kind.EOF) {
+                    return Optional.empty();
+                }
+                if (depth == 0 && EXPRESSION_TERMINATORS.contains(token.text()) && token.kind() == Kind.SYMBOL) {
+                    break;
+                }
+                if (token.is("(") || token.is("[")) {
+                    depth++;
+                } else if (token.is(")") || token.is("]")) {
+                    depth--;
+                } else if (depth == 0 && token.kind() == Kind.SYMBOL && end > start
+                        && !token.is(".") && !token.is("::")) {
+                    return Optional.empty();
+                } else if (depth == 0 && token.is("as")) {
+                    return Optional.empty();
+                }
+            }
+            if (end == start) {
+                return Optional.empty();
+            }
+
+            String expression = text(start, end);
+            String operand = expression.startsWith("-") || expression.startsWith("!") ? "(" + expression + ")" : expression;
+            Token first = tokens.get(start);
+            return Optional.of(new Edit(first.offset(), tokens.get(end - 1).end(), operand + " as " + mismatch.group(1),
+                    new Fix(diagnostic.code(), first.line(),
+                            "cast " + mismatch.group(2) + " to " + mismatch.group(1))));
+        }
+
+        /**
+         * Replace a malformed address literal with the testing address
+         */
+        Optional<Edit> invalidAddress(LeoDiagnostic diagnostic) {
+            int index = indexAt(diagnostic.line(), diagnostic.column());
+            if (index < 0) {
+                return Optional.empty();
+            }
+            Token literal = tokens.get(index);
+            if (!literal.text().startsWith("aleo1") || LeoPrompt.isValidAleoAddress(literal.text())) {
+                return Optional.empty();
+            }
+            return Optional.of(new Edit(literal.offset(), literal.end(), LeoPrompt.ADMIN_PLACEHOLDER,
+                    new Fix(diagnostic.code(), literal.line(), "replaced invalid address literal with the testing address")));
+        }
+
+        boolean isIfAt(LeoDiagnostic diagnostic) {
+            int index = indexAt(diagnostic.line(), diagnostic.column());
+            return index >= 0 && tokens.get(index).is("if");
+        }
+
+        // ---------------------------------------------------------------- structure
+
+        /**
+         * Parse `if c { } else if c { } else { }` starting at an `if` token
+         *
+         * @param requireElse whether a final else branch is mandatory (if-expressions)
+         * @return branches, the last one without condition when there is an else, or null
+         */
+        private List<Branch> parseChain(int head, boolean requireElse) {
+            List<Branch> chain = new ArrayList<>();
+            int i = head;
+            while (true) {
+                if (i < 0 || i >= tokens.size() || !tokens.get(i).is("if")) {
+                    return null;
+                }
+                int open = findBlockStart(i + 1);
+                if (open < 0 || open == i + 1) {
+                    return null;
+                }
+                int close = matching(open);
+                if (close < 0) {
+                    return null;
+                }
+                chain.add(new Branch(text(i + 1, open), open, close));
+
+                if (!tokens.get(close + 1).is("else")) {
+                    return requireElse ? null : chain;
+                }
+                if (tokens.get(close + 2).is("if")) {
+                    i = close + 2;
+                    continue;
+                }
+                if (!tokens.get(close + 2).is("{")) {
+                    return null;
+                }
+                int elseClose = matching(close + 2);
+                if (elseClose < 0) {
+                    return null;
+                }
+                chain.add(new Branch(null, close + 2, elseClose));
+                return chain;
+            }
+        }
+
+        /**
+         * First '{' at parenthesis depth 0 after a condition
+         */
+        private int findBlockStart(int from) {
+            int depth = 0;
+            for (int i = from; i < tokens.size(); i++) {
+                Token token = tokens.get(i);
+                if (token.is("(") || token.is("[")) {
+                    depth++;
+                } else if (token.is(")") || token.is("]")) {
+                    depth--;
+                } else if (depth == 0 && token.is("{")) {
+                    return i;
+                } else if (token.is(";") || token.is("}") || token.kind() == Kind.EOF) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        private int matching(int open) {
+            int depth = 0;
+            for (int i = open; i < tokens.size(); i++) {
+                Token token = tokens.get(i);
+                if (token.is("{") || token.is("(") || token.is("[")) {
+                    depth++;
+                } else if (token.is("}") || token.is(")") || token.is("]")) {
+                    depth--;
+                    if (depth == 0) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * `name = expr;` statements between the braces, or null if the block contains anything else
+         */
+        private Map<String, String> simpleAssignments(int open, int close) {
+            Map<String, String> values = new LinkedHashMap<>();
+            int i = open + 1;
+            while (i < close) {
+                Token name = tokens.get(i);
+                if (name.kind() != Kind.IDENT || !tokens.get(i + 1).is("=") || values.containsKey(name.text())) {
+                    return null;
+                }
+                int end = i + 2;
+                int depth = 0;
+                while (end < close && !(depth == 0 && tokens.get(end).is(";"))) {
+                    Token token = tokens.get(end);
+                    if (token.is("(") || token.is("[") || token.is("{")) {
+                        depth++;
+                    } else if (token.is(")") || token.is("]") || token.is("}")) {
+                        depth--;
+                    }
+                    end++;
+                }
+                if (end >= close || end == i + 2) {
+                    return null;
+                }
+                values.put(name.text(), text(i + 2, end));
+                i = end + 1;
+            }
+            return values;
+        }
+
+        /**
+         * Rewriting is only equivalent when no value reads another variable of the chain, and
+         * conditions do not read chain variables once more than one of them is assigned
+         */
+        private boolean independent(List<Branch> chain, Set<String> variables) {
+            for (Branch branch : chain) {
+                int i = branch.open() + 1;
+                while (i < branch.close()) {
+                    Token name = tokens.get(i);
+                    int end = i + 2;
+                    while (!tokens.get(end).is(";")) {
+                        Token token = tokens.get(end);
+                        if (token.kind() == Kind.IDENT && variables.contains(token.text()) && !token.is(name.text())
+                                && !tokens.get(end - 1).is(".")) {
+                            return false;
+                        }
+                        end++;
+                    }
+                    i = end + 1;
+                }
+                if (branch.condition() != null && variables.size() > 1) {
+                    int open = branch.open();
+                    for (int j = open - 1; j >= 0 && !tokens.get(j).is("if"); j--) {
+                        if (tokens.get(j).kind() == Kind.IDENT && variables.contains(tokens.get(j).text())) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        private String ternary(List<Branch> chain, List<Map<String, String>> assignments, String variable) {
+            StringBuilder value = new StringBuilder();
+            boolean hasElse = chain.get(chain.size() - 1).condition() == null;
+            for (int i = 0; i < chain.size(); i++) {
+                String assigned = wrap(assignments.get(i).getOrDefault(variable, variable));
+                if (chain.get(i).condition() != null) {
+                    value.append(wrap(chain.get(i).condition())).append(" ? ").append(assigned).append(" : ");
+                } else {
+                    value.append(assigned);
+                }
+            }
+            if (!hasElse) {
+                value.append(variable);
+            }
+            return value.toString();
+        }
+
+        // ---------------------------------------------------------------- tokens and text
+
+        /**
+         * Index of the token at or right after a 1-based line/column, -1 if none
+         */
+        private int indexAt(int line, int column) {
+            for (int i = 0; i < tokens.size(); i++) {
+                Token token = tokens.get(i);
+                if (token.kind() == Kind.EOF) {
+                    return -1;
+                }
+                if (token.line() > line || (token.line() == line && token.column() + token.text().length() > column)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean containsAtDepthZero(int from, int to, String symbol) {
+            int depth = 0;
+            for (int i = from; i < to; i++) {
+                Token token = tokens.get(i);
+                if (token.is("(") || token.is("[") || token.is("{")) {
+                    depth++;
+                } else if (token.is(")") || token.is("]") || token.is("}")) {
+                    depth--;
+                } else if (depth == 0 && token.is(symbol)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Source text of tokens [from, to)
+         */
+        private String text(int from, int to) {
+            if (from >= to) {
+                return "";
+            }
+            return source.substring(tokens.get(from).offset(), tokens.get(to - 1).end()).strip();
+        }
+
+        private String indentationOf(int offset) {
+            int lineStart = source.lastIndexOf('\n', offset - 1) + 1;
+            int end = lineStart;
+            while (end < offset && (source.charAt(end) == ' ' || source.charAt(end) == '\t')) {
+                end++;
+            }
+            return source.substring(lineStart, end);
+        }
+
+        /**
+         * Parenthesize nested ternaries so they stay unambiguous inside another ternary
+         */
+        private static String wrap(String expression) {
+            return expression.contains("?") ? "(" + expression + ")" : expression;
+        }
+    }
+}
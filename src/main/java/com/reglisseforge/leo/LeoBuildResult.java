@@ -0,0 +1,113 @@
+package com.reglisseforge.leo;
+
+import java.util.List;
+
+/**
+ * Outcome of building a Leo project, with the compiler output parsed into diagnostics
+ *
+ * @param stage          what produced the outcome
+ * @param exitCode       compiler exit code (1 for a failed pre-check)
+ * @param output         raw output, as printed by the compiler or the pre-check
+ * @param diagnostics    deduplicated diagnostics
+ * @param durationMillis time spent producing the outcome
+ */
+public record LeoBuildResult(Stage stage, int exitCode, String output, List<LeoDiagnostic> diagnostics,
+                             long durationMillis) {
+
+    public enum Stage {
+        /** In-process syntax pre-check failed, the compiler was not run */
+        PRECHECK,
+        /** Outcome replayed from the build cache */
+        CACHE,
+        /** `leo build` was run */
+        COMPILER,
+        /** `leo build` exceeded its deadline and was killed */
+        TIMEOUT
+    }
+
+    public static final String TIMEOUT_CODE = "TIMEOUT";
+
+    /** Lines of raw output kept in the summary when the compiler failed without diagnostics */
+    private static final int FALLBACK_TAIL_LINES = 40;
+
+    public static LeoBuildResult fromPrecheck(LeoSyntaxChecker.Result precheck) {
+        return new LeoBuildResult(Stage.PRECHECK, 1, precheck.toBuildOutput(), precheck.diagnostics(),
+                precheck.elapsedMillis());
+    }
+
+    /**
+     * Outcome of a build that was killed at its deadline, reported as a single TIMEOUT error
+     */
+    public static LeoBuildResult fromTimeout(int exitCode, String output, long durationMillis) {
+        LeoDiagnostic timeout = LeoDiagnostic.error(TIMEOUT_CODE,
+                "leo build did not finish within " + durationMillis + " ms and was killed", null, 0, 0, null);
+        return new LeoBuildResult(Stage.TIMEOUT, exitCode, output, List.of(timeout), durationMillis);
+    }
+
+    public static LeoBuildResult fromOutput(Stage stage, int exitCode, String output, long durationMillis) {
+        return new LeoBuildResult(stage, exitCode, output, LeoDiagnosticsParser.parse(output), durationMillis);
+    }
+
+    /**
+     * The compiler exited with 0 and reported no error
+     */
+    public boolean success() {
+        return exitCode == 0 && errors().isEmpty();
+    }
+
+    public boolean timedOut() {
+        return stage == Stage.TIMEOUT;
+    }
+
+    public List<LeoDiagnostic> errors() {
+        return diagnostics.stream().filter(LeoDiagnostic::isError).toList();
+    }
+
+    public List<LeoDiagnostic> warnings() {
+        return diagnostics.stream().filter(d -> !d.isError()).toList();
+    }
+
+    /**
+     * Distinct error codes, in order of first appearance
+     */
+    public List<String> errorCodes() {
+        return errors().stream().map(LeoDiagnostic::code).distinct().toList();
+    }
+
+    /**
+     * Compact, normalized error report for prompts and history: one entry per distinct error
+     * with its location and source line, without ANSI codes or repeated context
+     */
+    public String summary() {
+        if (success()) {
+            return "Build succeeded" + (warnings().isEmpty() ? "" : " with " + warnings().size() + " warning(s)");
+        }
+
+        List<LeoDiagnostic> errors = errors();
+        if (errors.isEmpty()) {
+            List<String> lines = LeoDiagnosticsParser.stripAnsi(output).strip().lines().toList();
+            List<String> tail = lines.subList(Math.max(0, lines.size() - FALLBACK_TAIL_LINES), lines.size());
+            return "Build failed (exit code " + exitCode + ") without Leo diagnostics:\n" + String.join("\n", tail);
+        }
+
+        StringBuilder summary = new StringBuilder();
+        summary.append(errors.size()).append(errors.size() == 1 ? " error" : " errors")
+                .append(stage == Stage.PRECHECK ? " (syntax pre-check, leo build not run)" : "").append(":\n");
+        for (int i = 0; i < errors.size(); i++) {
+            LeoDiagnostic error = errors.get(i);
+            summary.append(i + 1).append(". [").append(error.code()).append("] ");
+            if (error.file() != null) {
+                summary.append(error.file());
+                if (error.line() > 0) {
+                    summary.append(':').append(error.line()).append(':').append(error.column());
+                }
+                summary.append(' ');
+            }
+            summary.append(error.message()).append('\n');
+            if (error.snippet() != null && !error.snippet().isBlank()) {
+                summary.append("   ").append(error.line()).append(" | ").append(error.snippet().strip()).append('\n');
+            }
+        }
+        return summary.toString();
+    }
+}
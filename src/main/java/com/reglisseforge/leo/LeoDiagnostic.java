@@ -0,0 +1,52 @@
+package com.reglisseforge.leo;
+
+/**
+ * A single Leo diagnostic, in the shape the Leo compiler reports it
+ *
+ * @param severity error or warning
+ * @param code     Leo error code such as EPAR0370005 or ETYC0372109
+ * @param message  message without the code prefix
+ * @param file     source file relative to the project root (e.g. src/main.leo)
+ * @param line     1-based line, 0 when unknown
+ * @param column   1-based column, 0 when unknown
+ * @param snippet  offending source line, or null when unknown
+ */
+public record LeoDiagnostic(Severity severity, String code, String message, String file, int line, int column,
+                            String snippet) {
+
+    public enum Severity { ERROR, WARNING }
+
+    public static LeoDiagnostic error(String code, String message, String file, int line, int column, String snippet) {
+        return new LeoDiagnostic(Severity.ERROR, code, message, file, line, column, snippet);
+    }
+
+    public static LeoDiagnostic warning(String code, String message, String file, int line, int column, String snippet) {
+        return new LeoDiagnostic(Severity.WARNING, code, message, file, line, column, snippet);
+    }
+
+    public boolean isError() {
+        return severity == Severity.ERROR;
+    }
+
+    /**
+     * Render the diagnostic the way `leo build` prints it
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(isError() ? "Error" : "Warning").append(" [").append(code).append("]: ").append(message).append('\n');
+        if (file != null) {
+            out.append("    --> ").append(file);
+            if (line > 0) {
+                out.append(':').append(line).append(':').append(column);
+            }
+            out.append('\n');
+        }
+        if (snippet != null && line > 0) {
+            String gutter = " ".repeat(String.valueOf(line).length());
+            out.append(' ').append(gutter).append(" |\n");
+            out.append(' ').append(line).append(" | ").append(snippet).append('\n');
+            out.append(' ').append(gutter).append(" | ").append(" ".repeat(Math.max(0, column - 1))).append("^\n");
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.reglisseforge.leo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns `leo build` output into typed diagnostics.
+ *
+ * Recognizes the compiler's report format:
+ * <pre>
+ * Error [ETYC0372109]: Cannot re-assign to `x` from a conditional scope ...
+ *     --> /workspace/token/src/main.leo:12:13
+ *      |
+ *   12 |             x = 1u64;
+ *      |             ^^^^^^^^
+ *      |
+ *      = help: ...
+ * </pre>
+ * ANSI escapes are stripped, absolute paths are shortened to the project-relative path and
+ * repeated reports of the same diagnostic are collapsed.
+ */
+public final class LeoDiagnosticsParser {
+
+    private static final Pattern ANSI = Pattern.compile("\u001B\\[[;\\d]*[ -/]*[@-~]");
+    private static final Pattern HEADER = Pattern.compile("^\\s*(Error|Warning)\\s*\\[([A-Z]+\\d+)\\]:\\s*(.*)$");
+    private static final Pattern UNCODED_ERROR = Pattern.compile("^\\s*(?:Error|error):\\s*(.*)$");
+    private static final Pattern LOCATION = Pattern.compile("^\\s*-->\\s*(.+?):(\\d+):(\\d+)\\s*$");
+    private static final Pattern SOURCE_LINE = Pattern.compile("^\\s*(\\d+)\\s*\\|\\s?(.*)$");
+    private static final Pattern HELP = Pattern.compile("^\\s*=\\s*help:\\s*(.*)$");
+
+    public static final String UNKNOWN_CODE = "UNKNOWN";
+
+    private LeoDiagnosticsParser() {}
+
+    public static String stripAnsi(String output) {
+        return output == null ? "" : ANSI.matcher(output).replaceAll("");
+    }
+
+    /**
+     * Parse compiler output into deduplicated diagnostics, in order of first appearance
+     */
+    public static List<LeoDiagnostic> parse(String output) {
+        Map<String, LeoDiagnostic> unique = new LinkedHashMap<>();
+        Builder current = null;
+
+        for (String line : stripAnsi(output).split("\\R")) {
+            Matcher header = HEADER.matcher(line);
+            Matcher uncoded = UNCODED_ERROR.matcher(line);
+            if (header.matches() || uncoded.matches()) {
+                add(unique, current);
+                current = header.matches()
+                        ? new Builder(header.group(1).equals("Error"), header.group(2), header.group(3).trim())
+                        : new Builder(true, UNKNOWN_CODE, uncoded.group(1).trim());
+                continue;
+            }
+            if (current == null) {
+                continue;
+            }
+
+            Matcher location = LOCATION.matcher(line);
+            Matcher source = SOURCE_LINE.matcher(line);
+            Matcher help = HELP.matcher(line);
+            if (location.matches() && current.file == null) {
+                current.file = relativize(location.group(1).trim());
+                current.line = Integer.parseInt(location.group(2));
+                current.column = Integer.parseInt(location.group(3));
+            } else if (source.matches() && current.snippet == null
+                    && Integer.parseInt(source.group(1)) == current.line) {
+                current.snippet = source.group(2).stripTrailing();
+            } else if (help.matches()) {
+                current.help = help.group(1).trim();
+            }
+        }
+        add(unique, current);
+
+        return new ArrayList<>(unique.values());
+    }
+
+    private static void add(Map<String, LeoDiagnostic> unique, Builder builder) {
+        if (builder == null) {
+            return;
+        }
+        LeoDiagnostic diagnostic = builder.build();
+        String key = diagnostic.severity() + "|" + diagnostic.code() + "|" + diagnostic.message() + "|"
+                + diagnostic.file() + "|" + diagnostic.line() + "|" + diagnostic.column();
+        unique.putIfAbsent(key, diagnostic);
+    }
+
+    /**
+     * Shorten /abs/path/to/project/src/main.leo to src/main.leo
+     */
+    private static String relativize(String file) {
+        String normalized = file.replace('\\', '/');
+        int src = normalized.lastIndexOf("/src/");
+        return src >= 0 ? normalized.substring(src + 1) : normalized;
+    }
+
+    private static final class Builder {
+        private final boolean error;
+        private final String code;
+        private final String message;
+        private String file;
+        private int line;
+        private int column;
+        private String snippet;
+        private String help;
+
+        Builder(boolean error, String code, String message) {
+            this.error = error;
+            this.code = code;
+            this.message = message;
+        }
+
+        LeoDiagnostic build() {
+            String fullMessage = help != null ? message + " (help: " + help + ")" : message;
+            return error
+                    ? LeoDiagnostic.error(code, fullMessage, file, line, column, snippet)
+                    : LeoDiagnostic.warning(code, fullMessage, file, line, column, snippet);
+        }
+    }
+}
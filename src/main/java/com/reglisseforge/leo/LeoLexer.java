@@ -0,0 +1,196 @@
+package com.reglisseforge.leo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tokenizer for the Leo subset documented in LeoPrompt.LeoRulesBook.
+ *
+ * Lexical problems (unknown characters, unterminated comments, string literals, malformed
+ * address literals) are reported as diagnostics; the lexer always produces a token stream
+ * terminated by an EOF token so the parser can keep going.
+ */
+public class LeoLexer {
+
+    public enum Kind { IDENT, INTEGER, ADDRESS, STRING, SYMBOL, EOF }
+
+    public record Token(Kind kind, String text, int line, int column, int offset) {
+
+        /**
+         * Offset just past the token in the source
+         */
+        public int end() {
+            return offset + text.length();
+        }
+
+        public boolean is(String symbolOrWord) {
+            return (kind == Kind.SYMBOL || kind == Kind.IDENT) && text.equals(symbolOrWord);
+        }
+
+        public String describe() {
+            return kind == Kind.EOF ? "end of file" : "'" + text + "'";
+        }
+    }
+
+    /** Longest symbols first so that "**=" wins over "**" and "*" */
+    private static final String[] SYMBOLS = {
+            "**=", "<<=", ">>=", "&&=", "||=",
+            "**", "<<", ">>", "&&", "||", "==", "!=", "<=", ">=", "->", "=>", "::", "..",
+            "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=",
+            "{", "}", "(", ")", "[", "]", ";", ":", ",", ".", "=", "+", "-", "*", "/", "%",
+            "<", ">", "!", "?", "&", "|", "^", "@"
+    };
+
+    private static final int ADDRESS_LENGTH = 63;
+
+    private final String source;
+    private final String file;
+    private final String[] lines;
+    private final List<LeoDiagnostic> diagnostics;
+
+    private int pos;
+    private int line = 1;
+    private int column = 1;
+
+    public LeoLexer(String source, String file, List<LeoDiagnostic> diagnostics) {
+        this.source = source;
+        this.file = file;
+        this.lines = source.split("\n", -1);
+        this.diagnostics = diagnostics;
+    }
+
+    public List<Token> tokenize() {
+        List<Token> tokens = new ArrayList<>();
+        while (true) {
+            skipWhitespaceAndComments();
+            if (pos >= source.length()) {
+                tokens.add(new Token(Kind.EOF, "", line, column, pos));
+                return tokens;
+            }
+
+            int startLine = line;
+            int startColumn = column;
+            int startOffset = pos;
+            char c = source.charAt(pos);
+
+            if (Character.isLetter(c) || c == '_') {
+                String word = take(LeoLexer::isIdentifierPart);
+                if (word.startsWith("aleo1") && word.length() > 5) {
+                    checkAddress(word, startLine, startColumn);
+                    tokens.add(new Token(Kind.ADDRESS, word, startLine, startColumn, startOffset));
+                } else {
+                    tokens.add(new Token(Kind.IDENT, word, startLine, startColumn, startOffset));
+                }
+            } else if (Character.isDigit(c)) {
+                // Digits followed by an optional type suffix (42u64, 1field); stops before ".." ranges
+                String number = take(ch -> Character.isLetterOrDigit(ch) || ch == '_');
+                tokens.add(new Token(Kind.INTEGER, number, startLine, startColumn, startOffset));
+            } else if (c == '"') {
+                tokens.add(new Token(Kind.STRING, readString(startLine, startColumn), startLine, startColumn, startOffset));
+            } else {
+                String symbol = matchSymbol();
+                if (symbol == null) {
+                    diagnostics.add(LeoDiagnostic.error("EPRE0000002", "unexpected character '" + c + "'",
+                            file, startLine, startColumn, lineText(startLine)));
+                    advance(1);
+                } else {
+                    advance(symbol.length());
+                    tokens.add(new Token(Kind.SYMBOL, symbol, startLine, startColumn, startOffset));
+                }
+            }
+        }
+    }
+
+    /**
+     * Source line for diagnostics snippets (1-based)
+     */
+    public String lineText(int lineNumber) {
+        return lineNumber >= 1 && lineNumber <= lines.length ? lines[lineNumber - 1].stripTrailing() : null;
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                advance(1);
+            } else if (source.startsWith("//", pos)) {
+                while (pos < source.length() && source.charAt(pos) != '\n') {
+                    advance(1);
+                }
+            } else if (source.startsWith("/*", pos)) {
+                int startLine = line;
+                int startColumn = column;
+                int end = source.indexOf("*/", pos + 2);
+                if (end < 0) {
+                    diagnostics.add(LeoDiagnostic.error("EPRE0000002", "unterminated block comment",
+                            file, startLine, startColumn, lineText(startLine)));
+                    advance(source.length() - pos);
+                } else {
+                    advance(end + 2 - pos);
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private String readString(int startLine, int startColumn) {
+        int start = pos;
+        advance(1);
+        while (pos < source.length() && source.charAt(pos) != '"' && source.charAt(pos) != '\n') {
+            advance(1);
+        }
+        if (pos < source.length() && source.charAt(pos) == '"') {
+            advance(1);
+        }
+        diagnostics.add(LeoDiagnostic.error("ETYC0372045", "Strings are not yet supported.",
+                file, startLine, startColumn, lineText(startLine)));
+        return source.substring(start, pos);
+    }
+
+    private void checkAddress(String word, int startLine, int startColumn) {
+        if (word.length() != ADDRESS_LENGTH || !word.matches("aleo1[a-z0-9]{58}")) {
+            diagnostics.add(LeoDiagnostic.error("EPAR0370001",
+                    "invalid address literal: '" + word + "' (expected aleo1 followed by 58 lowercase letters or digits)",
+                    file, startLine, startColumn, lineText(startLine)));
+        }
+    }
+
+    private String matchSymbol() {
+        for (String symbol : SYMBOLS) {
+            if (source.startsWith(symbol, pos)) {
+                return symbol;
+            }
+        }
+        return null;
+    }
+
+    private String take(CharPredicate predicate) {
+        int start = pos;
+        while (pos < source.length() && predicate.test(source.charAt(pos))) {
+            advance(1);
+        }
+        return source.substring(start, pos);
+    }
+
+    private void advance(int count) {
+        for (int i = 0; i < count && pos < source.length(); i++) {
+            if (source.charAt(pos) == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+            pos++;
+        }
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    @FunctionalInterface
+    private interface CharPredicate {
+        boolean test(char c);
+    }
+}
@@ -0,0 +1,920 @@
+package com.reglisseforge.leo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.reglisseforge.leo.LeoLexer.Kind;
+import com.reglisseforge.leo.LeoLexer.Token;
+
+/**
+ * In-process syntax pre-check for Leo programs, run before spawning `leo build`.
+ *
+ * Covers the subset documented in LeoPrompt.LeoRulesBook: imports, program block, constants,
+ * structs, records, mappings, (async) transitions and functions, statements and expressions.
+ * On top of the grammar it reports the rule-book errors that are visible without type
+ * checking: records without owner, reassignment from a conditional scope in async code,
+ * return in async functions, mapping operations and block.height outside async code.
+ *
+ * The checker is deliberately lenient: unknown top-level items are skipped without a
+ * diagnostic, and findings it cannot be sure about (declaration order, identifier length,
+ * owner position) are warnings that never block the build.
+ */
+public final class LeoSyntaxChecker {
+
+    public static final String MAIN_FILE = "src/main.leo";
+
+    private static final int MAX_ERRORS = 20;
+    private static final int MAX_IDENTIFIER_LENGTH = 31;
+
+    private static final Set<String> TYPE_KEYWORDS = Set.of(
+            "address", "bool", "field", "group", "scalar", "signature",
+            "u8", "u16", "u32", "u64", "u128", "i8", "i16", "i32", "i64", "i128");
+
+    /** Words that can never start an expression */
+    private static final Set<String> STATEMENT_KEYWORDS = Set.of(
+            "let", "const", "return", "if", "else", "for", "in", "transition", "function", "inline",
+            "struct", "record", "mapping", "program", "import", "public", "private", "constant", "as");
+
+    /** Words that cannot be used as identifiers */
+    private static final Set<String> RESERVED = union(TYPE_KEYWORDS, STATEMENT_KEYWORDS, Set.of(
+            "true", "false", "async", "assert", "assert_eq", "assert_neq", "self", "block"));
+
+    private static final Map<String, Integer> BINARY_PRECEDENCE = Map.ofEntries(
+            Map.entry("||", 1), Map.entry("&&", 2),
+            Map.entry("==", 3), Map.entry("!=", 3),
+            Map.entry("<", 4), Map.entry(">", 4), Map.entry("<=", 4), Map.entry(">=", 4),
+            Map.entry("|", 5), Map.entry("^", 6), Map.entry("&", 7),
+            Map.entry("<<", 8), Map.entry(">>", 8),
+            Map.entry("+", 9), Map.entry("-", 9),
+            Map.entry("*", 10), Map.entry("/", 10), Map.entry("%", 10),
+            Map.entry("**", 11));
+
+    private static final Set<String> ASSIGNMENT_OPERATORS = Set.of(
+            "=", "+=", "-=", "*=", "/=", "%=", "**=", "<<=", ">>=", "&=", "|=", "^=", "&&=", "||=");
+
+    /** Rule-book declaration order: constants, structs, records, mappings, then transitions and functions */
+    private static final Map<String, Integer> ITEM_ORDER = Map.of(
+            "const", 1, "struct", 2, "record", 3, "mapping", 4, "function", 5);
+
+    private LeoSyntaxChecker() {}
+
+    /**
+     * Outcome of a pre-check
+     */
+    public record Result(String file, List<LeoDiagnostic> diagnostics, long elapsedNanos) {
+
+        public static Result empty(String file) {
+            return new Result(file, List.of(), 0L);
+        }
+
+        public boolean hasErrors() {
+            return diagnostics.stream().anyMatch(LeoDiagnostic::isError);
+        }
+
+        public List<LeoDiagnostic> errors() {
+            return diagnostics.stream().filter(LeoDiagnostic::isError).toList();
+        }
+
+        public List<LeoDiagnostic> warnings() {
+            return diagnostics.stream().filter(d -> !d.isError()).toList();
+        }
+
+        public long elapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        /**
+         * Diagnostics rendered like `leo build` output, used in place of the compiler output when
+         * the pre-check fails
+         */
+        public String toBuildOutput() {
+            StringBuilder out = new StringBuilder();
+            out.append("Pre-check found ").append(errors().size()).append(" error(s) and ")
+                    .append(warnings().size()).append(" warning(s) in ").append(file)
+                    .append(" (leo build skipped)\n\n");
+            for (LeoDiagnostic diagnostic : diagnostics) {
+                out.append(diagnostic.format()).append('\n');
+            }
+            return out.toString();
+        }
+    }
+
+    /**
+     * Pre-check src/main.leo of a project. A missing or unreadable file yields an empty result
+     * so that `leo build` reports the problem itself.
+     */
+    public static Result checkProject(Path projectPath) {
+        Path mainFile = projectPath.resolve(MAIN_FILE);
+        try {
+            return check(Files.readString(mainFile), MAIN_FILE);
+        } catch (IOException e) {
+            return Result.empty(MAIN_FILE);
+        }
+    }
+
+    /**
+     * Pre-check Leo source code
+     *
+     * @param source Leo source
+     * @param file   file name used in diagnostics
+     */
+    public static Result check(String source, String file) {
+        long start = System.nanoTime();
+        List<LeoDiagnostic> diagnostics = new ArrayList<>();
+        LeoLexer lexer = new LeoLexer(source, file, diagnostics);
+        List<Token> tokens = lexer.tokenize();
+
+        // Unbalanced delimiters make every later parse error noise, so report them alone
+        if (checkDelimiters(tokens, file, lexer, diagnostics)) {
+            new Parser(tokens, file, lexer, diagnostics).parseFile();
+        }
+
+        // Lexer and parser findings interleave, report them in source order
+        diagnostics.sort(Comparator.comparingInt(LeoDiagnostic::line).thenComparingInt(LeoDiagnostic::column));
+        List<LeoDiagnostic> capped = diagnostics.size() > MAX_ERRORS ? diagnostics.subList(0, MAX_ERRORS) : diagnostics;
+        return new Result(file, List.copyOf(capped), System.nanoTime() - start);
+    }
+
+    /**
+     * @return true when all (), [] and {} are balanced
+     */
+    private static boolean checkDelimiters(List<Token> tokens, String file, LeoLexer lexer, List<LeoDiagnostic> diagnostics) {
+        Deque<Token> open = new ArrayDeque<>();
+        boolean balanced = true;
+        for (Token token : tokens) {
+            if (token.kind() != Kind.SYMBOL) {
+                continue;
+            }
+            switch (token.text()) {
+                case "(", "[", "{" -> open.push(token);
+                case ")", "]", "}" -> {
+                    if (!open.isEmpty() && closing(open.peek().text()).equals(token.text())) {
+                        open.pop();
+                    } else {
+                        String message = open.isEmpty()
+                                ? "unexpected closing delimiter '" + token.text() + "'"
+                                : "mismatched closing delimiter '" + token.text() + "' for '" + open.peek().text()
+                                        + "' opened at " + open.peek().line() + ":" + open.peek().column();
+                        diagnostics.add(LeoDiagnostic.error("EPRE0000001", message,
+                                file, token.line(), token.column(), lexer.lineText(token.line())));
+                        return false;
+                    }
+                }
+                default -> { }
+            }
+        }
+        while (!open.isEmpty()) {
+            Token token = open.removeLast();
+            diagnostics.add(LeoDiagnostic.error("EPRE0000001", "unclosed delimiter '" + token.text() + "'",
+                    file, token.line(), token.column(), lexer.lineText(token.line())));
+            balanced = false;
+        }
+        return balanced;
+    }
+
+    private static String closing(String opening) {
+        return switch (opening) {
+            case "(" -> ")";
+            case "[" -> "]";
+            default -> "}";
+        };
+    }
+
+    @SafeVarargs
+    private static Set<String> union(Set<String>... sets) {
+        Set<String> all = new HashSet<>();
+        for (Set<String> set : sets) {
+            all.addAll(set);
+        }
+        return Set.copyOf(all);
+    }
+
+    /** Thrown to unwind to the nearest recovery point; the diagnostic is already recorded */
+    private static final class ParseException extends RuntimeException {
+        ParseException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private record Scope(Set<String> names, boolean conditional) {}
+
+    /**
+     * Recursive-descent parser with statement- and item-level error recovery
+     */
+    private static final class Parser {
+
+        private final List<Token> tokens;
+        private final String file;
+        private final LeoLexer lexer;
+        private final List<LeoDiagnostic> diagnostics;
+
+        private int pos;
+        private boolean structLiteralAllowed = true;
+
+        private boolean inAsyncFunction;
+        private int asyncBlockDepth;
+        private final Deque<Scope> scopes = new ArrayDeque<>();
+
+        private int lastItemOrder;
+        private boolean orderWarned;
+
+        Parser(List<Token> tokens, String file, LeoLexer lexer, List<LeoDiagnostic> diagnostics) {
+            this.tokens = tokens;
+            this.file = file;
+            this.lexer = lexer;
+            this.diagnostics = diagnostics;
+        }
+
+        void parseFile() {
+            try {
+                while (peek().is("import")) {
+                    next();
+                    expectIdentifier();
+                    expect(".");
+                    expect("aleo");
+                    expect(";");
+                }
+                expect("program");
+                Token name = expectIdentifier();
+                checkIdentifierLength(name);
+                expect(".");
+                expect("aleo");
+                expect("{");
+                while (!peek().is("}") && peek().kind() != Kind.EOF) {
+                    int before = pos;
+                    try {
+                        parseItem();
+                    } catch (ParseException e) {
+                        recover(before);
+                    }
+                }
+                expect("}");
+                if (peek().kind() != Kind.EOF) {
+                    throw unexpected("end of file");
+                }
+            } catch (ParseException e) {
+                // Already reported
+            }
+        }
+
+        // ---------------------------------------------------------------- items
+
+        private void parseItem() {
+            while (peek().is("@")) {
+                next();
+                expectIdentifier();
+                if (peek().is("(")) {
+                    skipGroup();
+                }
+            }
+
+            Token start = peek();
+            if (start.kind() != Kind.IDENT) {
+                throw unexpected("a program item");
+            }
+            switch (start.text()) {
+                case "const" -> {
+                    checkOrder(start, "const");
+                    next();
+                    parseConstant();
+                }
+                case "struct", "record" -> {
+                    checkOrder(start, start.text());
+                    next();
+                    parseComposite(start.text().equals("record"));
+                }
+                case "mapping" -> {
+                    checkOrder(start, "mapping");
+                    next();
+                    Token name = expectIdentifier();
+                    checkIdentifierLength(name);
+                    expect(":");
+                    parseType();
+                    expect("=>");
+                    parseType();
+                    expect(";");
+                }
+                case "async", "transition", "function", "inline", "script" -> {
+                    checkOrder(start, "function");
+                    parseFunction();
+                }
+                default -> {
+                    if (STATEMENT_KEYWORDS.contains(start.text())) {
+                        throw unexpected("a program item");
+                    }
+                    // Syntax newer than the rules book: leave it to the compiler
+                    recover(pos);
+                }
+            }
+        }
+
+        private void parseConstant() {
+            Token name = expectIdentifier();
+            expect(":");
+            parseType();
+            expect("=");
+            parseExpression(true);
+            expect(";");
+            if (!scopes.isEmpty()) {
+                scopes.peek().names().add(name.text());
+            }
+        }
+
+        private void parseComposite(boolean isRecord) {
+            Token name = expectIdentifier();
+            checkIdentifierLength(name);
+            expect("{");
+            List<String> fields = new ArrayList<>();
+            while (!peek().is("}")) {
+                if (peek().is("public") || peek().is("private") || peek().is("constant")) {
+                    next();
+                }
+                fields.add(expectIdentifier().text());
+                expect(":");
+                parseType();
+                if (!peek().is("}")) {
+                    expect(",");
+                }
+            }
+            expect("}");
+
+            if (isRecord && !fields.contains("owner")) {
+                error("ETYC0372019",
+                        "The field `owner` is required in record `" + name.text() + "` (owner: address)", name);
+            } else if (isRecord && !fields.get(0).equals("owner")) {
+                warning("WPRE0000003",
+                        "record `" + name.text() + "` should declare `owner: address` as its first field", name);
+            }
+        }
+
+        private void parseFunction() {
+            boolean isAsync = false;
+            if (peek().is("async")) {
+                next();
+                isAsync = true;
+            }
+
+            Token kind = next();
+            boolean isConstructor = isAsync && kind.is("constructor");
+            if (!isConstructor && !(kind.is("transition") || kind.is("function") || kind.is("inline") || kind.is("script"))) {
+                throw unexpected(kind, "'transition' or 'function'");
+            }
+            if (!isConstructor) {
+                checkIdentifierLength(expectIdentifier());
+            }
+
+            scopes.clear();
+            scopes.push(new Scope(new HashSet<>(), false));
+            inAsyncFunction = isAsync && kind.is("function");
+            asyncBlockDepth = 0;
+            try {
+                parseParameters();
+                if (peek().is("->")) {
+                    next();
+                    parseOutputs();
+                }
+                parseBlock(false);
+            } finally {
+                inAsyncFunction = false;
+                scopes.clear();
+            }
+        }
+
+        private void parseParameters() {
+            expect("(");
+            while (!peek().is(")")) {
+                if (peek().is("public") || peek().is("private") || peek().is("constant")) {
+                    next();
+                }
+                Token name = expectIdentifier();
+                expect(":");
+                parseType();
+                scopes.peek().names().add(name.text());
+                if (!peek().is(")")) {
+                    expect(",");
+                }
+            }
+            expect(")");
+        }
+
+        private void parseOutputs() {
+            if (!peek().is("(")) {
+                parseOutput();
+                return;
+            }
+            next();
+            while (!peek().is(")")) {
+                parseOutput();
+                if (!peek().is(")")) {
+                    expect(",");
+                }
+            }
+            expect(")");
+        }
+
+        private void parseOutput() {
+            if (peek().is("public") || peek().is("private") || peek().is("constant")) {
+                next();
+            }
+            parseType();
+        }
+
+        private void checkOrder(Token start, String item) {
+            int order = ITEM_ORDER.get(item);
+            if (order < lastItemOrder && !orderWarned) {
+                orderWarned = true;
+                warning("WPRE0000001",
+                        "`" + item + "` declared after a later section; expected order is constants, structs, "
+                                + "records, mappings, then transitions and functions", start);
+            }
+            lastItemOrder = Math.max(lastItemOrder, order);
+        }
+
+        // ---------------------------------------------------------------- types
+
+        private void parseType() {
+            Token token = peek();
+            if (token.is("(")) {
+                next();
+                while (!peek().is(")")) {
+                    parseType();
+                    if (!peek().is(")")) {
+                        expect(",");
+                    }
+                }
+                expect(")");
+            } else if (token.is("[")) {
+                next();
+                parseType();
+                expect(";");
+                parseExpression(true);
+                expect("]");
+            } else if (token.kind() == Kind.IDENT && !STATEMENT_KEYWORDS.contains(token.text())) {
+                next();
+                if (token.is("Future") && peek().is("<")) {
+                    skipGenericArguments();
+                } else if (peek().is(".") && (peek(1).is("aleo") || peek(1).is("record"))) {
+                    next();
+                    if (next().is("aleo") && peek().is("/")) {
+                        next();
+                        expectIdentifier();
+                    }
+                }
+            } else {
+                throw unexpected("a type");
+            }
+        }
+
+        private void skipGenericArguments() {
+            int depth = 0;
+            do {
+                Token token = next();
+                if (token.kind() == Kind.EOF) {
+                    throw unexpected(token, "'>'");
+                }
+                if (token.is("<")) {
+                    depth++;
+                } else if (token.is(">")) {
+                    depth--;
+                } else if (token.is(">>")) {
+                    depth -= 2;
+                }
+            } while (depth > 0);
+        }
+
+        // ---------------------------------------------------------------- statements
+
+        private void parseBlock(boolean conditional) {
+            parseBlock(conditional, null);
+        }
+
+        private void parseBlock(boolean conditional, String declared) {
+            expect("{");
+            scopes.push(new Scope(new HashSet<>(), conditional));
+            if (declared != null) {
+                scopes.peek().names().add(declared);
+            }
+            try {
+                while (!peek().is("}") && peek().kind() != Kind.EOF) {
+                    int before = pos;
+                    try {
+                        parseStatement();
+                    } catch (ParseException e) {
+                        recover(before);
+                    }
+                }
+                expect("}");
+            } finally {
+                scopes.pop();
+            }
+        }
+
+        private void parseStatement() {
+            Token start = peek();
+            if (start.is("let")) {
+                next();
+                List<Token> names = new ArrayList<>();
+                if (peek().is("(")) {
+                    next();
+                    while (!peek().is(")")) {
+                        names.add(expectIdentifier());
+                        if (!peek().is(")")) {
+                            expect(",");
+                        }
+                    }
+                    expect(")");
+                } else {
+                    names.add(expectIdentifier());
+                }
+                if (peek().is(":")) {
+                    next();
+                    parseType();
+                }
+                expect("=");
+                parseExpression(true);
+                expect(";");
+                names.forEach(name -> scopes.peek().names().add(name.text()));
+            } else if (start.is("const")) {
+                next();
+                parseConstant();
+            } else if (start.is("return")) {
+                next();
+                if (inAsyncFunction && asyncBlockDepth == 0) {
+                    error("ETYC0372106",
+                            "async functions cannot have a return statement", start);
+                }
+                if (!peek().is(";")) {
+                    parseExpression(true);
+                }
+                expect(";");
+            } else if (start.is("if")) {
+                parseIf();
+            } else if (start.is("for")) {
+                next();
+                Token variable = expectIdentifier();
+                if (peek().is(":")) {
+                    next();
+                    parseType();
+                }
+                expect("in");
+                parseExpression(false);
+                expect("..");
+                parseExpression(false);
+                parseBlock(false, variable.text());
+            } else if (start.is("{")) {
+                parseBlock(false);
+            } else {
+                parseExpression(true);
+                if (peek().kind() == Kind.SYMBOL && ASSIGNMENT_OPERATORS.contains(peek().text())) {
+                    checkConditionalReassignment(start);
+                    next();
+                    parseExpression(true);
+                }
+                expect(";");
+            }
+        }
+
+        private void parseIf() {
+            expect("if");
+            parseExpression(false);
+            parseBlock(true);
+            if (peek().is("else")) {
+                next();
+                if (peek().is("if")) {
+                    parseIf();
+                } else {
+                    parseBlock(true);
+                }
+            }
+        }
+
+        /**
+         * ETYC0372109: async code cannot assign, inside an if/else, a variable declared outside of it
+         */
+        private void checkConditionalReassignment(Token target) {
+            if (!inAsyncCode() || target.kind() != Kind.IDENT) {
+                return;
+            }
+            boolean crossesConditional = false;
+            for (Scope scope : scopes) {
+                if (scope.names().contains(target.text())) {
+                    if (crossesConditional) {
+                        error("ETYC0372109",
+                                "Cannot re-assign to `" + target.text() + "` from a conditional scope to an outer scope "
+                                        + "in an async function. Use a ternary instead: let "
+                                        + target.text() + " = condition ? a : b;", target);
+                    }
+                    return;
+                }
+                crossesConditional |= scope.conditional();
+            }
+        }
+
+        private boolean inAsyncCode() {
+            return inAsyncFunction || asyncBlockDepth > 0;
+        }
+
+        // ---------------------------------------------------------------- expressions
+
+        private void parseExpression(boolean allowStructLiteral) {
+            boolean saved = structLiteralAllowed;
+            structLiteralAllowed = allowStructLiteral;
+            try {
+                parseTernary();
+            } finally {
+                structLiteralAllowed = saved;
+            }
+        }
+
+        private void parseTernary() {
+            parseBinary(1);
+            if (peek().is("?")) {
+                next();
+                parseTernary();
+                expect(":");
+                parseTernary();
+            }
+        }
+
+        private void parseBinary(int minPrecedence) {
+            parseUnary();
+            while (true) {
+                Token operator = peek();
+                Integer precedence = operator.kind() == Kind.SYMBOL ? BINARY_PRECEDENCE.get(operator.text()) : null;
+                if (precedence == null || precedence < minPrecedence) {
+                    return;
+                }
+                next();
+                // ** is right-associative, everything else left-associative
+                parseBinary(operator.is("**") ? precedence : precedence + 1);
+            }
+        }
+
+        private void parseUnary() {
+            if (peek().is("!") || peek().is("-")) {
+                next();
+                parseUnary();
+            } else {
+                parsePostfix();
+            }
+        }
+
+        private void parsePostfix() {
+            parsePrimary();
+            while (true) {
+                Token token = peek();
+                if (token.is(".")) {
+                    next();
+                    Token member = next();
+                    if (member.kind() != Kind.IDENT && member.kind() != Kind.INTEGER) {
+                        throw unexpected(member, "a member name or tuple index");
+                    }
+                    if (peek().is("(")) {
+                        parseArguments();
+                    }
+                } else if (token.is("(")) {
+                    parseArguments();
+                } else if (token.is("[")) {
+                    next();
+                    parseExpression(true);
+                    expect("]");
+                } else if (token.is("::")) {
+                    next();
+                    if (peek().is("[")) {
+                        skipGroup();
+                    } else {
+                        expectName();
+                    }
+                } else if (token.is("as")) {
+                    next();
+                    parseType();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void parseArguments() {
+            expect("(");
+            while (!peek().is(")")) {
+                parseExpression(true);
+                if (!peek().is(")")) {
+                    expect(",");
+                }
+            }
+            expect(")");
+        }
+
+        private void parsePrimary() {
+            Token token = peek();
+            switch (token.kind()) {
+                case INTEGER, ADDRESS, STRING -> next();
+                case SYMBOL -> {
+                    if (token.is("(")) {
+                        next();
+                        while (!peek().is(")")) {
+                            parseExpression(true);
+                            if (!peek().is(")")) {
+                                expect(",");
+                            }
+                        }
+                        expect(")");
+                    } else if (token.is("[")) {
+                        next();
+                        parseExpression(true);
+                        if (peek().is(";")) {
+                            next();
+                            parseExpression(true);
+                        } else {
+                            while (peek().is(",")) {
+                                next();
+                                if (!peek().is("]")) {
+                                    parseExpression(true);
+                                }
+                            }
+                        }
+                        expect("]");
+                    } else {
+                        throw unexpected("an expression");
+                    }
+                }
+                case IDENT -> {
+                    if (token.is("if")) {
+                        error("EPAR0370005",
+                                "expected an expression -- found 'if'. Leo has no if-expressions, use the ternary "
+                                        + "operator: let x = condition ? a : b;", token);
+                        throw new ParseException();
+                    }
+                    if (token.is("async") && peek(1).is("{")) {
+                        next();
+                        asyncBlockDepth++;
+                        try {
+                            parseBlock(false);
+                        } finally {
+                            asyncBlockDepth--;
+                        }
+                        return;
+                    }
+                    if (STATEMENT_KEYWORDS.contains(token.text())) {
+                        throw unexpected("an expression");
+                    }
+                    next();
+                    if (token.is("Mapping") && peek().is("::") && !inAsyncCode()) {
+                        error("ETYC0372067",
+                                "Mapping operations are only allowed in async functions and async blocks", token);
+                    } else if (token.is("block") && peek().is(".") && !inAsyncCode()) {
+                        error("ETYC0372034",
+                                "block.height is only available in async functions and async blocks", token);
+                    } else if (structLiteralAllowed && peek().is("{") && !RESERVED.contains(token.text())) {
+                        parseStructLiteral();
+                    }
+                }
+                default -> throw unexpected("an expression");
+            }
+        }
+
+        private void parseStructLiteral() {
+            expect("{");
+            while (!peek().is("}")) {
+                expectIdentifier();
+                if (peek().is(":")) {
+                    next();
+                    parseExpression(true);
+                }
+                if (!peek().is("}")) {
+                    expect(",");
+                }
+            }
+            expect("}");
+        }
+
+        // ---------------------------------------------------------------- recovery
+
+        /**
+         * Rewind to the start of a broken statement or item and skip it as a whole: up to a ';'
+         * or a closed {} group (plus its else branches), never past the '}' of the enclosing block
+         */
+        private void recover(int startPos) {
+            pos = startPos;
+            int depth = 0;
+            boolean first = true;
+            while (peek().kind() != Kind.EOF) {
+                Token token = peek();
+                if (depth == 0 && token.is("}") && !first) {
+                    return;
+                }
+                next();
+                first = false;
+                if (token.is("{") || token.is("(") || token.is("[")) {
+                    depth++;
+                } else if (token.is("}") || token.is(")") || token.is("]")) {
+                    depth--;
+                    if (depth == 0 && token.is("}") && !peek().is("else")) {
+                        if (peek().is(";")) {
+                            next();
+                        }
+                        return;
+                    }
+                } else if (depth == 0 && token.is(";")) {
+                    return;
+                }
+            }
+        }
+
+        private void skipGroup() {
+            int depth = 0;
+            do {
+                Token token = next();
+                if (token.kind() == Kind.EOF) {
+                    return;
+                }
+                if (token.is("(") || token.is("[") || token.is("{")) {
+                    depth++;
+                } else if (token.is(")") || token.is("]") || token.is("}")) {
+                    depth--;
+                }
+            } while (depth > 0);
+        }
+
+        // ---------------------------------------------------------------- token helpers
+
+        private Token peek() {
+            return tokens.get(pos);
+        }
+
+        private Token peek(int offset) {
+            return tokens.get(Math.min(pos + offset, tokens.size() - 1));
+        }
+
+        private Token next() {
+            Token token = tokens.get(pos);
+            if (pos < tokens.size() - 1) {
+                pos++;
+            }
+            return token;
+        }
+
+        private Token expect(String text) {
+            if (!peek().is(text)) {
+                throw unexpected("'" + text + "'");
+            }
+            return next();
+        }
+
+        private Token expectIdentifier() {
+            Token token = peek();
+            if (token.kind() == Kind.IDENT && RESERVED.contains(token.text())) {
+                error("EPAR0370009",
+                        "expected an identifier -- found reserved word '" + token.text() + "'", token);
+                throw new ParseException();
+            }
+            if (token.kind() != Kind.IDENT) {
+                throw unexpected("an identifier");
+            }
+            return next();
+        }
+
+        /**
+         * Identifier after '::', where type keywords are valid (group::GEN, signature::verify)
+         */
+        private Token expectName() {
+            if (peek().kind() != Kind.IDENT) {
+                throw unexpected("an identifier");
+            }
+            return next();
+        }
+
+        private void checkIdentifierLength(Token name) {
+            if (name.text().length() > MAX_IDENTIFIER_LENGTH) {
+                warning("WPRE0000002",
+                        "identifier `" + name.text() + "` is longer than " + MAX_IDENTIFIER_LENGTH + " bytes", name);
+            }
+        }
+
+        private ParseException unexpected(String expected) {
+            return unexpected(peek(), expected);
+        }
+
+        private ParseException unexpected(Token found, String expected) {
+            error("EPAR0370005", "expected " + expected + " -- found " + found.describe(), found);
+            return new ParseException();
+        }
+
+        private void error(String code, String message, Token at) {
+            diagnostics.add(LeoDiagnostic.error(code, message, file, at.line(), at.column(), lexer.lineText(at.line())));
+        }
+
+        private void warning(String code, String message, Token at) {
+            diagnostics.add(LeoDiagnostic.warning(code, message, file, at.line(), at.column(), lexer.lineText(at.line())));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.reglisseforge.leo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.reglisseforge.utils.CommandRunner;
+
+/**
+ * Private keys generated ahead of time with `leo account new`, so that creating a project does not
+ * wait for a leo process.
+ *
+ * Keys are files under the pool directory, one per key, and are taken by renaming them: a key is
+ * handed out once, also across processes sharing the directory (the CLI keeps its pool between
+ * runs this way). Every take tops the pool back up to its size on a background thread; only a take
+ * from an empty pool generates its key inline.
+ */
+public class PrivateKeyPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrivateKeyPool.class);
+
+    private static final String KEY_SUFFIX = ".key";
+    private static final Pattern PRIVATE_KEY = Pattern.compile("APrivateKey1[0-9A-Za-z]+");
+
+    /**
+     * Runs `leo account new`, which prints a new private key
+     */
+    @FunctionalInterface
+    public interface Generator {
+        CommandRunner.CommandResult leoAccountNew();
+    }
+
+    private final Path dir;
+    private final int size;
+    private final Generator generator;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder taken = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PrivateKeyPool(Path dir, int size, Generator generator) {
+        this.dir = dir;
+        this.size = size;
+        this.generator = generator;
+    }
+
+    /**
+     * A key no one else was given, null when none could be generated
+     */
+    public String take() {
+        String key = poll();
+        refill();
+        if (key != null) {
+            taken.increment();
+            return key;
+        }
+        misses.increment();
+        return generate();
+    }
+
+    /**
+     * Top the pool up to its size in the background, unless that is already under way
+     */
+    public void refill() {
+        if (size <= 0 || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("leo-key-pool").start(() -> {
+            try {
+                Files.createDirectories(dir);
+                while (keyFiles().size() < size) {
+                    String key = generate();
+                    if (key == null) {
+                        return;
+                    }
+                    store(key);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not refill the private key pool in {}", dir, e);
+            } finally {
+                refilling.set(false);
+            }
+        });
+    }
+
+    public long getGenerated() { return generated.sum(); }
+
+    public long getTaken() { return taken.sum(); }
+
+    public long getMisses() { return misses.sum(); }
+
+    private String poll() {
+        try {
+            for (Path file : keyFiles()) {
+                Path claimed = file.resolveSibling(file.getFileName() + ".taken");
+                try {
+                    Files.move(file, claimed, StandardCopyOption.ATOMIC_MOVE);
+                } catch (NoSuchFileException e) {
+                    // Taken by another caller meanwhile
+                    continue;
+                }
+                try {
+                    String key = Files.readString(claimed, StandardCharsets.UTF_8).strip();
+                    if (PRIVATE_KEY.matcher(key).matches()) {
+                        return key;
+                    }
+                } finally {
+                    Files.deleteIfExists(claimed);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not take a key from the private key pool in {}", dir, e);
+        }
+        return null;
+    }
+
+    private List<Path> keyFiles() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(KEY_SUFFIX)).toList();
+        }
+    }
+
+    private void store(String key) throws IOException {
+        // Temp files are created readable by the owner only
+        Path staging = Files.createTempFile(dir, "staging-", ".tmp");
+        try {
+            Files.writeString(staging, key + "\n", StandardCharsets.UTF_8);
+            Files.move(staging, dir.resolve(UUID.randomUUID() + KEY_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(staging);
+            throw e;
+        }
+    }
+
+    private String generate() {
+        CommandRunner.CommandResult result = generator.leoAccountNew();
+        Matcher key = PRIVATE_KEY.matcher(result.stdout());
+        if (result.exitCode() == 0 && key.find()) {
+            generated.increment();
+            return key.group();
+        }
+        logger.warn("leo account new printed no private key (exit code {})", result.exitCode());
+        return null;
+    }
+}
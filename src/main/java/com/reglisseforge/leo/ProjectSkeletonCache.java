@@ -0,0 +1,250 @@
+package com.reglisseforge.leo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.reglisseforge.utils.CommandRunner;
+
+/**
+ * Creates Leo projects from a template skeleton instead of running `leo new` for each of them.
+ *
+ * The template is produced once per leo version by running `leo new` with a placeholder program
+ * name, kept on disk under {@code <cacheDir>/<version hash>/} and in memory afterwards. A new
+ * project is the template's files (program.json, .gitignore, .env, src/, tests/, ...) written
+ * with the placeholder replaced by the project name, i.e. what `leo new` would have generated.
+ *
+ * The private key `leo new` put in .env is never copied: each project gets its own from a
+ * {@link PrivateKeyPool} filled in the background, and is created with `leo new` when no key can
+ * be had. Projects are written to a staging directory and renamed into place, so an interrupted
+ * copy never leaves a partial project behind.
+ */
+public class ProjectSkeletonCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectSkeletonCache.class);
+
+    /** Program name the template is generated with, replaced by the real name on copy */
+    static final String TEMPLATE_NAME = "leoskeletontemplate";
+
+    private static final Set<String> SKIPPED_DIRS = Set.of("build", "outputs");
+
+    static final String ENV_FILE = ".env";
+
+    /** Stands for the private key in the template's .env, replaced by a new key on copy */
+    private static final String PRIVATE_KEY_PLACEHOLDER = "leoskeletonprivatekey";
+    private static final Pattern PRIVATE_KEY_ENTRY = Pattern.compile("(?m)^PRIVATE_KEY=.*$");
+
+    /**
+     * Runs `leo new <programName>` in workspaceDir
+     */
+    @FunctionalInterface
+    public interface Generator {
+        CommandRunner.CommandResult leoNew(File workspaceDir, String programName);
+    }
+
+    private final Path cacheDir;
+    private final Generator generator;
+    private final PrivateKeyPool keys;
+
+    /** Template files (project-relative path to content) by leo version, empty when it could not be produced */
+    private final Map<String, Map<String, String>> templates = new ConcurrentHashMap<>();
+
+    private final LongAdder materialized = new LongAdder();
+    private final LongAdder templatesGenerated = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ProjectSkeletonCache(Path cacheDir, Generator generator, PrivateKeyPool keys) {
+        this.cacheDir = cacheDir;
+        this.generator = generator;
+        this.keys = keys;
+    }
+
+    /**
+     * Produce the template of a leo version and fill the key pool ahead of the first project
+     */
+    public void prepare(String leoVersion) {
+        if (leoVersion != null) {
+            template(leoVersion);
+        }
+        keys.refill();
+    }
+
+    /**
+     * Create workspaceDir/projectName. Falls back to `leo new` when the leo version is unknown, the
+     * template cannot be produced or no private key can be generated; like `leo new`, leaves an
+     * existing project untouched.
+     *
+     * @return the project directory
+     */
+    public Path materialize(Path workspaceDir, String projectName, String leoVersion) throws IOException {
+        Path projectDir = workspaceDir.resolve(projectName);
+        if (Files.exists(projectDir)) {
+            return projectDir;
+        }
+
+        Map<String, String> template = leoVersion != null ? template(leoVersion) : null;
+        boolean needsKey = template != null && template.getOrDefault(ENV_FILE, "").contains(PRIVATE_KEY_PLACEHOLDER);
+        String privateKey = needsKey ? keys.take() : null;
+
+        Files.createDirectories(workspaceDir);
+        Path staging = Files.createTempDirectory(workspaceDir, ".staging-" + projectName + "-");
+        try {
+            Path staged = staging.resolve(projectName);
+            if (template == null || (needsKey && privateKey == null)) {
+                leoNew(staging, projectName);
+            } else {
+                for (Map.Entry<String, String> file : template.entrySet()) {
+                    Path target = staged.resolve(file.getKey());
+                    String content = file.getValue().replace(TEMPLATE_NAME, projectName);
+                    if (file.getKey().equals(ENV_FILE) && needsKey) {
+                        content = content.replace(PRIVATE_KEY_PLACEHOLDER, privateKey);
+                    }
+                    Files.createDirectories(target.getParent());
+                    Files.writeString(target, content, StandardCharsets.UTF_8);
+                }
+                materialized.increment();
+            }
+
+            // A concurrent call may have created the same project meanwhile; keep that one
+            try {
+                Files.move(staged, projectDir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileSystemException e) {
+                if (!Files.isDirectory(projectDir)) {
+                    throw e;
+                }
+            }
+            return projectDir;
+        } finally {
+            delete(staging);
+        }
+    }
+
+    public long getKeysGenerated() { return keys.getGenerated(); }
+
+    public long getKeysTaken() { return keys.getTaken(); }
+
+    public long getKeyMisses() { return keys.getMisses(); }
+
+    private void leoNew(Path dir, String projectName) throws IOException {
+        fallbacks.increment();
+        CommandRunner.CommandResult result = generator.leoNew(dir.toFile(), projectName);
+        if (result.exitCode() != 0 || !Files.isDirectory(dir.resolve(projectName))) {
+            throw new IOException("leo new failed with exit code " + result.exitCode() + ": " + result.stderr().strip());
+        }
+    }
+
+    public long getMaterialized() { return materialized.sum(); }
+
+    public long getTemplatesGenerated() { return templatesGenerated.sum(); }
+
+    public long getFallbacks() { return fallbacks.sum(); }
+
+    /**
+     * Template of a leo version, loaded from disk or generated; null when it cannot be produced
+     */
+    private Map<String, String> template(String leoVersion) {
+        Map<String, String> template = templates.computeIfAbsent(leoVersion, version -> {
+            try {
+                return loadOrGenerate(version);
+            } catch (IOException e) {
+                // Not retried for this version, projects are created with `leo new` instead
+                logger.warn("Could not produce the project template for {}", version, e);
+                return Map.of();
+            }
+        });
+        return template.isEmpty() ? null : template;
+    }
+
+    private Map<String, String> loadOrGenerate(String leoVersion) throws IOException {
+        Path versionDir = cacheDir.resolve(versionKey(leoVersion));
+        if (!Files.isDirectory(versionDir.resolve(TEMPLATE_NAME))) {
+            generate(leoVersion, versionDir);
+            logger.info("Generated project template for {} in {}", leoVersion, versionDir);
+        }
+        return load(versionDir.resolve(TEMPLATE_NAME));
+    }
+
+    private void generate(String leoVersion, Path versionDir) throws IOException {
+        Files.createDirectories(cacheDir);
+        Path staging = Files.createTempDirectory(cacheDir, "staging-");
+        try {
+            CommandRunner.CommandResult result = generator.leoNew(staging.toFile(), TEMPLATE_NAME);
+            if (result.exitCode() != 0 || !Files.isDirectory(staging.resolve(TEMPLATE_NAME))) {
+                throw new IOException("leo new failed with exit code " + result.exitCode() + ": " + result.stderr().strip());
+            }
+            Files.writeString(staging.resolve("VERSION"), leoVersion + "\n");
+
+            // Another process may have published the same template meanwhile; either copy is fine
+            try {
+                Files.move(staging, versionDir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileSystemException e) {
+                if (!Files.isDirectory(versionDir)) {
+                    Files.move(staging, versionDir);
+                }
+            }
+            templatesGenerated.increment();
+        } finally {
+            delete(staging);
+        }
+    }
+
+    private static Map<String, String> load(Path templateDir) throws IOException {
+        Map<String, String> files = new LinkedHashMap<>();
+        try (Stream<Path> paths = Files.walk(templateDir)) {
+            for (Path file : (Iterable<Path>) paths.filter(Files::isRegularFile).sorted()::iterator) {
+                Path relative = templateDir.relativize(file);
+                if (SKIPPED_DIRS.contains(relative.getName(0).toString())) {
+                    continue;
+                }
+                String content = Files.readString(file, StandardCharsets.UTF_8);
+                if (relative.toString().equals(ENV_FILE)) {
+                    // The template's own key must not end up in every project
+                    content = PRIVATE_KEY_ENTRY.matcher(content).replaceAll("PRIVATE_KEY=" + PRIVATE_KEY_PLACEHOLDER);
+                }
+                files.put(relative.toString(), content);
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IOException("Empty project template in " + templateDir);
+        }
+        return files;
+    }
+
+    private static String versionKey(String leoVersion) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(leoVersion.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
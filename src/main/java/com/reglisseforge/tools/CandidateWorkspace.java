@@ -0,0 +1,117 @@
+package com.reglisseforge.tools;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Private copy of a Leo project in which one speculative correction candidate edits and builds.
+ *
+ * Only the inputs of a build are copied (program.json, src/ and the other top-level files);
+ * build/ and outputs/ are left behind, so a copy is a few KB and takes well under a millisecond.
+ * The copy lives next to the project so it stays on the same filesystem and inside the workspace.
+ */
+class CandidateWorkspace implements AutoCloseable {
+
+    private static final Set<String> SKIPPED_DIRS = Set.of("build", "outputs");
+
+    private final Path path;
+
+    private CandidateWorkspace(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Copy the project into a fresh directory under {@code <project>/../.candidates}
+     */
+    static CandidateWorkspace create(Path projectDir, String name) throws IOException {
+        Path parent = projectDir.toAbsolutePath().getParent().resolve(".candidates");
+        Files.createDirectories(parent);
+        Path copy = Files.createTempDirectory(parent, projectDir.getFileName() + "-" + name + "-");
+
+        try (Stream<Path> files = Files.walk(projectDir)) {
+            files.filter(file -> !isSkipped(projectDir.relativize(file))).forEach(file -> {
+                Path target = copy.resolve(projectDir.relativize(file).toString());
+                try {
+                    if (Files.isDirectory(file)) {
+                        Files.createDirectories(target);
+                    } else {
+                        Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            delete(copy);
+            throw e.getCause();
+        }
+        return new CandidateWorkspace(copy);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Contents of the files under src/, keyed by their path relative to the project
+     */
+    Map<String, String> sources() throws IOException {
+        return readSources(path);
+    }
+
+    /**
+     * Contents of the files under projectDir/src/, keyed by their path relative to projectDir
+     */
+    static Map<String, String> readSources(Path projectDir) throws IOException {
+        Map<String, String> sources = new LinkedHashMap<>();
+        Path src = projectDir.resolve("src");
+        if (!Files.isDirectory(src)) {
+            return sources;
+        }
+        try (Stream<Path> files = Files.walk(src)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+                sources.put(projectDir.relativize(file).toString(), Files.readString(file));
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Write a candidate's sources over the project
+     */
+    static void promote(Map<String, String> sources, Path projectDir) throws IOException {
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path target = projectDir.resolve(source.getKey());
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, source.getValue());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        delete(path);
+    }
+
+    private static boolean isSkipped(Path relative) {
+        return relative.getNameCount() > 0 && SKIPPED_DIRS.contains(relative.getName(0).toString());
+    }
+
+    private static void delete(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.reglisseforge.tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.anthropic.core.JsonValue;
+import com.anthropic.models.beta.messages.BetaContentBlock;
+import com.anthropic.models.beta.messages.BetaContentBlockParam;
+import com.anthropic.models.beta.messages.BetaMessage;
+import com.anthropic.models.beta.messages.BetaMessageParam;
+import com.anthropic.models.beta.messages.BetaToolResultBlockParam;
+import com.anthropic.models.beta.messages.BetaToolUseBlock;
+
+/**
+ * Conversation of a single correction attempt, compacted before each request.
+ *
+ * The transcript keeps every tool result verbatim and renders a compacted view on demand:
+ * <ul>
+ *   <li>file reads followed by an edit of the same file are replaced by a short stub,</li>
+ *   <li>file reads followed by a later full read of the same file are replaced by a stub,</li>
+ *   <li>error results older than the most recent turns are replaced by a stub,</li>
+ *   <li>if the estimate is still above the token ceiling, the oldest remaining results are stubbed.</li>
+ * </ul>
+ * Tool results are never removed, only shortened, since every tool_use needs its tool_result.
+ */
+public class ContextCompactor {
+
+    private static final String READ_FILE_WITH_LINE_NUMBERS = "read_file_with_line_numbers";
+    private static final String READ_FILE_LINES = "read_file_lines";
+    private static final String EDIT_FILE = "edit_file";
+
+    /** Rough chars-per-token ratio used to estimate prompt size without a count_tokens round trip */
+    private static final int CHARS_PER_TOKEN = 4;
+
+    /** Results shorter than this are cheaper to keep than to replace with a stub */
+    private static final int MIN_STUB_LENGTH = 200;
+
+    private final boolean enabled;
+    private final int keepRecentTurns;
+    private final int maxInputTokens;
+
+    private final String initialPrompt;
+    private final List<Turn> turns = new ArrayList<>();
+
+    private int lastCompactedResults;
+    private int lastEstimatedTokens;
+
+    /**
+     * One executed tool call and its full result
+     */
+    public record ToolCall(BetaToolUseBlock toolUse, String result, boolean isError) {
+
+        String filePath() {
+            return stringArgument(toolUse._input(), "filePath").orElse(null);
+        }
+
+        boolean isRead() {
+            return READ_FILE_WITH_LINE_NUMBERS.equals(toolUse.name()) || READ_FILE_LINES.equals(toolUse.name());
+        }
+
+        boolean isEdit() {
+            return EDIT_FILE.equals(toolUse.name());
+        }
+    }
+
+    private record Turn(BetaMessage assistant, List<ToolCall> calls) {}
+
+    public ContextCompactor(String initialPrompt, boolean enabled, int keepRecentTurns, int maxInputTokens) {
+        this.initialPrompt = initialPrompt;
+        this.enabled = enabled;
+        this.keepRecentTurns = keepRecentTurns;
+        this.maxInputTokens = maxInputTokens;
+    }
+
+    /**
+     * Append an assistant turn and the results of the tools it called
+     */
+    public void addTurn(BetaMessage assistant, List<ToolCall> calls) {
+        turns.add(new Turn(assistant, List.copyOf(calls)));
+    }
+
+    /**
+     * Render the conversation for the next request, compacting stale tool output
+     */
+    public List<BetaMessageParam> render() {
+        String[][] rendered = new String[turns.size()][];
+        for (int t = 0; t < turns.size(); t++) {
+            List<ToolCall> calls = turns.get(t).calls();
+            rendered[t] = new String[calls.size()];
+            for (int c = 0; c < calls.size(); c++) {
+                rendered[t][c] = calls.get(c).result();
+            }
+        }
+
+        int compacted = enabled ? compact(rendered) : 0;
+
+        List<BetaMessageParam> messages = new ArrayList<>();
+        messages.add(BetaMessageParam.builder()
+                .role(BetaMessageParam.Role.USER)
+                .content(initialPrompt)
+                .build());
+
+        for (int t = 0; t < turns.size(); t++) {
+            Turn turn = turns.get(t);
+            messages.add(turn.assistant().toParam());
+
+            List<BetaContentBlockParam> results = new ArrayList<>();
+            for (int c = 0; c < turn.calls().size(); c++) {
+                ToolCall call = turn.calls().get(c);
+                BetaToolResultBlockParam.Builder result = BetaToolResultBlockParam.builder()
+                        .toolUseId(call.toolUse().id())
+                        .content(rendered[t][c]);
+                if (call.isError()) {
+                    result.isError(true);
+                }
+                results.add(BetaContentBlockParam.ofToolResult(result.build()));
+            }
+            if (!results.isEmpty()) {
+                messages.add(BetaMessageParam.builder()
+                        .role(BetaMessageParam.Role.USER)
+                        .contentOfBetaContentBlockParams(results)
+                        .build());
+            }
+        }
+
+        lastCompactedResults = compacted;
+        lastEstimatedTokens = estimateTokens(rendered);
+        return messages;
+    }
+
+    /**
+     * Replace superseded and stale results in place
+     *
+     * @return number of results replaced by a stub
+     */
+    private int compact(String[][] rendered) {
+        int compacted = 0;
+
+        // Position (turn, call) of the last edit and last full read of each file
+        Map<String, int[]> lastEdit = new HashMap<>();
+        Map<String, int[]> lastFullRead = new HashMap<>();
+        for (int t = 0; t < turns.size(); t++) {
+            List<ToolCall> calls = turns.get(t).calls();
+            for (int c = 0; c < calls.size(); c++) {
+                ToolCall call = calls.get(c);
+                String path = call.filePath();
+                if (path == null || call.isError()) {
+                    continue;
+                }
+                if (call.isEdit()) {
+                    lastEdit.put(path, new int[] {t, c});
+                } else if (READ_FILE_WITH_LINE_NUMBERS.equals(call.toolUse().name())) {
+                    lastFullRead.put(path, new int[] {t, c});
+                }
+            }
+        }
+
+        int recentFrom = Math.max(0, turns.size() - keepRecentTurns);
+        for (int t = 0; t < turns.size(); t++) {
+            List<ToolCall> calls = turns.get(t).calls();
+            for (int c = 0; c < calls.size(); c++) {
+                ToolCall call = calls.get(c);
+                if (call.result() == null || call.result().length() < MIN_STUB_LENGTH) {
+                    continue;
+                }
+                String path = call.filePath();
+
+                if (call.isRead() && path != null && isAfter(lastEdit.get(path), t, c)) {
+                    rendered[t][c] = "[Elided: " + path + " was edited after this read. Read it again for the current content.]";
+                    compacted++;
+                } else if (call.isRead() && path != null && isAfter(lastFullRead.get(path), t, c)) {
+                    rendered[t][c] = "[Elided: superseded by a later read of " + path + ".]";
+                    compacted++;
+                } else if (call.isError() && t < recentFrom) {
+                    rendered[t][c] = "[Elided: earlier " + call.toolUse().name() + " error.]";
+                    compacted++;
+                }
+            }
+        }
+
+        // Enforce the ceiling by stubbing the oldest results, never touching the latest turn
+        for (int t = 0; t < turns.size() - 1 && estimateTokens(rendered) > maxInputTokens; t++) {
+            List<ToolCall> calls = turns.get(t).calls();
+            for (int c = 0; c < calls.size() && estimateTokens(rendered) > maxInputTokens; c++) {
+                if (rendered[t][c] != null && rendered[t][c].length() >= MIN_STUB_LENGTH) {
+                    rendered[t][c] = "[Elided to keep the context under its token budget: " + calls.get(c).toolUse().name()
+                            + " output from an earlier turn.]";
+                    compacted++;
+                }
+            }
+        }
+
+        return compacted;
+    }
+
+    private static boolean isAfter(int[] position, int turn, int call) {
+        return position != null && (position[0] > turn || (position[0] == turn && position[1] > call));
+    }
+
+    /**
+     * Estimate the conversation size in tokens from its character count
+     */
+    private int estimateTokens(String[][] rendered) {
+        long chars = initialPrompt.length();
+        for (int t = 0; t < turns.size(); t++) {
+            for (BetaContentBlock block : turns.get(t).assistant().content()) {
+                chars += block.text().map(text -> text.text().length()).orElse(0);
+                chars += block.toolUse().map(toolUse -> toolUse._input().toString().length()).orElse(0);
+            }
+            for (String result : rendered[t]) {
+                chars += result != null ? result.length() : 0;
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, chars / CHARS_PER_TOKEN);
+    }
+
+    /**
+     * Number of tool results replaced by stubs in the last render
+     */
+    public int getLastCompactedResults() {
+        return lastCompactedResults;
+    }
+
+    /**
+     * Estimated conversation tokens (excluding system prompt and tools) in the last render
+     */
+    public int getLastEstimatedTokens() {
+        return lastEstimatedTokens;
+    }
+
+    /**
+     * Read a string argument from a tool_use input object
+     */
+    static Optional<String> stringArgument(JsonValue input, String name) {
+        return input.asObject()
+                .map(fields -> fields.get(name))
+                .flatMap(JsonValue::asString);
+    }
+}
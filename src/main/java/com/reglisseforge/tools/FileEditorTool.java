@@ -20,7 +20,7 @@ public class FileEditorTool {
      * @param newContent content to insert (multiple lines separated by \n)
      * @return success or error message
      */
-    @Tool(name = "edit_file", description = "Replaces a range of lines (1-based inclusive) with new content")
+    @Tool(name = "edit_file", path = "filePath", description = "Replaces a range of lines (1-based inclusive) with new content")
     public static String editFile(
             @Param(name = "filePath", description = "Path of file to modify") String filePath,
             @Param(name = "startLine", description = "Start line (1-based)") int startLine,
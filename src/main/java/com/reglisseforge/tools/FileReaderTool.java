@@ -16,7 +16,7 @@ public class FileReaderTool {
      * @param filePath chemin du fichier à lire
      * @return contenu avec numéros de ligne
      */
-    @Tool(name = "read_file_with_line_numbers", description = "Lit un fichier entier et retourne chaque ligne précédée de son numéro (1-based)")
+    @Tool(name = "read_file_with_line_numbers", readOnly = true, path = "filePath", description = "Lit un fichier entier et retourne chaque ligne précédée de son numéro (1-based)")
     public static String readFileWithLineNumbers(
             @Param(name = "filePath", description = "Chemin absolu ou relatif du fichier à lire") String filePath) {
         try {
@@ -51,7 +51,7 @@ public class FileReaderTool {
      * @param endLine numéro de ligne de fin (1-based)
      * @return contenu des lignes spécifiées avec numéros de ligne
      */
-    @Tool(name = "read_file_lines", description = "Lit une plage de lignes (inclusives, 1-based) et retourne les lignes numérotées")
+    @Tool(name = "read_file_lines", readOnly = true, path = "filePath", description = "Lit une plage de lignes (inclusives, 1-based) et retourne les lignes numérotées")
     public static String readFileLines(
             @Param(name = "filePath", description = "Chemin absolu ou relatif du fichier à lire") String filePath,
             @Param(name = "startLine", description = "Numéro de ligne de début (1-based)") int startLine,
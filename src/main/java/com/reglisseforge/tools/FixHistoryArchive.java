@@ -0,0 +1,167 @@
+package com.reglisseforge.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Completed sessions packed into one file each, {@code <dir>/<session id>.<codec extension>}.
+ *
+ * An archive holds the session's journal records, framed as in the journal and with their code
+ * inlined so it does not depend on the shared snapshot store, compressed with the codec its
+ * extension names. Reading an archive bumps its modification time, which eviction uses as the
+ * last access time.
+ */
+public final class FixHistoryArchive {
+
+    public enum Codec {
+        GZIP("jgz"),
+        DEFLATE("jzz"),
+        NONE("jlog");
+
+        private final String extension;
+
+        Codec(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * Codec of a leo.fixhistory.archive.codec value (gzip, deflate or none)
+         */
+        public static Codec of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+        OutputStream compress(OutputStream out) throws IOException {
+            return switch (this) {
+                case GZIP -> new GZIPOutputStream(out, 64 * 1024);
+                case DEFLATE -> new DeflaterOutputStream(out, new Deflater(Deflater.BEST_COMPRESSION), 64 * 1024);
+                case NONE -> out;
+            };
+        }
+
+        InputStream decompress(InputStream in) throws IOException {
+            return switch (this) {
+                case GZIP -> new GZIPInputStream(in, 64 * 1024);
+                case DEFLATE -> new InflaterInputStream(in);
+                case NONE -> in;
+            };
+        }
+    }
+
+    private final Path dir;
+
+    FixHistoryArchive(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Write a session's archive, replacing an existing one
+     */
+    void write(String sessionId, List<byte[]> records, Codec codec) throws IOException {
+        ByteArrayOutputStream packed = new ByteArrayOutputStream();
+        try (OutputStream out = codec.compress(packed)) {
+            for (byte[] record : records) {
+                ByteBuffer frame = HistoryJournal.frame(record);
+                out.write(frame.array(), frame.arrayOffset(), frame.remaining());
+            }
+        }
+
+        Files.createDirectories(dir);
+        Path target = dir.resolve(sessionId + "." + codec.extension);
+        Path temp = Files.createTempFile(dir, sessionId, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(packed.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        // An archive written earlier with another codec
+        for (Codec other : Codec.values()) {
+            if (other != codec) {
+                Files.deleteIfExists(dir.resolve(sessionId + "." + other.extension));
+            }
+        }
+    }
+
+    Optional<Path> find(String sessionId) {
+        for (Codec codec : Codec.values()) {
+            Path file = dir.resolve(sessionId + "." + codec.extension);
+            if (Files.exists(file)) {
+                return Optional.of(file);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Records of an archive
+     *
+     * @param access whether to mark the archive as accessed
+     */
+    List<byte[]> read(Path file, boolean access) throws IOException {
+        Codec codec = codecOf(file).orElseThrow(() -> new IOException("Not a fix history archive: " + file));
+        byte[] data;
+        try (InputStream in = codec.decompress(Files.newInputStream(file))) {
+            data = in.readAllBytes();
+        }
+        if (access) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        return HistoryJournal.parse(data, file);
+    }
+
+    /**
+     * All archive files
+     */
+    List<Path> list() throws IOException {
+        List<Path> archives = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return archives;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> codecOf(file).isPresent()).forEach(archives::add);
+        }
+        return archives;
+    }
+
+    static String sessionIdOf(Path archive) {
+        String name = archive.getFileName().toString();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+
+    private static Optional<Codec> codecOf(Path file) {
+        String name = file.getFileName().toString();
+        for (Codec codec : Codec.values()) {
+            if (name.endsWith("." + codec.extension)) {
+                return Optional.of(codec);
+            }
+        }
+        return Optional.empty();
+    }
+}
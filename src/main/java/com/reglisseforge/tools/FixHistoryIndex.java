@@ -0,0 +1,194 @@
+package com.reglisseforge.tools;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lombok.Builder;
+
+/**
+ * In-memory index of every fix history session, so listing and filtering sessions never walks
+ * the fixhistory directory.
+ *
+ * It is filled by a scan of all sessions at startup and then kept current by FixHistoryManager,
+ * which applies each journal record to it as the record is queued.
+ */
+public class FixHistoryIndex {
+
+    /** Error code of each entry of a build summary, e.g. "1. [ETYC0372117] ..." */
+    private static final Pattern SUMMARY_ERROR_CODE = Pattern.compile("^\\s*\\d+\\. \\[([A-Z0-9_]+)]", Pattern.MULTILINE);
+
+    /**
+     * Indexed view of one session
+     *
+     * @param status     last status, as in session_info.json (STARTED, ATTEMPT_3, COMPLETED_SUCCESS, ...)
+     * @param phase      phase of the last checkpoint, null for sessions recorded without checkpoints
+     * @param attempts   correction attempts recorded
+     * @param errorCodes distinct error codes reported by the builds of the session, in order of first appearance
+     * @param archived   whether the session was packed into the archive
+     */
+    @Builder(toBuilder = true)
+    public record SessionEntry(String sessionId, String projectName, String projectDescription, String workspacePath,
+                               String status, FixHistoryManager.Phase phase, int attempts, List<String> errorCodes,
+                               boolean solved, LocalDateTime startTime, LocalDateTime lastUpdated, boolean archived) {
+
+        boolean hasErrorCode(String code) {
+            return errorCodes.stream().anyMatch(c -> c.equalsIgnoreCase(code));
+        }
+    }
+
+    /**
+     * Filters of a search, null when not filtered on
+     *
+     * @param project case-insensitive substring of the project name
+     * @param since   sessions last updated at or after
+     * @param until   sessions last updated before
+     */
+    public record Query(String status, FixHistoryManager.Phase phase, String project, String errorCode,
+                        LocalDateTime since, LocalDateTime until) {
+
+        boolean matches(SessionEntry entry) {
+            return (status == null || status.equalsIgnoreCase(entry.status()))
+                    && (phase == null || phase == entry.phase())
+                    && (project == null || (entry.projectName() != null
+                        && entry.projectName().toLowerCase(Locale.ROOT).contains(project.toLowerCase(Locale.ROOT))))
+                    && (errorCode == null || entry.hasErrorCode(errorCode))
+                    && (since == null || (entry.lastUpdated() != null && !entry.lastUpdated().isBefore(since)))
+                    && (until == null || (entry.lastUpdated() != null && entry.lastUpdated().isBefore(until)));
+        }
+    }
+
+    /**
+     * One page of a search, most recently updated sessions first
+     *
+     * @param total sessions matching the query
+     */
+    public record Page(List<SessionEntry> items, int page, int size, long total) {}
+
+    private static final Comparator<SessionEntry> MOST_RECENT_FIRST = Comparator
+            .comparing((SessionEntry entry) -> entry.lastUpdated() != null ? entry.lastUpdated() : entry.startTime(),
+                    Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(SessionEntry::sessionId);
+
+    private final Map<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+
+    public Optional<SessionEntry> get(String sessionId) {
+        return Optional.ofNullable(sessions.get(sessionId));
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * All indexed sessions, in no particular order
+     */
+    public Collection<SessionEntry> entries() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    /**
+     * Sessions matching the query, most recently updated first
+     */
+    public Page search(Query query, int page, int size) {
+        List<SessionEntry> matches = sessions.values().stream()
+                .filter(query::matches)
+                .sorted(MOST_RECENT_FIRST)
+                .toList();
+        int from = (int) Math.min((long) page * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+        return new Page(matches.subList(from, to), page, size, matches.size());
+    }
+
+    /**
+     * Add or replace a session read from its materialized views
+     */
+    void put(SessionEntry entry) {
+        sessions.put(entry.sessionId(), entry);
+    }
+
+    /**
+     * Mark a session as moved to the archive
+     */
+    void markArchived(String sessionId) {
+        sessions.computeIfPresent(sessionId, (id, entry) -> entry.toBuilder().archived(true).build());
+    }
+
+    void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Update a session with one of its journal records
+     */
+    void apply(String sessionId, FixHistoryManager.JournalEntry record) {
+        sessions.compute(sessionId, (id, current) -> {
+            SessionEntry.SessionEntryBuilder entry = current != null
+                    ? current.toBuilder()
+                    : SessionEntry.builder().sessionId(id).errorCodes(List.of());
+            entry.lastUpdated(record.timestamp());
+
+            switch (record.type()) {
+                case SESSION_STARTED -> {
+                    FixHistoryManager.SessionInfo info = record.session();
+                    entry.projectName(info.getProjectName())
+                            .projectDescription(info.getProjectDescription())
+                            .workspacePath(info.getWorkspacePath())
+                            .startTime(info.getStartTime())
+                            .status(info.getStatus());
+                }
+                case INITIAL_GENERATED -> entry.status("INITIAL_GENERATED");
+                case ATTEMPT -> entry.status("ATTEMPT_" + record.attempt())
+                        .attempts(Math.max(current != null ? current.attempts() : 0, record.attempt()))
+                        .errorCodes(withCodes(current, List.of(nullToEmpty(record.buildOutput()))));
+                case SOLVED -> entry.status("COMPLETED_SUCCESS")
+                        .solved(record.code() != null || record.codeRef() != null)
+                        .errorCodes(withCodes(current, record.errors()));
+                case FAILED -> entry.status("COMPLETED_FAILED")
+                        .errorCodes(withCodes(current, record.errors()));
+                case CHECKPOINT -> entry.phase(record.checkpoint().phase());
+            }
+            return entry.build();
+        });
+    }
+
+    /**
+     * Distinct error codes found in build summaries
+     */
+    static List<String> errorCodes(List<String> summaries) {
+        Set<String> codes = new LinkedHashSet<>();
+        if (summaries != null) {
+            for (String summary : summaries) {
+                Matcher matcher = SUMMARY_ERROR_CODE.matcher(summary);
+                while (matcher.find()) {
+                    codes.add(matcher.group(1));
+                }
+            }
+        }
+        return List.copyOf(codes);
+    }
+
+    private static List<String> withCodes(SessionEntry current, List<String> summaries) {
+        List<String> found = errorCodes(summaries);
+        if (current == null || current.errorCodes().isEmpty()) {
+            return found;
+        }
+        Set<String> codes = new LinkedHashSet<>(current.errorCodes());
+        codes.addAll(found);
+        return codes.size() == current.errorCodes().size() ? current.errorCodes() : List.copyOf(codes);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -1,30 +1,145 @@
 package com.reglisseforge.tools;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 /**
  * Manages the fix history tracking system for Leo code generation.
  * Records all versions, errors, and corrections until the final solution.
+ *
+ * Each session's history is an append-only journal (journal.log in its directory) of compact
+ * JSON records written behind the generation thread, see {@link HistoryJournal}. The readable
+ * views (session_info.json, initial/, attempts/attempt_NNN/, solution/) are only written when
+ * {@link #materialize} replays the journal.
+ *
+ * The journal also holds the session's checkpoints: the phase it reached, the last completed
+ * correction attempt and a snapshot of its sources, so a session interrupted by a restart can
+ * resume from the last one instead of starting over.
+ *
+ * Listing and summaries are answered by a {@link FixHistoryIndex} built by a parallel scan of
+ * all sessions at startup and updated with every record.
  */
+@Component
 public class FixHistoryManager {
     private static final Logger logger = LoggerFactory.getLogger(FixHistoryManager.class);
     
+    private static final String JOURNAL_FILE = "journal.log";
+    /** Code snapshots shared by all sessions, a hidden directory next to theirs */
+    private static final String SNAPSHOTS_DIR = ".snapshots";
+    /** One compressed file per completed session, see {@link #archiveCompletedSessions} */
+    private static final String ARCHIVE_DIR = ".archive";
+    
+    /**
+     * Progress of a session, in order
+     */
+    public enum Phase {
+        /** Project created, initial generation not finished */
+        STARTED,
+        /** Initial code generated, not built yet */
+        GENERATED,
+        /** Correction attempts in progress, the checkpoint holds the code after the last one */
+        CORRECTING,
+        SOLVED,
+        FAILED;
+        
+        public boolean isTerminal() {
+            return this == SOLVED || this == FAILED;
+        }
+    }
+    
+    /**
+     * Durable state of a session
+     *
+     * @param projectPath        project directory, null until it was created
+     * @param attempt            last completed correction attempt, 0 before the first
+     * @param errorsEncountered  error summaries of the attempts so far
+     * @param sources            project-relative path to content of the files under src/, in checkpoints
+     *                           written before snapshots were stored by reference
+     * @param sourceRefs         project-relative path to snapshot reference of the files under src/ at this checkpoint
+     */
+    public record Checkpoint(String sessionId, String projectName, String projectDescription, String workspacePath,
+                             String projectPath, Phase phase, int attempt, int maxAttempts,
+                             List<String> errorsEncountered, Map<String, String> sources, Map<String, String> sourceRefs,
+                             LocalDateTime updatedAt) {
+        
+        Checkpoint advance(Phase phase, int attempt, List<String> errorsEncountered, Map<String, String> sourceRefs) {
+            return new Checkpoint(sessionId, projectName, projectDescription, workspacePath, projectPath, phase,
+                    attempt, maxAttempts, List.copyOf(errorsEncountered), null, sourceRefs, LocalDateTime.now());
+        }
+        
+        Checkpoint withProjectPath(String projectPath) {
+            return new Checkpoint(sessionId, projectName, projectDescription, workspacePath, projectPath, phase,
+                    attempt, maxAttempts, errorsEncountered, sources, sourceRefs, LocalDateTime.now());
+        }
+    }
+    
+    /**
+     * One correction attempt of a session, as recorded
+     *
+     * @param errors      build errors the attempt was given, as a build summary
+     * @param codeBefore  main.leo before the attempt
+     * @param codeAfter   main.leo after the attempt
+     * @param errorsAfter build errors left after the attempt, empty when the session was solved by it,
+     *                    null when unknown
+     */
+    public record FixStep(int attempt, String errors, String codeBefore, String codeAfter, String errorsAfter) {}
+    
+    /**
+     * One journal record; the fields a type does not use are null and left out of the JSON
+     *
+     * @param code        main.leo at the time of the record, in records written before snapshots were stored by reference
+     * @param codeRef     snapshot reference of main.leo at the time of the record
+     * @param details     generation log or AI analysis
+     * @param buildOutput build error of an attempt, build log of the solution
+     */
+    record JournalEntry(Type type, LocalDateTime timestamp, Integer attempt, SessionInfo session, String code,
+                        String codeRef, String details, String buildOutput, List<String> fixes, List<String> errors, String lastError,
+                        Checkpoint checkpoint) {
+        
+        enum Type { SESSION_STARTED, INITIAL_GENERATED, ATTEMPT, SOLVED, FAILED, CHECKPOINT }
+    }
+    
     private final ObjectMapper objectMapper;
+    private final ObjectMapper journalMapper;
     private final Path baseFixHistoryDir;
+    private final HistoryJournal journal;
+    private final SnapshotStore snapshots;
+    private final FixHistoryArchive archive;
+    private final FixHistoryIndex index = new FixHistoryIndex();
+    
+    // Latest checkpoint of the sessions recorded by this process, so checkpointing never reads the journal back
+    private final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
     
     public FixHistoryManager() {
         this.objectMapper = new ObjectMapper();
@@ -32,6 +147,11 @@ public class FixHistoryManager {
         this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
         this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         
+        // Journal records are one compact line of JSON each
+        this.journalMapper = objectMapper.copy()
+                .disable(SerializationFeature.INDENT_OUTPUT)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        
         // Create fixhistory directory in project root
         this.baseFixHistoryDir = Paths.get(".").toAbsolutePath().normalize().resolve("fixhistory");
         try {
@@ -41,244 +161,799 @@ public class FixHistoryManager {
             logger.error("Failed to create fix history directory", e);
             throw new RuntimeException("Failed to initialize fix history", e);
         }
+        this.journal = new HistoryJournal();
+        this.snapshots = new SnapshotStore(baseFixHistoryDir.resolve(SNAPSHOTS_DIR), journal);
+        this.archive = new FixHistoryArchive(baseFixHistoryDir.resolve(ARCHIVE_DIR));
+        buildIndex();
     }
     
     /**
      * Initialize a new session history
      */
     public void initializeSession(String sessionId, String projectName, String projectDescription, String workspacePath) {
+        initializeSession(sessionId, projectName, projectDescription, workspacePath, 0);
+    }
+    
+    /**
+     * Initialize a new session history and its STARTED checkpoint
+     */
+    public void initializeSession(String sessionId, String projectName, String projectDescription, String workspacePath,
+                                  int maxAttempts) {
+        // Create session info
+        SessionInfo sessionInfo = SessionInfo.builder()
+                .sessionId(sessionId)
+                .projectName(projectName)
+                .projectDescription(projectDescription)
+                .workspacePath(workspacePath)
+                .startTime(LocalDateTime.now())
+                .status("STARTED")
+                .build();
+        
+        append(sessionId, new JournalEntry(JournalEntry.Type.SESSION_STARTED, LocalDateTime.now(), null, sessionInfo,
+                null, null, null, null, null, null, null, null), false);
+        saveCheckpoint(new Checkpoint(sessionId, projectName, projectDescription, workspacePath, null,
+                Phase.STARTED, 0, maxAttempts, List.of(), null, Map.of(), LocalDateTime.now()), false);
+        
+        logger.info("Initialized fix history session: {}", sessionId);
+    }
+    
+    /**
+     * Record the initial generated code
+     */
+    public void recordInitialGeneration(String sessionId, Path generatedCodeFile, String generationLog) {
+        append(sessionId, new JournalEntry(JournalEntry.Type.INITIAL_GENERATED, LocalDateTime.now(), null, null,
+                null, snapshot(generatedCodeFile), generationLog, null, null, null, null, null), false);
+        logger.info("Recorded initial generation for session: {}", sessionId);
+    }
+    
+    /**
+     * Record a correction attempt
+     */
+    public void recordAttempt(String sessionId, int attemptNumber, Path currentCodeFile,
+                              String buildError, String aiAnalysis, List<String> fixesApplied) {
+        append(sessionId, new JournalEntry(JournalEntry.Type.ATTEMPT, LocalDateTime.now(), attemptNumber, null,
+                null, snapshot(currentCodeFile), aiAnalysis, buildError, List.copyOf(fixesApplied), null, null, null), false);
+        logger.info("Recorded attempt {} for session: {}", attemptNumber, sessionId);
+    }
+    
+    /**
+     * Record the final solution
+     */
+    public void recordSolution(String sessionId, Path solutionCodeFile, String buildSuccessLog,
+                               int totalAttempts, List<String> allErrorsEncountered) {
+        append(sessionId, new JournalEntry(JournalEntry.Type.SOLVED, LocalDateTime.now(), totalAttempts, null,
+                null, snapshot(solutionCodeFile), null, buildSuccessLog, null, List.copyOf(allErrorsEncountered), null, null), false);
+        updateCheckpoint(sessionId, c -> c.advance(Phase.SOLVED, totalAttempts, allErrorsEncountered, Map.of()), true);
+        
+        logger.info("Recorded successful solution for session: {} after {} attempts", sessionId, totalAttempts);
+    }
+    
+    /**
+     * Record a failed session (max attempts reached)
+     */
+    public void recordFailure(String sessionId, int totalAttempts, List<String> allErrorsEncountered, String lastError) {
+        append(sessionId, new JournalEntry(JournalEntry.Type.FAILED, LocalDateTime.now(), totalAttempts, null,
+                null, null, null, null, null, List.copyOf(allErrorsEncountered), lastError, null), false);
+        updateCheckpoint(sessionId, c -> c.advance(Phase.FAILED, totalAttempts, allErrorsEncountered, Map.of()), true);
+        
+        logger.info("Recorded failed session: {} after {} attempts", sessionId, totalAttempts);
+    }
+    
+    /**
+     * Checkpoint the project created for a session
+     */
+    public void checkpointProjectCreated(String sessionId, Path projectDir) {
+        updateCheckpoint(sessionId, c -> c.withProjectPath(projectDir.toString()), false);
+    }
+    
+    /**
+     * Checkpoint the initial generation, with the generated sources
+     */
+    public void checkpointGenerated(String sessionId, Path projectDir) {
+        snapshotAndUpdate(sessionId, projectDir, (c, sources) -> c.advance(Phase.GENERATED, 0, List.of(), sources));
+    }
+    
+    /**
+     * Checkpoint a completed correction attempt, with the sources it left
+     */
+    public void checkpointAttempt(String sessionId, int attemptNumber, Path projectDir, List<String> allErrorsEncountered) {
+        snapshotAndUpdate(sessionId, projectDir,
+                (c, sources) -> c.advance(Phase.CORRECTING, attemptNumber, allErrorsEncountered, sources));
+    }
+    
+    /**
+     * Last checkpoint of a session, empty when it has none or it cannot be read
+     */
+    public Optional<Checkpoint> loadCheckpoint(String sessionId) {
+        Checkpoint checkpoint = checkpoints.get(sessionId);
+        if (checkpoint != null) {
+            return Optional.of(checkpoint);
+        }
+        return replay(sessionId).map(history -> history.checkpoint);
+    }
+    
+    /**
+     * Checkpoints of unfinished sessions updated within maxAge, oldest first
+     */
+    public List<Checkpoint> findResumableCheckpoints(Duration maxAge) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        List<Checkpoint> resumable = new ArrayList<>();
+        try (Stream<Path> sessions = Files.list(baseFixHistoryDir)) {
+            for (Path sessionDir : (Iterable<Path>) sessions.filter(FixHistoryManager::isSessionDir)::iterator) {
+                loadCheckpoint(sessionDir.getFileName().toString())
+                        .filter(c -> !c.phase().isTerminal() && c.updatedAt().isAfter(cutoff))
+                        .ifPresent(resumable::add);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to list fix history sessions", e);
+        }
+        resumable.sort((a, b) -> a.updatedAt().compareTo(b.updatedAt()));
+        return resumable;
+    }
+    
+    /**
+     * Write the sources of a checkpoint back over its project, undoing edits made after it
+     */
+    public void restoreSources(Checkpoint checkpoint) throws IOException {
+        Map<String, String> sources = checkpoint.sources() != null ? checkpoint.sources() : new HashMap<>();
+        if (checkpoint.sourceRefs() != null) {
+            for (Map.Entry<String, String> ref : checkpoint.sourceRefs().entrySet()) {
+                sources.put(ref.getKey(), snapshots.get(ref.getValue()));
+            }
+        }
+        CandidateWorkspace.promote(sources, Paths.get(checkpoint.projectPath()));
+    }
+    
+    /**
+     * Write the readable views of a session's journal: session_info.json, the initial code and
+     * generation log, one directory per attempt and the solution or failure summary
+     *
+     * @return false when the session has no journal
+     */
+    public boolean materialize(String sessionId) {
+        Optional<SessionHistory> replayed = replay(sessionId);
+        if (replayed.isEmpty()) {
+            return false;
+        }
+        SessionHistory history = replayed.get();
+        Path sessionDir = getSessionDir(sessionId);
+        
         try {
-            Path sessionDir = getSessionDir(sessionId);
-            Files.createDirectories(sessionDir);
             Files.createDirectories(sessionDir.resolve("initial"));
             Files.createDirectories(sessionDir.resolve("attempts"));
             Files.createDirectories(sessionDir.resolve("solution"));
             
-            // Create session info
-            SessionInfo sessionInfo = SessionInfo.builder()
-                    .sessionId(sessionId)
-                    .projectName(projectName)
-                    .projectDescription(projectDescription)
-                    .workspacePath(workspacePath)
-                    .startTime(LocalDateTime.now())
-                    .status("STARTED")
-                    .build();
+            if (history.info != null) {
+                objectMapper.writeValue(sessionDir.resolve("session_info.json").toFile(), history.info);
+            }
+            
+            if (history.initial != null) {
+                Path initialDir = sessionDir.resolve("initial");
+                writeCode(initialDir, codeOf(history.initial));
+                GenerationLog genLog = GenerationLog.builder()
+                        .timestamp(history.initial.timestamp())
+                        .codeFile("main.leo")
+                        .generationDetails(history.initial.details())
+                        .status("GENERATED")
+                        .build();
+                objectMapper.writeValue(initialDir.resolve("generation_log.json").toFile(), genLog);
+            }
+            
+            for (JournalEntry attempt : history.attempts.values()) {
+                Path attemptDir = sessionDir.resolve("attempts").resolve(String.format("attempt_%03d", attempt.attempt()));
+                Files.createDirectories(attemptDir);
+                writeCode(attemptDir, codeOf(attempt));
+                Files.writeString(attemptDir.resolve("build_error.txt"), nullToEmpty(attempt.buildOutput()));
+                
+                AIAnalysis analysis = AIAnalysis.builder()
+                        .timestamp(attempt.timestamp())
+                        .attemptNumber(attempt.attempt())
+                        .errorAnalysis(attempt.details())
+                        .build();
+                objectMapper.writeValue(attemptDir.resolve("ai_analysis.json").toFile(), analysis);
+                
+                FixesApplied fixes = FixesApplied.builder()
+                        .timestamp(attempt.timestamp())
+                        .attemptNumber(attempt.attempt())
+                        .fixes(attempt.fixes())
+                        .build();
+                objectMapper.writeValue(attemptDir.resolve("fixes_applied.json").toFile(), fixes);
+            }
             
-            saveSessionInfo(sessionId, sessionInfo);
+            JournalEntry outcome = history.outcome;
+            if (outcome != null) {
+                Path solutionDir = sessionDir.resolve("solution");
+                boolean solved = outcome.type() == JournalEntry.Type.SOLVED;
+                if (solved) {
+                    writeCode(solutionDir, codeOf(outcome));
+                    Files.writeString(solutionDir.resolve("build_success.txt"), nullToEmpty(outcome.buildOutput()));
+                }
+                SolutionSummary summary = SolutionSummary.builder()
+                        .timestamp(outcome.timestamp())
+                        .sessionId(sessionId)
+                        .totalAttempts(outcome.attempt())
+                        .allErrorsEncountered(outcome.errors())
+                        .finalStatus(solved ? "SUCCESS" : "FAILED")
+                        .lastError(outcome.lastError())
+                        .build();
+                objectMapper.writeValue(solutionDir.resolve("summary.json").toFile(), summary);
+            }
             
-            logger.info("Initialized fix history session: {}", sessionId);
+            logger.info("Materialized fix history of session: {}", sessionId);
+            return true;
         } catch (IOException e) {
-            logger.error("Failed to initialize session history for: {}", sessionId, e);
+            logger.error("Failed to materialize fix history for session: {}", sessionId, e);
+            return false;
         }
     }
     
     /**
-     * Record the initial generated code
+     * Pack the completed sessions last updated before minAge into one archive file each and
+     * remove their directories. The archive inlines the code the records refer to and keeps only
+     * the last checkpoint, which is all a completed session needs.
+     *
+     * Sessions recorded as JSON views, before the journal existed, are left to {@link #evictArchives}.
+     *
+     * @return number of sessions archived
      */
-    public void recordInitialGeneration(String sessionId, Path generatedCodeFile, String generationLog) {
-        try {
+    public int archiveCompletedSessions(FixHistoryArchive.Codec codec, Duration minAge) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        int archived = 0;
+        for (FixHistoryIndex.SessionEntry entry : List.copyOf(index.entries())) {
+            if (entry.archived() || !isCompleted(entry) || entry.lastUpdated() == null || !entry.lastUpdated().isBefore(cutoff)) {
+                continue;
+            }
+            String sessionId = entry.sessionId();
             Path sessionDir = getSessionDir(sessionId);
-            Path initialDir = sessionDir.resolve("initial");
-            
-            // Copy the generated code
-            if (Files.exists(generatedCodeFile)) {
-                Files.copy(generatedCodeFile, initialDir.resolve("main.leo"), StandardCopyOption.REPLACE_EXISTING);
+            try {
+                if (!Files.exists(sessionDir.resolve(JOURNAL_FILE))) {
+                    continue;
+                }
+                archive.write(sessionId, packRecords(readRecords(sessionId).orElseThrow()), codec);
+                deleteRecursively(sessionDir);
+                checkpoints.remove(sessionId);
+                index.markArchived(sessionId);
+                archived++;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to archive fix history of session: {}", sessionId, e);
             }
-            
-            // Save generation log
-            GenerationLog genLog = GenerationLog.builder()
-                    .timestamp(LocalDateTime.now())
-                    .codeFile("main.leo")
-                    .generationDetails(generationLog)
-                    .status("GENERATED")
-                    .build();
-            
-            objectMapper.writeValue(initialDir.resolve("generation_log.json").toFile(), genLog);
-            
-            // Update session status
-            updateSessionStatus(sessionId, "INITIAL_GENERATED");
-            
-            logger.info("Recorded initial generation for session: {}", sessionId);
-        } catch (IOException e) {
-            logger.error("Failed to record initial generation for session: {}", sessionId, e);
         }
+        if (archived > 0) {
+            logger.info("Archived {} completed fix history session(s) with {}", archived, codec);
+        }
+        return archived;
     }
     
     /**
-     * Record a correction attempt
+     * Delete the archives and legacy session directories of completed sessions not updated
+     * within ttl, then, while all fix history takes more than maxTotalBytes, the least recently
+     * read ones. Unfinished sessions are never evicted.
+     *
+     * @return number of sessions evicted
      */
-    public void recordAttempt(String sessionId, int attemptNumber, Path currentCodeFile, 
-                              String buildError, String aiAnalysis, List<String> fixesApplied) {
+    public int evictArchives(Duration ttl, long maxTotalBytes) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        List<StoredSession> stored = new ArrayList<>();
+        for (FixHistoryIndex.SessionEntry entry : List.copyOf(index.entries())) {
+            if (isCompleted(entry)) {
+                storedSession(entry).ifPresent(stored::add);
+            }
+        }
+        stored.sort((a, b) -> a.lastAccess().compareTo(b.lastAccess()));
+        
+        int evicted = 0;
+        long total = getDiskUsageBytes();
+        for (StoredSession session : stored) {
+            LocalDateTime lastUpdated = session.entry().lastUpdated();
+            boolean expired = lastUpdated != null && lastUpdated.isBefore(cutoff);
+            if (!expired && total <= maxTotalBytes) {
+                continue;
+            }
+            try {
+                deleteRecursively(session.path());
+                // Views materialized from an archive go with it
+                deleteRecursively(getSessionDir(session.entry().sessionId()));
+                index.remove(session.entry().sessionId());
+                total -= session.bytes();
+                evicted++;
+            } catch (IOException e) {
+                logger.warn("Failed to evict fix history of session: {}", session.entry().sessionId(), e);
+            }
+        }
+        if (evicted > 0) {
+            logger.info("Evicted {} fix history session(s), {} bytes left", evicted, total);
+        }
+        return evicted;
+    }
+    
+    /**
+     * Remove the code snapshots no session journal refers to any more, typically after archiving
+     *
+     * @return number of snapshots removed
+     */
+    public int sweepSnapshots() {
+        Set<String> referenced = snapshots.beginSweep();
         try {
-            Path sessionDir = getSessionDir(sessionId);
-            Path attemptDir = sessionDir.resolve("attempts").resolve(String.format("attempt_%03d", attemptNumber));
-            Files.createDirectories(attemptDir);
-            
-            // Copy current code version
-            if (Files.exists(currentCodeFile)) {
-                Files.copy(currentCodeFile, attemptDir.resolve("main.leo"), StandardCopyOption.REPLACE_EXISTING);
+            journal.flush();
+            try (Stream<Path> sessions = Files.list(baseFixHistoryDir)) {
+                for (Path sessionDir : (Iterable<Path>) sessions.filter(FixHistoryManager::isSessionDir)::iterator) {
+                    Path journalFile = sessionDir.resolve(JOURNAL_FILE);
+                    if (!Files.exists(journalFile)) {
+                        continue;
+                    }
+                    for (JournalEntry entry : parseRecords(HistoryJournal.read(journalFile))) {
+                        if (entry.codeRef() != null) {
+                            referenced.add(entry.codeRef());
+                        }
+                        if (entry.checkpoint() != null && entry.checkpoint().sourceRefs() != null) {
+                            referenced.addAll(entry.checkpoint().sourceRefs().values());
+                        }
+                    }
+                }
+                return snapshots.sweep(referenced);
             }
-            
-            // Save build error
-            Files.write(attemptDir.resolve("build_error.txt"), buildError.getBytes());
-            
-            // Save AI analysis
-            AIAnalysis analysis = AIAnalysis.builder()
-                    .timestamp(LocalDateTime.now())
-                    .attemptNumber(attemptNumber)
-                    .errorAnalysis(aiAnalysis)
-                    .build();
-            objectMapper.writeValue(attemptDir.resolve("ai_analysis.json").toFile(), analysis);
-            
-            // Save fixes applied
-            FixesApplied fixes = FixesApplied.builder()
-                    .timestamp(LocalDateTime.now())
-                    .attemptNumber(attemptNumber)
-                    .fixes(fixesApplied)
-                    .build();
-            objectMapper.writeValue(attemptDir.resolve("fixes_applied.json").toFile(), fixes);
-            
-            // Update session status
-            updateSessionStatus(sessionId, "ATTEMPT_" + attemptNumber);
-            
-            logger.info("Recorded attempt {} for session: {}", attemptNumber, sessionId);
         } catch (IOException e) {
-            logger.error("Failed to record attempt {} for session: {}", attemptNumber, sessionId, e);
+            logger.error("Failed to sweep fix history snapshots", e);
+            return 0;
         }
     }
     
     /**
-     * Record the final solution
+     * Bytes taken by all fix history: journals, views, snapshots and archives
      */
-    public void recordSolution(String sessionId, Path solutionCodeFile, String buildSuccessLog, 
-                               int totalAttempts, List<String> allErrorsEncountered) {
+    public long getDiskUsageBytes() {
+        try (Stream<Path> files = Files.walk(baseFixHistoryDir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    // Removed meanwhile
+                    return 0;
+                }
+            }).sum();
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Failed to measure fix history disk usage", e);
+            return 0;
+        }
+    }
+    
+    /**
+     * Correction attempts of a session in order, empty when it has no journal or archive
+     */
+    public List<FixStep> getFixSteps(String sessionId) {
+        return getFixSteps(sessionId, true);
+    }
+
+    /**
+     * Correction attempts of a session in order, empty when it has no journal or archive
+     *
+     * @param access whether reading an archive counts as an access, which keeps it from eviction;
+     *               false for background readers such as the fix knowledge miner
+     */
+    public List<FixStep> getFixSteps(String sessionId, boolean access) {
+        Optional<SessionHistory> replayed = replay(sessionId, access);
+        if (replayed.isEmpty() || replayed.get().initial == null) {
+            return List.of();
+        }
+        SessionHistory history = replayed.get();
+        List<FixStep> steps = new ArrayList<>();
         try {
-            Path sessionDir = getSessionDir(sessionId);
-            Path solutionDir = sessionDir.resolve("solution");
-            
-            // Copy final working code
-            if (Files.exists(solutionCodeFile)) {
-                Files.copy(solutionCodeFile, solutionDir.resolve("main.leo"), StandardCopyOption.REPLACE_EXISTING);
+            String before = codeOf(history.initial);
+            List<JournalEntry> attempts = new ArrayList<>(history.attempts.values());
+            for (int i = 0; i < attempts.size(); i++) {
+                JournalEntry attempt = attempts.get(i);
+                String after = codeOf(attempt);
+                String errorsAfter = i + 1 < attempts.size() ? attempts.get(i + 1).buildOutput()
+                        : history.outcome != null && history.outcome.type() == JournalEntry.Type.SOLVED ? "" : null;
+                if (before != null && after != null) {
+                    steps.add(new FixStep(attempt.attempt(), attempt.buildOutput(), before, after, errorsAfter));
+                }
+                before = after;
             }
-            
-            // Save build success log
-            Files.write(solutionDir.resolve("build_success.txt"), buildSuccessLog.getBytes());
-            
-            // Create solution summary
-            SolutionSummary summary = SolutionSummary.builder()
-                    .timestamp(LocalDateTime.now())
-                    .sessionId(sessionId)
-                    .totalAttempts(totalAttempts)
-                    .allErrorsEncountered(allErrorsEncountered)
-                    .finalStatus("SUCCESS")
-                    .build();
-            objectMapper.writeValue(solutionDir.resolve("summary.json").toFile(), summary);
-            
-            // Update session status
-            updateSessionStatus(sessionId, "COMPLETED_SUCCESS");
-            
-            logger.info("Recorded successful solution for session: {} after {} attempts", sessionId, totalAttempts);
         } catch (IOException e) {
-            logger.error("Failed to record solution for session: {}", sessionId, e);
+            logger.warn("Failed to read the code snapshots of session: {}", sessionId, e);
         }
+        return steps;
     }
     
+    public long getJournalRecords() { return journal.getRecords(); }
+    
+    public long getJournalBytes() { return journal.getBytes(); }
+    
+    public long getJournalSyncs() { return journal.getSyncs(); }
+    
+    public double getJournalRecordsPerSync() { return journal.getRecordsPerSync(); }
+    
+    public long getSnapshotsStored() { return snapshots.getStored(); }
+    
+    public long getSnapshotBytesStored() { return snapshots.getStoredBytes(); }
+    
+    public long getSnapshotsDeduplicated() { return snapshots.getDeduplicated(); }
+    
+    public long getSnapshotBytesDeduplicated() { return snapshots.getDeduplicatedBytes(); }
+    
     /**
-     * Record a failed session (max attempts reached)
+     * Write out the queued journal records
      */
-    public void recordFailure(String sessionId, int totalAttempts, List<String> allErrorsEncountered, String lastError) {
+    @PreDestroy
+    public void close() {
+        journal.close();
+    }
+    
+    private void snapshotAndUpdate(String sessionId, Path projectDir,
+                                   BiFunction<Checkpoint, Map<String, String>, Checkpoint> update) {
         try {
-            Path sessionDir = getSessionDir(sessionId);
-            Path solutionDir = sessionDir.resolve("solution");
-            
-            // Create failure summary
-            SolutionSummary summary = SolutionSummary.builder()
-                    .timestamp(LocalDateTime.now())
-                    .sessionId(sessionId)
-                    .totalAttempts(totalAttempts)
-                    .allErrorsEncountered(allErrorsEncountered)
-                    .finalStatus("FAILED")
-                    .lastError(lastError)
-                    .build();
-            objectMapper.writeValue(solutionDir.resolve("summary.json").toFile(), summary);
-            
-            // Update session status
-            updateSessionStatus(sessionId, "COMPLETED_FAILED");
-            
-            logger.info("Recorded failed session: {} after {} attempts", sessionId, totalAttempts);
+            Map<String, String> sourceRefs = new LinkedHashMap<>();
+            CandidateWorkspace.readSources(projectDir).forEach((file, content) -> sourceRefs.put(file, snapshots.put(content)));
+            updateCheckpoint(sessionId, c -> update.apply(c, sourceRefs), false);
         } catch (IOException e) {
-            logger.error("Failed to record failure for session: {}", sessionId, e);
+            logger.error("Failed to snapshot sources of session: {}", sessionId, e);
+        }
+    }
+    
+    private void updateCheckpoint(String sessionId, UnaryOperator<Checkpoint> update, boolean last) {
+        Optional<Checkpoint> current = loadCheckpoint(sessionId);
+        if (current.isEmpty()) {
+            // Sessions started before checkpoints existed
+            return;
         }
+        saveCheckpoint(update.apply(current.get()), last);
+    }
+    
+    private void saveCheckpoint(Checkpoint checkpoint, boolean last) {
+        checkpoints.put(checkpoint.sessionId(), checkpoint);
+        append(checkpoint.sessionId(), new JournalEntry(JournalEntry.Type.CHECKPOINT, LocalDateTime.now(), null, null,
+                null, null, null, null, null, null, null, checkpoint), last);
     }
     
     /**
-     * Get the session directory
+     * Queue a record for the session's journal
+     *
+     * @param last whether this is the session's final record
      */
-    private Path getSessionDir(String sessionId) {
-        return baseFixHistoryDir.resolve(sessionId);
+    private void append(String sessionId, JournalEntry entry, boolean last) {
+        index.apply(sessionId, entry);
+        try {
+            journal.append(getSessionDir(sessionId).resolve(JOURNAL_FILE), journalMapper.writeValueAsBytes(entry), last);
+        } catch (IOException e) {
+            logger.error("Failed to serialize {} record for session: {}", entry.type(), sessionId, e);
+        }
     }
     
     /**
-     * Save session info
+     * Archive or legacy session directory of a completed session, as seen by eviction
+     *
+     * @param lastAccess last read of an archive, last write of a legacy session
      */
-    private void saveSessionInfo(String sessionId, SessionInfo sessionInfo) throws IOException {
-        Path sessionInfoFile = getSessionDir(sessionId).resolve("session_info.json");
-        objectMapper.writeValue(sessionInfoFile.toFile(), sessionInfo);
+    private record StoredSession(FixHistoryIndex.SessionEntry entry, Path path, long bytes, FileTime lastAccess) {}
+    
+    private Optional<StoredSession> storedSession(FixHistoryIndex.SessionEntry entry) {
+        try {
+            Optional<Path> archived = archive.find(entry.sessionId());
+            if (archived.isPresent()) {
+                Path file = archived.get();
+                return Optional.of(new StoredSession(entry, file, Files.size(file), Files.getLastModifiedTime(file)));
+            }
+            Path sessionDir = getSessionDir(entry.sessionId());
+            Path sessionInfo = sessionDir.resolve("session_info.json");
+            if (Files.exists(sessionDir.resolve(JOURNAL_FILE)) || !Files.exists(sessionInfo)) {
+                // Journaled sessions are archived first
+                return Optional.empty();
+            }
+            long bytes;
+            try (Stream<Path> files = Files.walk(sessionDir)) {
+                bytes = files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+            }
+            return Optional.of(new StoredSession(entry, sessionDir, bytes, Files.getLastModifiedTime(sessionInfo)));
+        } catch (IOException e) {
+            logger.warn("Failed to stat fix history of session: {}", entry.sessionId(), e);
+            return Optional.empty();
+        }
+    }
+    
+    private static boolean isCompleted(FixHistoryIndex.SessionEntry entry) {
+        return entry.status() != null && entry.status().startsWith("COMPLETED_");
     }
     
     /**
-     * Update session status
+     * Records of a session as archived: code inlined, only the last checkpoint
      */
-    private void updateSessionStatus(String sessionId, String status) {
+    private List<byte[]> packRecords(List<JournalEntry> entries) throws IOException {
+        int lastCheckpoint = -1;
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).type() == JournalEntry.Type.CHECKPOINT) {
+                lastCheckpoint = i;
+            }
+        }
+        
+        List<byte[]> records = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            JournalEntry e = entries.get(i);
+            if (e.type() == JournalEntry.Type.CHECKPOINT && i != lastCheckpoint) {
+                continue;
+            }
+            Checkpoint c = e.checkpoint();
+            if (c != null && c.sourceRefs() != null) {
+                Map<String, String> sources = c.sources() != null ? new LinkedHashMap<>(c.sources()) : new LinkedHashMap<>();
+                for (Map.Entry<String, String> ref : c.sourceRefs().entrySet()) {
+                    sources.put(ref.getKey(), snapshots.get(ref.getValue()));
+                }
+                c = new Checkpoint(c.sessionId(), c.projectName(), c.projectDescription(), c.workspacePath(),
+                        c.projectPath(), c.phase(), c.attempt(), c.maxAttempts(), c.errorsEncountered(), sources, null,
+                        c.updatedAt());
+            }
+            JournalEntry packed = new JournalEntry(e.type(), e.timestamp(), e.attempt(), e.session(), codeOf(e), null,
+                    e.details(), e.buildOutput(), e.fixes(), e.errors(), e.lastError(), c);
+            records.add(journalMapper.writeValueAsBytes(packed));
+        }
+        return records;
+    }
+    
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+    
+    /**
+     * Session state rebuilt from its journal
+     */
+    private static final class SessionHistory {
+        private SessionInfo info;
+        private JournalEntry initial;
+        private final Map<Integer, JournalEntry> attempts = new TreeMap<>();
+        private JournalEntry outcome;
+        private Checkpoint checkpoint;
+        
+        void apply(JournalEntry entry) {
+            switch (entry.type()) {
+                case SESSION_STARTED -> info = entry.session();
+                case INITIAL_GENERATED -> {
+                    initial = entry;
+                    updateStatus("INITIAL_GENERATED", entry);
+                }
+                case ATTEMPT -> {
+                    attempts.put(entry.attempt(), entry);
+                    updateStatus("ATTEMPT_" + entry.attempt(), entry);
+                }
+                case SOLVED, FAILED -> {
+                    outcome = entry;
+                    updateStatus(entry.type() == JournalEntry.Type.SOLVED ? "COMPLETED_SUCCESS" : "COMPLETED_FAILED", entry);
+                }
+                case CHECKPOINT -> checkpoint = entry.checkpoint();
+            }
+        }
+        
+        private void updateStatus(String status, JournalEntry entry) {
+            if (info != null) {
+                info.setStatus(status);
+                info.setLastUpdated(entry.timestamp());
+            }
+        }
+    }
+    
+    /**
+     * Replay a session's journal, after writing out what is still queued; empty without a journal
+     */
+    private Optional<SessionHistory> replay(String sessionId) {
+        return replay(sessionId, true);
+    }
+
+    private Optional<SessionHistory> replay(String sessionId, boolean access) {
         try {
-            Path sessionInfoFile = getSessionDir(sessionId).resolve("session_info.json");
-            if (Files.exists(sessionInfoFile)) {
-                SessionInfo sessionInfo = objectMapper.readValue(sessionInfoFile.toFile(), SessionInfo.class);
-                sessionInfo.setStatus(status);
-                sessionInfo.setLastUpdated(LocalDateTime.now());
-                objectMapper.writeValue(sessionInfoFile.toFile(), sessionInfo);
+            Optional<List<JournalEntry>> records = readRecords(sessionId, access);
+            if (records.isEmpty()) {
+                return Optional.empty();
             }
+            SessionHistory history = new SessionHistory();
+            records.get().forEach(history::apply);
+            return Optional.of(history);
         } catch (IOException e) {
-            logger.error("Failed to update session status for: {}", sessionId, e);
+            logger.error("Failed to replay fix history journal of session: {}", sessionId, e);
+            return Optional.empty();
         }
     }
     
+    /**
+     * Records of a session from its journal or else its archive; empty when it has neither
+     */
+    private Optional<List<JournalEntry>> readRecords(String sessionId) throws IOException {
+        return readRecords(sessionId, true);
+    }
+
+    private Optional<List<JournalEntry>> readRecords(String sessionId, boolean access) throws IOException {
+        Path journalFile = getSessionDir(sessionId).resolve(JOURNAL_FILE);
+        journal.flush();
+        List<byte[]> records = null;
+        try {
+            records = HistoryJournal.parse(Files.readAllBytes(journalFile), journalFile);
+        } catch (NoSuchFileException e) {
+            // Never journaled, or archived meanwhile: the archive is in place before the directory goes
+        }
+        if (records == null) {
+            Optional<Path> archived = archive.find(sessionId);
+            if (archived.isEmpty()) {
+                return Optional.empty();
+            }
+            records = archive.read(archived.get(), access);
+        }
+        return Optional.of(parseRecords(records));
+    }
+    
+    private List<JournalEntry> parseRecords(List<byte[]> records) throws IOException {
+        List<JournalEntry> entries = new ArrayList<>(records.size());
+        for (byte[] record : records) {
+            entries.add(journalMapper.readValue(record, JournalEntry.class));
+        }
+        return entries;
+    }
+    
+    /**
+     * Store a snapshot of the file, null when it does not exist
+     *
+     * @return its snapshot reference
+     */
+    private String snapshot(Path codeFile) {
+        try {
+            return Files.exists(codeFile) ? snapshots.put(Files.readString(codeFile)) : null;
+        } catch (IOException e) {
+            logger.warn("Failed to read {}", codeFile, e);
+            return null;
+        }
+    }
+    
+    private String codeOf(JournalEntry entry) throws IOException {
+        return entry.codeRef() != null ? snapshots.get(entry.codeRef()) : entry.code();
+    }
+    
+    private static void writeCode(Path dir, String code) throws IOException {
+        if (code != null) {
+            Files.writeString(dir.resolve("main.leo"), code);
+        }
+    }
+    
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+    
+    private static boolean isSessionDir(Path dir) {
+        return Files.isDirectory(dir) && !dir.getFileName().toString().startsWith(".");
+    }
+    
+    /**
+     * Get the session directory
+     */
+    private Path getSessionDir(String sessionId) {
+        return baseFixHistoryDir.resolve(sessionId);
+    }
+    
     /**
      * Get session history summary
      */
     public Map<String, Object> getSessionSummary(String sessionId) {
+        Optional<FixHistoryIndex.SessionEntry> indexed = index.get(sessionId);
+        if (indexed.isEmpty()) {
+            return Map.of("error", "Session not found");
+        }
+        FixHistoryIndex.SessionEntry entry = indexed.get();
+        
+        SessionInfo sessionInfo = SessionInfo.builder()
+                .sessionId(sessionId)
+                .projectName(entry.projectName())
+                .projectDescription(entry.projectDescription())
+                .workspacePath(entry.workspacePath())
+                .startTime(entry.startTime())
+                .status(entry.status())
+                .build();
+        sessionInfo.setLastUpdated(entry.lastUpdated());
+        
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("sessionInfo", sessionInfo);
+        summary.put("totalAttempts", (long) entry.attempts());
+        summary.put("hasSolution", entry.solved());
+        summary.put("archived", entry.archived());
+        return summary;
+    }
+    
+    /**
+     * Index of all sessions, for listing and filtering
+     */
+    public FixHistoryIndex getIndex() {
+        return index;
+    }
+    
+    /**
+     * Index every session directory, reading them in parallel
+     */
+    private void buildIndex() {
+        long start = System.nanoTime();
+        try (Stream<Path> sessions = Files.list(baseFixHistoryDir);
+             ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path archived : archive.list()) {
+                readers.execute(() -> indexArchive(archived));
+            }
+            for (Path sessionDir : (Iterable<Path>) sessions.filter(FixHistoryManager::isSessionDir)::iterator) {
+                readers.execute(() -> indexSession(sessionDir));
+            }
+        } catch (IOException e) {
+            logger.error("Failed to list fix history sessions", e);
+        }
+        logger.info("Indexed {} fix history sessions in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    private void indexArchive(Path archived) {
+        String sessionId = FixHistoryArchive.sessionIdOf(archived);
         try {
-            Path sessionDir = getSessionDir(sessionId);
-            if (!Files.exists(sessionDir)) {
-                return Map.of("error", "Session not found");
+            for (JournalEntry entry : parseRecords(archive.read(archived, false))) {
+                index.apply(sessionId, entry);
             }
-            
-            Map<String, Object> summary = new HashMap<>();
-            
-            // Read session info
-            Path sessionInfoFile = sessionDir.resolve("session_info.json");
-            if (Files.exists(sessionInfoFile)) {
-                SessionInfo sessionInfo = objectMapper.readValue(sessionInfoFile.toFile(), SessionInfo.class);
-                summary.put("sessionInfo", sessionInfo);
+            index.markArchived(sessionId);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to index fix history archive: {}", archived, e);
+        }
+    }
+    
+    private void indexSession(Path sessionDir) {
+        String sessionId = sessionDir.getFileName().toString();
+        if (archive.find(sessionId).isPresent()) {
+            // Views materialized from an archive
+            return;
+        }
+        try {
+            Path journalFile = sessionDir.resolve(JOURNAL_FILE);
+            if (Files.exists(journalFile)) {
+                for (byte[] record : HistoryJournal.read(journalFile)) {
+                    index.apply(sessionId, journalMapper.readValue(record, JournalEntry.class));
+                }
+            } else if (Files.exists(sessionDir.resolve("session_info.json"))) {
+                index.put(readMaterializedSession(sessionId, sessionDir));
             }
-            
-            // Count attempts
-            Path attemptsDir = sessionDir.resolve("attempts");
-            if (Files.exists(attemptsDir)) {
-                long attemptCount = Files.list(attemptsDir).count();
-                summary.put("totalAttempts", attemptCount);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to index fix history session: {}", sessionId, e);
+        }
+    }
+    
+    /**
+     * Index entry of a session recorded as JSON views, before the journal existed
+     */
+    private FixHistoryIndex.SessionEntry readMaterializedSession(String sessionId, Path sessionDir) throws IOException {
+        SessionInfo sessionInfo = objectMapper.readValue(sessionDir.resolve("session_info.json").toFile(), SessionInfo.class);
+        
+        // Count attempts
+        long attempts = 0;
+        Path attemptsDir = sessionDir.resolve("attempts");
+        if (Files.exists(attemptsDir)) {
+            try (Stream<Path> attemptDirs = Files.list(attemptsDir)) {
+                attempts = attemptDirs.count();
             }
-            
-            // Check if solution exists
-            Path solutionDir = sessionDir.resolve("solution");
-            boolean hasSolution = Files.exists(solutionDir.resolve("main.leo"));
-            summary.put("hasSolution", hasSolution);
-            
-            return summary;
-        } catch (IOException e) {
-            logger.error("Failed to get session summary for: {}", sessionId, e);
-            return Map.of("error", "Failed to read session data");
         }
+        
+        List<String> errors = List.of();
+        Path summaryFile = sessionDir.resolve("solution").resolve("summary.json");
+        if (Files.exists(summaryFile)) {
+            SolutionSummary summary = objectMapper.readValue(summaryFile.toFile(), SolutionSummary.class);
+            errors = summary.getAllErrorsEncountered() != null ? summary.getAllErrorsEncountered() : List.of();
+        }
+        
+        String status = sessionInfo.getStatus();
+        return FixHistoryIndex.SessionEntry.builder()
+                .sessionId(sessionId)
+                .projectName(sessionInfo.getProjectName())
+                .projectDescription(sessionInfo.getProjectDescription())
+                .workspacePath(sessionInfo.getWorkspacePath())
+                .status(status)
+                .phase("COMPLETED_SUCCESS".equals(status) ? Phase.SOLVED : "COMPLETED_FAILED".equals(status) ? Phase.FAILED : null)
+                .attempts((int) attempts)
+                .errorCodes(FixHistoryIndex.errorCodes(errors))
+                .solved(Files.exists(sessionDir.resolve("solution").resolve("main.leo")))
+                .startTime(sessionInfo.getStartTime())
+                .lastUpdated(sessionInfo.getLastUpdated() != null ? sessionInfo.getLastUpdated() : sessionInfo.getStartTime())
+                .build();
     }
     
     // Data classes for JSON serialization
@@ -0,0 +1,534 @@
+package com.reglisseforge.tools;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.reglisseforge.leo.LeoDiagnostic;
+import com.reglisseforge.leo.LeoLexer;
+
+/**
+ * Error signature to fix knowledge learned from the fix history.
+ *
+ * Each correction attempt of a session is diffed against the code it started from, and the
+ * changed lines at the location of each error become a patch for that error's signature: the
+ * error code and message with names and numbers masked. The identifiers of a patch are
+ * abstracted, so the same fix applies to code that only differs in its names, e.g.
+ * {@code let a: u64 = if c { x } else { y };} learned on one program rewrites
+ * {@code let total: u64 = if ok { p } else { q };} in another.
+ *
+ * A patch counts the attempts where its error was gone afterwards and those where it was not;
+ * its confidence, successes / (successes + failures + 1), decides whether it is applied directly
+ * or only shown to the LLM as an example.
+ */
+public class FixKnowledgeBase {
+
+    /** Entry of a build summary, e.g. "1. [EPAR0370005] src/main.leo:12:9 expected ';' -- found 'let'" */
+    private static final Pattern SUMMARY_ENTRY = Pattern.compile(
+            "^\\s*\\d+\\. \\[([A-Z0-9_]+)] (?:(\\S+):(\\d+):(\\d+) )?(.*)$");
+    /** Source line under a summary entry, e.g. "   12 | let x: u64 = 1" */
+    private static final Pattern SUMMARY_SNIPPET = Pattern.compile("^\\s+(\\d+) \\| (.*)$");
+
+    private static final Pattern BACKTICKED = Pattern.compile("`([^`]*)`");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    /** Names that keep their meaning across programs, so patches match them literally */
+    private static final Set<String> KEYWORDS = Set.of(
+            "address", "as", "assert", "assert_eq", "assert_neq", "async", "block", "bool", "const", "constant",
+            "else", "false", "field", "finalize", "for", "function", "Future", "group", "i8", "i16", "i32", "i64",
+            "i128", "if", "import", "in", "inline", "let", "mapping", "network", "private", "program", "public",
+            "record", "return", "scalar", "self", "signature", "string", "struct", "transition", "true", "u8",
+            "u16", "u32", "u64", "u128", "get", "get_or_use", "set", "contains", "remove", "await", "caller",
+            "signer", "height", "Mapping", "BHP256", "Poseidon2", "hash_to_field", "commit_to_field");
+
+    /** Largest hunks worth learning, bigger ones are rewrites rather than fixes */
+    private static final int MAX_BEFORE_LINES = 6;
+    private static final int MAX_AFTER_LINES = 10;
+    /** Patterns shorter than this (e.g. a lone brace) would match almost anywhere */
+    private static final int MIN_PATTERN_TOKENS = 3;
+    /** Lines of slack between a diagnostic and the hunk fixing it */
+    private static final int LINE_SLACK = 1;
+    /** Line count product above which the line diff falls back to a single hunk */
+    private static final long MAX_DIFF_CELLS = 4_000_000;
+    private static final int MAX_PATCHES_PER_SIGNATURE = 32;
+
+    /**
+     * A learned fix
+     *
+     * @param signature     error signature it fixes
+     * @param code          Leo error code of the signature
+     * @param pattern       regular expression matching the code to replace, identifiers as named groups
+     * @param replacement   replacement for a match, referring to the groups; lines after the first
+     *                      are indented relative to the first
+     * @param exampleBefore code it was first learned from
+     * @param exampleAfter  code that replaced it
+     */
+    public record Patch(String signature, String code, String pattern, String replacement,
+                        String exampleBefore, String exampleAfter) {}
+
+    /**
+     * A patch with its record
+     */
+    public record Match(Patch patch, long successes, long failures) {
+        public double confidence() {
+            return (double) successes / (successes + failures + 1);
+        }
+    }
+
+    /**
+     * A patch applied at a diagnostic
+     */
+    public record Applied(Patch patch, int line) {}
+
+    /**
+     * Rewritten source and the patches that produced it
+     */
+    public record Result(String source, List<Applied> applied) {
+        public boolean changed() {
+            return !applied.isEmpty();
+        }
+    }
+
+    private static final class Entry {
+        private final Patch patch;
+        private final Pattern compiled;
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        Entry(Patch patch) {
+            this.patch = patch;
+            this.compiled = Pattern.compile(patch.pattern());
+        }
+
+        Match match() {
+            return new Match(patch, successes.sum(), failures.sum());
+        }
+    }
+
+    private record Hunk(int beforeStart, int beforeEnd, int afterStart, int afterEnd) {}
+
+    private final Map<String, Map<String, Entry>> patches = new ConcurrentHashMap<>();
+
+    /**
+     * Learn from one correction attempt
+     *
+     * @return number of patches learned or reinforced
+     */
+    public int learn(FixHistoryManager.FixStep step) {
+        if (step.errorsAfter() == null || step.errors() == null) {
+            return 0;
+        }
+        List<LeoDiagnostic> errors = parseSummary(step.errors());
+        if (errors.isEmpty()) {
+            return 0;
+        }
+        Set<String> remaining = new HashSet<>();
+        parseSummary(step.errorsAfter()).forEach(error -> remaining.add(signature(error)));
+
+        List<String> before = step.codeBefore().lines().toList();
+        List<String> after = step.codeAfter().lines().toList();
+        List<Hunk> hunks = diff(before, after);
+
+        int learned = 0;
+        for (LeoDiagnostic error : errors) {
+            if (error.line() <= 0) {
+                continue;
+            }
+            Optional<Patch> patch = hunkAt(hunks, error.line())
+                    .flatMap(hunk -> toPatch(signature(error), error.code(), before, after, hunk));
+            if (patch.isEmpty()) {
+                continue;
+            }
+            Entry entry = entry(patch.get());
+            (remaining.contains(patch.get().signature()) ? entry.failures : entry.successes).increment();
+            learned++;
+        }
+        return learned;
+    }
+
+    /**
+     * Patches of a diagnostic's signature, most confident first
+     */
+    public List<Match> lookup(LeoDiagnostic diagnostic) {
+        return entries(diagnostic).stream().map(Entry::match).toList();
+    }
+
+    /**
+     * Apply, for each error, its most confident patch at or above minConfidence whose pattern
+     * matches at the error's line. Errors are handled bottom-up so earlier lines stay valid.
+     */
+    public Result apply(String source, List<LeoDiagnostic> diagnostics, double minConfidence) {
+        List<LeoDiagnostic> errors = new ArrayList<>(diagnostics.stream()
+                .filter(d -> d.isError() && d.line() > 0)
+                .toList());
+        errors.sort(Comparator.comparingInt(LeoDiagnostic::line).reversed());
+
+        String rewritten = source;
+        List<Applied> applied = new ArrayList<>();
+        int lowestChanged = Integer.MAX_VALUE;
+        for (LeoDiagnostic error : errors) {
+            if (error.line() + LINE_SLACK >= lowestChanged) {
+                // Already rewritten by the patch of an error below
+                continue;
+            }
+            for (Entry entry : entries(error)) {
+                if (entry.match().confidence() < minConfidence) {
+                    break;
+                }
+                Optional<String> patched = applyAt(rewritten, entry.compiled, entry.patch.replacement(), error.line());
+                if (patched.isPresent()) {
+                    rewritten = patched.get();
+                    applied.add(0, new Applied(entry.patch, error.line()));
+                    lowestChanged = error.line() - LINE_SLACK;
+                    break;
+                }
+            }
+        }
+        return new Result(rewritten, applied);
+    }
+
+    /**
+     * Record whether applying a patch helped
+     */
+    public void recordOutcome(Patch patch, boolean success) {
+        Map<String, Entry> entries = patches.get(patch.signature());
+        Entry entry = entries != null ? entries.get(key(patch)) : null;
+        if (entry != null) {
+            (success ? entry.successes : entry.failures).increment();
+        }
+    }
+
+    /**
+     * Best patches for the errors that succeeded at least once, to show the LLM as examples
+     */
+    public List<Match> examples(List<LeoDiagnostic> diagnostics, int limit) {
+        Map<Patch, Match> found = new HashMap<>();
+        for (LeoDiagnostic error : diagnostics) {
+            if (error.isError()) {
+                lookup(error).stream().filter(match -> match.successes() > 0)
+                        .forEach(match -> found.putIfAbsent(match.patch(), match));
+            }
+        }
+        return found.values().stream()
+                .sorted(Comparator.comparingDouble(Match::confidence).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public int size() {
+        return patches.values().stream().mapToInt(Map::size).sum();
+    }
+
+    public int signatures() {
+        return patches.size();
+    }
+
+    /**
+     * Error code and message with names and numbers masked, keeping type names
+     */
+    static String signature(LeoDiagnostic diagnostic) {
+        Matcher names = BACKTICKED.matcher(diagnostic.message() != null ? diagnostic.message() : "");
+        StringBuilder message = new StringBuilder();
+        while (names.find()) {
+            String name = names.group(1);
+            names.appendReplacement(message, Matcher.quoteReplacement(KEYWORDS.contains(name) ? "`" + name + "`" : "`_`"));
+        }
+        names.appendTail(message);
+        String masked = NUMBER.matcher(message).replaceAll("N").replaceAll("\\s+", " ").strip();
+        return diagnostic.code() + " " + masked.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Errors of a build summary as written by LeoBuildResult#summary
+     */
+    static List<LeoDiagnostic> parseSummary(String summary) {
+        List<LeoDiagnostic> errors = new ArrayList<>();
+        List<String> lines = summary.lines().toList();
+        for (int i = 0; i < lines.size(); i++) {
+            Matcher entry = SUMMARY_ENTRY.matcher(lines.get(i));
+            if (!entry.matches()) {
+                continue;
+            }
+            int line = entry.group(3) != null ? Integer.parseInt(entry.group(3)) : 0;
+            int column = entry.group(4) != null ? Integer.parseInt(entry.group(4)) : 0;
+            String snippet = null;
+            if (i + 1 < lines.size()) {
+                Matcher source = SUMMARY_SNIPPET.matcher(lines.get(i + 1));
+                if (source.matches()) {
+                    snippet = source.group(2);
+                }
+            }
+            errors.add(LeoDiagnostic.error(entry.group(1), entry.group(5), entry.group(2), line, column, snippet));
+        }
+        return errors;
+    }
+
+    /**
+     * Entries of a diagnostic's signature, most confident first
+     */
+    private List<Entry> entries(LeoDiagnostic diagnostic) {
+        Map<String, Entry> entries = patches.get(signature(diagnostic));
+        if (entries == null) {
+            return List.of();
+        }
+        return entries.values().stream()
+                .sorted(Comparator.comparingDouble((Entry entry) -> entry.match().confidence()).reversed())
+                .toList();
+    }
+
+    private Entry entry(Patch patch) {
+        Map<String, Entry> entries = patches.computeIfAbsent(patch.signature(), s -> new ConcurrentHashMap<>());
+        Entry entry = entries.computeIfAbsent(key(patch), k -> new Entry(patch));
+        if (entries.size() > MAX_PATCHES_PER_SIGNATURE) {
+            // Drop the least useful patch of the signature
+            entries.values().stream()
+                    .filter(other -> other != entry)
+                    .min(Comparator.comparingDouble((Entry other) -> other.match().confidence())
+                            .thenComparingLong(other -> other.successes.sum()))
+                    .ifPresent(worst -> entries.remove(key(worst.patch)));
+        }
+        return entry;
+    }
+
+    private static String key(Patch patch) {
+        return patch.pattern() + '\u0000' + patch.replacement();
+    }
+
+    /**
+     * Replace the match of pattern that covers line, if any
+     */
+    private static Optional<String> applyAt(String source, Pattern pattern, String replacement, int line) {
+        Matcher matcher = pattern.matcher(source);
+        while (matcher.find()) {
+            int startLine = lineOf(source, matcher.start());
+            int endLine = lineOf(source, Math.max(matcher.start(), matcher.end() - 1));
+            if (startLine > line + LINE_SLACK) {
+                return Optional.empty();
+            }
+            if (endLine < line - LINE_SLACK) {
+                continue;
+            }
+            String indent = indentOf(source, matcher.start());
+            StringBuilder rewritten = new StringBuilder();
+            matcher.appendReplacement(rewritten, replacement.replace("\n", "\n" + indent));
+            matcher.appendTail(rewritten);
+            return Optional.of(rewritten.toString());
+        }
+        return Optional.empty();
+    }
+
+    private static int lineOf(String source, int offset) {
+        int line = 1;
+        for (int i = 0; i < offset; i++) {
+            if (source.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    private static String indentOf(String source, int offset) {
+        int lineStart = source.lastIndexOf('\n', offset - 1) + 1;
+        int end = lineStart;
+        while (end < source.length() && (source.charAt(end) == ' ' || source.charAt(end) == '\t')) {
+            end++;
+        }
+        return source.substring(lineStart, end);
+    }
+
+    /**
+     * Hunk closest to a 1-based line of the old code, within the slack
+     */
+    private static Optional<Hunk> hunkAt(List<Hunk> hunks, int line) {
+        Hunk best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Hunk hunk : hunks) {
+            int first = hunk.beforeStart() + 1;
+            int last = Math.max(first, hunk.beforeEnd());
+            int distance = line < first ? first - line : line > last ? line - last : 0;
+            if (distance <= LINE_SLACK && distance < bestDistance) {
+                best = hunk;
+                bestDistance = distance;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * Changed line ranges between two versions, compared without surrounding whitespace
+     */
+    private static List<Hunk> diff(List<String> before, List<String> after) {
+        int prefix = 0;
+        while (prefix < before.size() && prefix < after.size() && before.get(prefix).strip().equals(after.get(prefix).strip())) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < before.size() - prefix && suffix < after.size() - prefix
+                && before.get(before.size() - 1 - suffix).strip().equals(after.get(after.size() - 1 - suffix).strip())) {
+            suffix++;
+        }
+        int n = before.size() - prefix - suffix;
+        int m = after.size() - prefix - suffix;
+        List<Hunk> hunks = new ArrayList<>();
+        if (n == 0 && m == 0) {
+            return hunks;
+        }
+        if ((long) n * m > MAX_DIFF_CELLS) {
+            hunks.add(new Hunk(prefix, prefix + n, prefix, prefix + m));
+            return hunks;
+        }
+
+        // Longest common subsequence of the differing middle, then walk it into hunks
+        int[][] lcs = new int[n + 1][m + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                lcs[i][j] = before.get(prefix + i).strip().equals(after.get(prefix + j).strip())
+                        ? lcs[i + 1][j + 1] + 1
+                        : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+            }
+        }
+        int i = 0;
+        int j = 0;
+        int hunkI = -1;
+        int hunkJ = -1;
+        while (i < n || j < m) {
+            boolean same = i < n && j < m && before.get(prefix + i).strip().equals(after.get(prefix + j).strip());
+            if (same) {
+                if (hunkI >= 0) {
+                    hunks.add(new Hunk(prefix + hunkI, prefix + i, prefix + hunkJ, prefix + j));
+                    hunkI = -1;
+                }
+                i++;
+                j++;
+                continue;
+            }
+            if (hunkI < 0) {
+                hunkI = i;
+                hunkJ = j;
+            }
+            if (j < m && (i == n || lcs[i][j + 1] >= lcs[i + 1][j])) {
+                j++;
+            } else {
+                i++;
+            }
+        }
+        if (hunkI >= 0) {
+            hunks.add(new Hunk(prefix + hunkI, prefix + n, prefix + hunkJ, prefix + m));
+        }
+        return hunks;
+    }
+
+    /**
+     * Patch of a hunk with its identifiers abstracted, empty when the hunk is unfit
+     */
+    private static Optional<Patch> toPatch(String signature, String code, List<String> before, List<String> after, Hunk hunk) {
+        int beforeStart = hunk.beforeStart();
+        int beforeEnd = hunk.beforeEnd();
+        int afterStart = hunk.afterStart();
+        int afterEnd = hunk.afterEnd();
+        if (beforeStart == beforeEnd) {
+            // Pure insertion: anchor it on the line above, or below at the top of the file
+            if (beforeStart > 0) {
+                beforeStart--;
+                afterStart--;
+            } else if (beforeEnd < before.size()) {
+                beforeEnd++;
+                afterEnd++;
+            } else {
+                return Optional.empty();
+            }
+        }
+        if (beforeEnd - beforeStart > MAX_BEFORE_LINES || afterEnd - afterStart > MAX_AFTER_LINES) {
+            return Optional.empty();
+        }
+
+        String oldCode = String.join("\n", before.subList(beforeStart, beforeEnd)).strip();
+        String newCode = relativeIndent(after.subList(afterStart, afterEnd), before.get(beforeStart));
+
+        List<LeoLexer.Token> oldTokens = tokens(oldCode);
+        if (oldTokens.size() < MIN_PATTERN_TOKENS) {
+            return Optional.empty();
+        }
+
+        Map<String, String> groups = new HashMap<>();
+        StringBuilder pattern = new StringBuilder();
+        LeoLexer.Token previous = null;
+        for (LeoLexer.Token token : oldTokens) {
+            if (previous != null) {
+                pattern.append(isWord(previous) && isWord(token) ? "\\s+" : "\\s*");
+            } else if (isWord(token)) {
+                pattern.append("(?<![A-Za-z0-9_])");
+            }
+            if (isName(token)) {
+                String group = groups.get(token.text());
+                if (group == null) {
+                    group = "v" + groups.size();
+                    groups.put(token.text(), group);
+                    pattern.append("(?<").append(group).append(">[A-Za-z_][A-Za-z0-9_]*)");
+                } else {
+                    pattern.append("\\k<").append(group).append('>');
+                }
+            } else {
+                pattern.append(Pattern.quote(token.text()));
+            }
+            previous = token;
+        }
+        if (isWord(previous)) {
+            pattern.append("(?![A-Za-z0-9_])");
+        }
+
+        StringBuilder replacement = new StringBuilder();
+        int copied = 0;
+        for (LeoLexer.Token token : tokens(newCode)) {
+            String group = isName(token) ? groups.get(token.text()) : null;
+            if (group != null) {
+                replacement.append(Matcher.quoteReplacement(newCode.substring(copied, token.offset())))
+                        .append("${").append(group).append('}');
+                copied = token.end();
+            }
+        }
+        replacement.append(Matcher.quoteReplacement(newCode.substring(copied)));
+
+        return Optional.of(new Patch(signature, code, pattern.toString(), replacement.toString(), oldCode, newCode));
+    }
+
+    /**
+     * Lines joined with the indentation of the replaced code removed, first line stripped
+     */
+    private static String relativeIndent(List<String> lines, String anchor) {
+        String base = anchor.substring(0, anchor.length() - anchor.stripLeading().length());
+        StringBuilder out = new StringBuilder();
+        for (int k = 0; k < lines.size(); k++) {
+            String line = lines.get(k);
+            if (k > 0) {
+                out.append('\n');
+            }
+            out.append(k == 0 ? line.stripLeading() : line.startsWith(base) ? line.substring(base.length()) : line.stripLeading());
+        }
+        return out.toString().stripTrailing();
+    }
+
+    private static List<LeoLexer.Token> tokens(String code) {
+        return new LeoLexer(code, "", new ArrayList<>()).tokenize().stream()
+                .filter(token -> token.kind() != LeoLexer.Kind.EOF)
+                .toList();
+    }
+
+    private static boolean isName(LeoLexer.Token token) {
+        return token.kind() == LeoLexer.Kind.IDENT && !KEYWORDS.contains(token.text());
+    }
+
+    private static boolean isWord(LeoLexer.Token token) {
+        return token.kind() != LeoLexer.Kind.SYMBOL && token.kind() != LeoLexer.Kind.STRING;
+    }
+}
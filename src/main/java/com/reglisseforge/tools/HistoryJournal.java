@@ -0,0 +1,371 @@
+package com.reglisseforge.tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only journal files written behind the caller by a single background thread.
+ *
+ * {@link #append} only enqueues the record. The writer drains everything queued, appends it to
+ * the journal files it belongs to and then syncs each touched file once, so a correction attempt
+ * costs the generation thread an enqueue and a burst of attempts costs one fsync per file.
+ *
+ * A record is framed as [length:int][crc32:int][payload]. Reading stops at the first frame that
+ * is truncated or fails its checksum, i.e. at whatever a crash cut off mid-write.
+ *
+ * The same writer also stores immutable files ({@link #writeOnce}), in queue order, so a file a
+ * record refers to is always on disk before the record.
+ *
+ * Once closed, or once the writer has stopped for any reason, writes and flushes are rejected and
+ * flushes still waiting fail instead of blocking forever.
+ */
+final class HistoryJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryJournal.class);
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 1024;
+    /** Journal files kept open between batches, beyond that the least recently written are closed */
+    private static final int MAX_OPEN_FILES = 64;
+
+    /**
+     * Queued record, or whole file when once is set, or with a null file a marker completed once
+     * everything before it is synced
+     */
+    private record Write(Path file, byte[] payload, boolean last, boolean once, CompletableFuture<Void> synced) {}
+
+    private static final Write SHUTDOWN = new Write(null, null, false, false, null);
+
+    private final LinkedBlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    /** Open journal files, least recently written first */
+    private final Map<Path, FileChannel> channels = new LinkedHashMap<>(16, 0.75f, true);
+    private final Object lifecycle = new Object();
+    private boolean closed;
+    private final Thread writer;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+
+    HistoryJournal() {
+        this.writer = Thread.ofPlatform().name("leo-history-writer").daemon(true).start(this::writeLoop);
+    }
+
+    /**
+     * Queue a record for the journal file
+     *
+     * @param last whether no more records follow for this file, so it can be closed once synced
+     */
+    void append(Path file, byte[] payload, boolean last) {
+        enqueue(new Write(file, payload, last, false, null));
+    }
+
+    /**
+     * Queue the creation of a file that never changes once written; nothing is done if it exists
+     */
+    void writeOnce(Path file, byte[] content) {
+        enqueue(new Write(file, content, false, true, null));
+    }
+
+    /**
+     * Wait until every record queued so far is on disk
+     *
+     * @throws IOException if the journal is closed, or its writer stops before getting there
+     */
+    void flush() throws IOException {
+        if (Thread.currentThread() == writer) {
+            return;
+        }
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        synchronized (lifecycle) {
+            if (closed) {
+                throw new IOException("History journal is closed");
+            }
+            queue.add(new Write(null, null, false, false, synced));
+        }
+        try {
+            synced.join();
+        } catch (CompletionException e) {
+            throw new IOException("History journal stopped before the flush completed", e.getCause());
+        }
+    }
+
+    private void enqueue(Write write) {
+        synchronized (lifecycle) {
+            if (closed) {
+                throw new IllegalStateException("History journal is closed");
+            }
+            queue.add(write);
+        }
+    }
+
+    /**
+     * Payloads of the intact records of a journal file, in order
+     */
+    static List<byte[]> read(Path file) throws IOException {
+        return Files.exists(file) ? parse(Files.readAllBytes(file), file) : new ArrayList<>();
+    }
+
+    /**
+     * Payloads of the intact records in data, read from source
+     */
+    static List<byte[]> parse(byte[] data, Path source) {
+        List<byte[]> payloads = new ArrayList<>();
+        scan(ByteBuffer.wrap(data), payloads, source);
+        return payloads;
+    }
+
+    /**
+     * Collect the intact records at the start of buffer
+     *
+     * @return the length of the intact prefix
+     */
+    private static int scan(ByteBuffer buffer, List<byte[]> payloads, Path file) {
+        int intact = 0;
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                logger.warn("Ignoring truncated record at the end of {}", file);
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (crc32(payload) != crc) {
+                logger.warn("Ignoring corrupt record in {} and everything after it", file);
+                break;
+            }
+            payloads.add(payload);
+            intact = buffer.position();
+        }
+        return intact;
+    }
+
+    long getRecords() { return records.sum(); }
+
+    long getBytes() { return bytes.sum(); }
+
+    long getBatches() { return batches.sum(); }
+
+    long getSyncs() { return syncs.sum(); }
+
+    /**
+     * Records written per sync, the batching achieved by write-behind
+     */
+    double getRecordsPerSync() {
+        long syncCount = syncs.sum();
+        return syncCount == 0 ? 0 : (double) records.sum() / syncCount;
+    }
+
+    /**
+     * Write out what is queued and close the journal files
+     */
+    @Override
+    public void close() {
+        synchronized (lifecycle) {
+            if (!closed) {
+                closed = true;
+                // Behind every write accepted so far
+                queue.add(SHUTDOWN);
+            }
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<Write> batch = new ArrayList<>();
+        try {
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, MAX_BATCH - 1);
+
+                boolean shutdown = batch.remove(SHUTDOWN);
+                writeBatch(batch);
+                batch.clear();
+
+                if (shutdown) {
+                    return;
+                }
+            }
+        } finally {
+            channels.values().forEach(HistoryJournal::closeQuietly);
+            channels.clear();
+            synchronized (lifecycle) {
+                closed = true;
+                queue.drainTo(batch);
+            }
+            abandon(batch);
+        }
+    }
+
+    /**
+     * Fail the flushes among writes left over when the writer stops
+     */
+    private void abandon(List<Write> writes) {
+        IOException stopped = new IOException("History journal writer stopped");
+        int dropped = 0;
+        for (Write write : writes) {
+            if (write.synced() != null) {
+                write.synced().completeExceptionally(stopped);
+            } else if (write.file() != null) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            logger.error("History journal writer stopped with {} write(s) not done", dropped);
+        }
+    }
+
+    private void writeBatch(List<Write> batch) {
+        Set<Path> touched = new LinkedHashSet<>();
+        Set<Path> finished = new LinkedHashSet<>();
+        for (Write write : batch) {
+            if (write.file() == null) {
+                continue;
+            }
+            if (write.once()) {
+                createFile(write.file(), write.payload());
+                continue;
+            }
+            try {
+                channel(write.file()).write(frame(write.payload()));
+                touched.add(write.file());
+                records.increment();
+                bytes.add(write.payload().length + HEADER_BYTES);
+                if (write.last()) {
+                    finished.add(write.file());
+                }
+            } catch (IOException e) {
+                logger.error("Failed to append to {}", write.file(), e);
+            }
+        }
+
+        // One sync per file for the whole batch
+        for (Path file : touched) {
+            try {
+                channels.get(file).force(false);
+                syncs.increment();
+            } catch (IOException e) {
+                logger.error("Failed to sync {}", file, e);
+            }
+        }
+        for (Path file : finished) {
+            closeQuietly(channels.remove(file));
+        }
+        Iterator<FileChannel> leastRecent = channels.values().iterator();
+        while (channels.size() > MAX_OPEN_FILES) {
+            closeQuietly(leastRecent.next());
+            leastRecent.remove();
+        }
+        batches.increment();
+
+        for (Write write : batch) {
+            if (write.synced() != null) {
+                write.synced().complete(null);
+            }
+        }
+    }
+
+    /**
+     * Write a complete file under a temporary name, sync it and move it into place
+     */
+    private void createFile(Path file, byte[] content) {
+        if (Files.exists(file)) {
+            return;
+        }
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            syncs.increment();
+        } catch (IOException e) {
+            logger.error("Failed to write {}", file, e);
+            try {
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+                // Left for the next cleanup of the directory
+            }
+        }
+    }
+
+    private FileChannel channel(Path file) throws IOException {
+        FileChannel channel = channels.get(file);
+        if (channel == null) {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // Cut off a record torn by a crash, records appended after it would be unreadable
+            long size = channel.size();
+            if (size > 0) {
+                long intact = scan(ByteBuffer.wrap(Files.readAllBytes(file)), new ArrayList<>(), file);
+                if (intact < size) {
+                    channel.truncate(intact);
+                }
+            }
+            channel.position(channel.size());
+            channels.put(file, channel);
+        }
+        return channel;
+    }
+
+    static ByteBuffer frame(byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt(crc32(payload)).put(payload).flip();
+        return frame;
+    }
+
+    private static int crc32(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close journal file", e);
+        }
+    }
+}
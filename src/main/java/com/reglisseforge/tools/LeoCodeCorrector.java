@@ -20,6 +20,8 @@ import com.anthropic.models.messages.ToolUseBlock;
 import com.reglisseforge.tools.base.ToolExecutor;
 import com.reglisseforge.tools.base.ToolRegistry;
 import com.reglisseforge.utils.AnthropicClientFactory;
+import com.reglisseforge.leo.LeoBuildResult;
+import com.reglisseforge.leo.LeoSyntaxChecker;
 import com.reglisseforge.utils.CommandRunner;
 import com.reglisseforge.utils.LeoPrompt;
 
@@ -38,7 +40,7 @@ public class LeoCodeCorrector {
         this.client = AnthropicClientFactory.create();
         this.toolRegistry = new ToolRegistry();
         
-        // Register static tools
+        // Register static tools, generated at build time by ToolProcessor
         registerTools();
         
         this.toolExecutor = new ToolExecutor(toolRegistry);
@@ -47,11 +49,11 @@ public class LeoCodeCorrector {
     private void registerTools() {
         try {
             // Register FileReaderTool methods
-            toolRegistry.registerStaticMethod(FileReaderTool.class, "readFileWithLineNumbers");
-            toolRegistry.registerStaticMethod(FileReaderTool.class, "readFileLines");
+            toolRegistry.register(FileReaderTool_Tools.READ_FILE_WITH_LINE_NUMBERS);
+            toolRegistry.register(FileReaderTool_Tools.READ_FILE_LINES);
             
             // Register FileEditorTool methods
-            toolRegistry.registerStaticMethod(FileEditorTool.class, "editFile");
+            toolRegistry.register(FileEditorTool_Tools.EDIT_FILE);
             
             logger.info("Registered tools: {}", toolRegistry.getToolNames());
         } catch (Exception e) {
@@ -78,22 +80,21 @@ public class LeoCodeCorrector {
             
             // Try to build the project
             System.out.println("🔨 Running leo build...");
-            String buildOutput = buildProject(projectPath);
+            LeoBuildResult build = buildProject(projectPath);
             
             // Check if build succeeded
-            if (buildOutput.contains("✅ Compiled") || buildOutput.contains("Successfully compiled") || 
-                !buildOutput.contains("Error") && !buildOutput.contains("error")) {
+            if (build.success()) {
                 logger.info("✅ Build succeeded on attempt {}!", attempt);
                 System.out.println("\n🎉 BUILD SUCCEEDED on attempt " + attempt + "!");
                 return true;
             }
             
-            logger.info("Build failed, attempting to fix errors...");
-            logger.debug("Build output:\n{}", buildOutput);
+            logger.info("Build failed with {} errors {}, attempting to fix errors...", build.errors().size(), build.errorCodes());
+            logger.debug("Build output:\n{}", build.output());
             System.out.println("❌ Build failed. Analyzing errors...");
             
             // Use AI to fix the errors
-            boolean fixed = attemptFix(projectPath, buildOutput, attempt);
+            boolean fixed = attemptFix(projectPath, build.summary(), attempt);
             
             if (!fixed) {
                 logger.warn("Failed to apply fixes on attempt {}", attempt);
@@ -105,8 +106,17 @@ public class LeoCodeCorrector {
         return false;
     }
     
-    private String buildProject(String projectPath) {
+    private LeoBuildResult buildProject(String projectPath) {
         File projectDir = new File(projectPath);
+        
+        // Syntax errors are reported in milliseconds without spawning the compiler
+        LeoSyntaxChecker.Result precheck = LeoSyntaxChecker.checkProject(projectDir.toPath());
+        if (precheck.hasErrors()) {
+            logger.info("Pre-check found {} errors in {} ms, skipping leo build", precheck.errors().size(), precheck.elapsedMillis());
+            return LeoBuildResult.fromPrecheck(precheck);
+        }
+        
+        long start = System.nanoTime();
         CommandRunner.CommandResult result = CommandRunner.runBash("leo build", projectDir);
         
         // Combine stdout and stderr for full output
@@ -117,7 +127,8 @@ public class LeoCodeCorrector {
         
         logger.debug("Build exit code: {}", result.exitCode());
         
-        return fullOutput;
+        return LeoBuildResult.fromOutput(LeoBuildResult.Stage.COMPILER, result.exitCode(), fullOutput,
+                (System.nanoTime() - start) / 1_000_000);
     }
     
     private boolean attemptFix(String projectPath, String errorOutput, int attemptNumber) {
@@ -223,7 +234,7 @@ public class LeoCodeCorrector {
                         .content(resultStr)
                         .build()));
                         
-                logger.info("Tool result: {}", resultStr);
+                logger.debug("Tool {} returned {} chars", toolUse.name(), resultStr.length());
                 
                 // Show abbreviated result for better UX
                 if (resultStr.length() > 100) {
@@ -18,6 +18,10 @@ import com.anthropic.models.beta.messages.BetaThinkingConfigEnabled;
 import com.anthropic.models.beta.messages.MessageCreateParams;
 import com.anthropic.models.messages.Model;
 import com.reglisseforge.utils.AnthropicClientFactory;
+import com.reglisseforge.leo.LeoBuildResult;
+import com.reglisseforge.leo.LeoSyntaxChecker;
+import com.reglisseforge.leo.PrivateKeyPool;
+import com.reglisseforge.leo.ProjectSkeletonCache;
 import com.reglisseforge.utils.CommandRunner;
 import com.reglisseforge.utils.LeoPrompt;
 
@@ -32,6 +36,10 @@ public class LeoCodeEngine {
     AnthropicClient client;
     String projectPath;
 
+    /** Created with the workspace; its key pool is kept on disk between runs */
+    private ProjectSkeletonCache skeletons;
+    private String leoVersion;
+
 
     public LeoCodeEngine() {
         this.client = AnthropicClientFactory.create();
@@ -46,11 +54,8 @@ public class LeoCodeEngine {
             // Force project name to lowercase and replace spaces with underscores to avoid Leo parsing issues
             String leoProjectName = projectName.toLowerCase().replaceAll("\\s+", "_");
             
-            // 1) Crée un squelette Leo
-            String command = "leo new " + leoProjectName;
-            CommandRunner.runBash(command, workspaceDir.toFile());
-
-            this.projectPath = workspaceDir.resolve(leoProjectName).toString();
+            // 1) Crée un squelette Leo (copié depuis le modèle en cache plutôt que `leo new`)
+            this.projectPath = skeletons(workspaceDir).materialize(workspaceDir, leoProjectName, leoVersion()).toString();
 
             // 2) Génère le code initial avec LLM
             generate_initial_code(this.projectPath, leoProjectName, projectDescription);
@@ -60,6 +65,31 @@ public class LeoCodeEngine {
     }
 
 
+    private synchronized ProjectSkeletonCache skeletons(Path workspaceDir) {
+        if (skeletons == null) {
+            Path cacheDir = workspaceDir.resolve(".skeletons");
+            skeletons = new ProjectSkeletonCache(cacheDir,
+                    (dir, name) -> CommandRunner.runBash("leo new " + name, dir),
+                    new PrivateKeyPool(cacheDir.resolve("keys"), 2,
+                            () -> CommandRunner.runBash("leo account new", null)));
+        }
+        return skeletons;
+    }
+
+    /**
+     * Installed compiler version, resolved once. Null while leo cannot be run.
+     */
+    private synchronized String leoVersion() {
+        if (leoVersion == null) {
+            CommandRunner.CommandResult result = CommandRunner.runBash("leo --version", null);
+            if (result.exitCode() == 0 && !result.stdout().isBlank()) {
+                leoVersion = result.stdout().trim();
+            }
+        }
+        return leoVersion;
+    }
+
+
     public void generate_initial_code(String projectPath, String projectName, String description) {
         Path outputFile = Paths.get(projectPath, "src", "main.leo");
         
@@ -219,10 +249,10 @@ public class LeoCodeEngine {
         System.out.println("═".repeat(80));
         
         // First try to build
-        String buildOutput = attemptBuild();
+        LeoBuildResult build = attemptBuild();
         
         // Check if initial build succeeded
-        if (isBuildSuccessful(buildOutput)) {
+        if (build.success()) {
             System.out.println("✅ Initial build succeeded! No fixes needed.");
             return true;
         }
@@ -230,7 +260,7 @@ public class LeoCodeEngine {
         // If build failed, start correction loop
         System.out.println("❌ Initial build failed. Starting automatic correction...");
         System.out.println("📝 Error output:");
-        System.out.println(buildOutput);
+        System.out.println(build.summary());
         System.out.println("─".repeat(80));
         
         // Use LeoCodeCorrector to fix errors
@@ -247,8 +277,17 @@ public class LeoCodeEngine {
         return success;
     }
     
-    private String attemptBuild() {
+    private LeoBuildResult attemptBuild() {
         Path projectDir = Paths.get(this.projectPath);
+        
+        // Syntax errors are reported in milliseconds without spawning the compiler
+        LeoSyntaxChecker.Result precheck = LeoSyntaxChecker.checkProject(projectDir);
+        if (precheck.hasErrors()) {
+            System.out.println("🔎 Pre-check found " + precheck.errors().size() + " errors in " + precheck.elapsedMillis() + " ms, skipping leo build");
+            return LeoBuildResult.fromPrecheck(precheck);
+        }
+        
+        long start = System.nanoTime();
         CommandRunner.CommandResult result = CommandRunner.runBash("leo build", projectDir.toFile());
         
         // Combine stdout and stderr for full output
@@ -257,14 +296,7 @@ public class LeoCodeEngine {
             fullOutput += "\n" + result.stderr();
         }
         
-        return fullOutput;
+        return LeoBuildResult.fromOutput(LeoBuildResult.Stage.COMPILER, result.exitCode(), fullOutput,
+                (System.nanoTime() - start) / 1_000_000);
     }
-    
-    private boolean isBuildSuccessful(String output) {
-        return output.contains("✅ Compiled") || 
-               output.contains("Successfully compiled") || 
-               (!output.contains("Error") && !output.contains("error"));
-    }
-
-
 }
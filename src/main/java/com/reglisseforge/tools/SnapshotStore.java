@@ -0,0 +1,164 @@
+package com.reglisseforge.tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for the code snapshots of the fix history, shared by all sessions.
+ *
+ * A snapshot is stored once as {@code <dir>/<first 2 hex>/<rest of the SHA-256 hex>} and records
+ * refer to it by its hash, so an attempt that did not change the code, a solution equal to the
+ * last attempt or the same file in a checkpoint costs a 64-character reference instead of a copy.
+ * New blobs are written by the journal writer ahead of the records that refer to them.
+ *
+ * Blobs no session refers to any more are removed by {@link #sweep}. A put holds the read lock
+ * and a removal the write lock, so a blob is never removed under a record still being written.
+ */
+final class SnapshotStore {
+
+    private final Path dir;
+    private final HistoryJournal journal;
+
+    /** Hashes stored or seen on disk by this process, so repeated snapshots skip the file system */
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+    /** Hashes put since the last sweep started, their records may not be written yet */
+    private volatile Set<String> recent = ConcurrentHashMap.newKeySet();
+    private final ReadWriteLock sweepLock = new ReentrantReadWriteLock();
+
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder deduplicatedBytes = new LongAdder();
+
+    SnapshotStore(Path dir, HistoryJournal journal) {
+        this.dir = dir;
+        this.journal = journal;
+    }
+
+    /**
+     * Store content, unless already stored
+     *
+     * @return its reference (SHA-256, hex)
+     */
+    String put(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(bytes);
+        sweepLock.readLock().lock();
+        try {
+            recent.add(hash);
+            if (known.add(hash) && !Files.exists(path(hash))) {
+                journal.writeOnce(path(hash), bytes);
+                stored.increment();
+                storedBytes.add(bytes.length);
+            } else {
+                deduplicated.increment();
+                deduplicatedBytes.add(bytes.length);
+            }
+        } finally {
+            sweepLock.readLock().unlock();
+        }
+        return hash;
+    }
+
+    /**
+     * Content of a reference
+     */
+    String get(String hash) throws IOException {
+        Path blob = path(hash);
+        if (!Files.exists(blob)) {
+            // Still queued behind the journal writer
+            journal.flush();
+        }
+        return Files.readString(blob, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Start a sweep: the hashes put so far are no longer protected by being recent, so the
+     * caller must collect the references of every record written before it scans
+     *
+     * @return the hashes put since the previous sweep, to be kept by this one
+     */
+    Set<String> beginSweep() {
+        Set<String> previous = recent;
+        recent = ConcurrentHashMap.newKeySet();
+        return previous;
+    }
+
+    /**
+     * Remove the blobs that are neither referenced nor put since {@link #beginSweep}
+     *
+     * @return number of blobs removed
+     */
+    int sweep(Set<String> referenced) throws IOException {
+        int removed = 0;
+        if (!Files.isDirectory(dir)) {
+            return removed;
+        }
+        try (Stream<Path> blobs = Files.walk(dir, 2)) {
+            for (Path blob : (Iterable<Path>) blobs.filter(Files::isRegularFile)::iterator) {
+                String hash = blob.getParent().getFileName().toString() + blob.getFileName();
+                if (hash.length() != 64 || referenced.contains(hash)) {
+                    continue;
+                }
+                sweepLock.writeLock().lock();
+                try {
+                    if (!recent.contains(hash)) {
+                        Files.deleteIfExists(blob);
+                        known.remove(hash);
+                        removed++;
+                    }
+                } finally {
+                    sweepLock.writeLock().unlock();
+                }
+            }
+        }
+        // Drop the fan-out directories left empty
+        try (Stream<Path> fanOut = Files.list(dir)) {
+            for (Path sub : (Iterable<Path>) fanOut.filter(Files::isDirectory)::iterator) {
+                try (Stream<Path> entries = Files.list(sub)) {
+                    if (entries.findAny().isEmpty()) {
+                        Files.deleteIfExists(sub);
+                    }
+                } catch (DirectoryNotEmptyException e) {
+                    // A blob was written meanwhile
+                }
+            }
+        }
+        return removed;
+    }
+
+    long getStored() { return stored.sum(); }
+
+    long getStoredBytes() { return storedBytes.sum(); }
+
+    long getDeduplicated() { return deduplicated.sum(); }
+
+    long getDeduplicatedBytes() { return deduplicatedBytes.sum(); }
+
+    private Path path(String hash) {
+        if (hash.length() != 64 || !hash.chars().allMatch(HexFormat::isHexDigit)) {
+            throw new IllegalArgumentException("Not a snapshot reference: " + hash);
+        }
+        return dir.resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,67 +1,104 @@
 package com.reglisseforge.tools;
 
-import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.anthropic.client.AnthropicClient;
-import com.anthropic.models.messages.ContentBlock;
-import com.anthropic.models.messages.ContentBlockParam;
-import com.anthropic.models.messages.Message;
-import com.anthropic.models.messages.MessageCreateParams;
+import com.anthropic.models.beta.messages.BetaCacheControlEphemeral;
+import com.anthropic.models.beta.messages.BetaContentBlock;
+import com.anthropic.models.beta.messages.BetaMessage;
+import com.anthropic.models.beta.messages.BetaTool;
+import com.anthropic.models.beta.messages.BetaToolUnion;
+import com.anthropic.models.beta.messages.BetaToolUseBlock;
+import com.anthropic.models.beta.messages.BetaUsage;
+import com.anthropic.models.beta.messages.MessageCreateParams;
 import com.anthropic.models.messages.Model;
 import com.anthropic.models.messages.Tool;
-import com.anthropic.models.messages.ToolResultBlockParam;
-import com.anthropic.models.messages.ToolUnion;
-import com.anthropic.models.messages.ToolUseBlock;
+import com.reglisseforge.leo.LeoAutoFixer;
+import com.reglisseforge.leo.LeoBuildResult;
 import com.reglisseforge.tools.base.ToolExecutor;
 import com.reglisseforge.tools.base.ToolRegistry;
-import com.reglisseforge.utils.AnthropicClientFactory;
-import com.reglisseforge.utils.CommandRunner;
 import com.reglisseforge.utils.LeoPrompt;
+import com.reglisseforge.web.config.CorrectionSettings;
+import com.reglisseforge.web.service.AutoFixService;
+import com.reglisseforge.web.service.BuildProgressCoalescer;
+import com.reglisseforge.web.service.FixKnowledgeService;
+import com.reglisseforge.web.service.ToolMetricsService;
+import com.reglisseforge.web.service.LeoBuildService;
+import com.reglisseforge.web.service.SharedAnthropicClient;
 import com.reglisseforge.web.service.StreamEventService;
 
 /**
- * Web-enabled Leo code corrector with WebSocket streaming support
+ * Web-enabled Leo code corrector with WebSocket streaming support.
+ * Uses beta messages so the tool definitions and the system prompt are served from the prompt cache.
  */
 public class WebLeoCodeCorrector {
     private static final Logger logger = LoggerFactory.getLogger(WebLeoCodeCorrector.class);
     
-    private final AnthropicClient client;
+    private final SharedAnthropicClient anthropic;
     private final ToolRegistry toolRegistry;
     private final ToolExecutor toolExecutor;
     private final Model model = Model.CLAUDE_4_SONNET_20250514;
     private final StreamEventService eventService;
     private final FixHistoryManager fixHistoryManager;
+    private final CorrectionSettings settings;
+    private final LeoBuildService buildService;
+    private final AutoFixService autoFixService;
+    private final FixKnowledgeService fixKnowledgeService;
     
     // Track errors encountered during correction
     private final List<String> allErrorsEncountered = new ArrayList<>();
     
-    public WebLeoCodeCorrector(StreamEventService eventService, FixHistoryManager fixHistoryManager) {
-        this.client = AnthropicClientFactory.create();
+    // Tokens used by the LLM in the current attempt (across all candidates), and attempts the rule-based fixes made unnecessary
+    private final LongAdder attemptTokens = new LongAdder();
+    private int attemptsSavedByRules;
+    
+    // Tool block of the requests and the definitions hash it was built from; candidates of an attempt share it
+    private record ToolUnions(String hash, List<BetaToolUnion> unions) {}
+    private volatile ToolUnions toolUnions;
+    
+    public WebLeoCodeCorrector(StreamEventService eventService, FixHistoryManager fixHistoryManager,
+                               SharedAnthropicClient anthropic, CorrectionSettings settings,
+                               LeoBuildService buildService, AutoFixService autoFixService,
+                               FixKnowledgeService fixKnowledgeService, ToolMetricsService toolMetricsService) {
+        this.anthropic = anthropic;
+        this.settings = settings;
+        this.buildService = buildService;
+        this.autoFixService = autoFixService;
+        this.fixKnowledgeService = fixKnowledgeService;
         this.toolRegistry = new ToolRegistry();
         this.eventService = eventService;
         this.fixHistoryManager = fixHistoryManager;
         
-        // Register static tools
+        // Register static tools, generated at build time by ToolProcessor
         registerTools();
         
-        this.toolExecutor = new ToolExecutor(toolRegistry);
+        this.toolExecutor = toolMetricsService.newExecutor(toolRegistry);
     }
     
     private void registerTools() {
         try {
             // Register FileReaderTool methods
-            toolRegistry.registerStaticMethod(FileReaderTool.class, "readFileWithLineNumbers");
-            toolRegistry.registerStaticMethod(FileReaderTool.class, "readFileLines");
+            toolRegistry.register(FileReaderTool_Tools.READ_FILE_WITH_LINE_NUMBERS);
+            toolRegistry.register(FileReaderTool_Tools.READ_FILE_LINES);
             
             // Register FileEditorTool methods
-            toolRegistry.registerStaticMethod(FileEditorTool.class, "editFile");
+            toolRegistry.register(FileEditorTool_Tools.EDIT_FILE);
             
             logger.info("Registered tools: {}", toolRegistry.getToolNames());
         } catch (Exception e) {
@@ -74,41 +111,81 @@ public class WebLeoCodeCorrector {
      * Attempts to fix Leo compilation errors with WebSocket streaming
      */
     public boolean fixCompilationErrors(String sessionId, String projectPath, int maxAttempts) {
+        return fixCompilationErrors(sessionId, projectPath, maxAttempts, 1, List.of());
+    }
+    
+    /**
+     * Continue a correction checkpointed before a restart, from firstAttempt on
+     *
+     * @param previousErrors errors encountered by the attempts before firstAttempt
+     */
+    public boolean fixCompilationErrors(String sessionId, String projectPath, int maxAttempts, int firstAttempt,
+                                        List<String> previousErrors) {
         logger.info("Starting Leo code correction for project: {}", projectPath);
+        allErrorsEncountered.addAll(previousErrors);
         
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+        for (int attempt = firstAttempt; attempt <= maxAttempts; attempt++) {
             logger.info("Correction attempt {}/{}", attempt, maxAttempts);
             
             eventService.sendFixingStarted(sessionId, attempt, maxAttempts);
             
             // Try to build the project
             eventService.sendFixingProgress(sessionId, "🔨 Running leo build...", attempt);
-            String buildOutput = buildProject(projectPath);
+            LeoBuildResult build = buildProject(sessionId, projectPath);
             
             // Check if build succeeded
-            if (buildOutput.contains("✅ Compiled") || buildOutput.contains("Successfully compiled") || 
-                !buildOutput.contains("Error") && !buildOutput.contains("error")) {
-                
-                logger.info("✅ Build succeeded on attempt {}!", attempt);
-                eventService.sendFixingSuccess(sessionId, attempt);
-                
-                // Record successful solution
-                Path mainLeoFile = Paths.get(projectPath, "src", "main.leo");
-                fixHistoryManager.recordSolution(sessionId, mainLeoFile, buildOutput, attempt, allErrorsEncountered);
-                
-                return true;
+            if (build.success()) {
+                return succeed(sessionId, projectPath, build, true, attempt);
+            }
+            if (build.timedOut()) {
+                logger.error("leo build timed out on attempt {}, stopping correction", attempt);
+                eventService.sendError(sessionId, "leo build timed out, stopping correction");
+                allErrorsEncountered.add("Attempt " + attempt + ": " + build.summary());
+                fixHistoryManager.recordFailure(sessionId, attempt, allErrorsEncountered, build.summary());
+                return false;
+            }
+            
+            // Known errors are rewritten deterministically before spending an LLM attempt on them
+            if (settings.isAutoFixEnabled()) {
+                build = applyRuleFixes(sessionId, projectPath, build, attempt);
+                if (build.success()) {
+                    return succeed(sessionId, projectPath, build, true, attempt);
+                }
+            }
+            
+            // Then the fixes learned from earlier sessions, applied directly when they proved reliable
+            String examples = "";
+            if (settings.isKnowledgeEnabled()) {
+                build = applyLearnedFixes(sessionId, projectPath, build, attempt);
+                if (build.success()) {
+                    return succeed(sessionId, projectPath, build, true, attempt);
+                }
+                examples = fixKnowledgeService.examples(build, settings.getKnowledgeMaxExamples());
             }
             
-            logger.info("Build failed, attempting to fix errors...");
-            logger.debug("Build output:\n{}", buildOutput);
+            logger.info("Build failed with {} errors {}, attempting to fix errors...", build.errors().size(), build.errorCodes());
+            logger.debug("Build output:\n{}", build.output());
             
             eventService.sendFixingProgress(sessionId, "❌ Build failed. Analyzing errors...", attempt);
             
-            // Add error to tracking list
-            allErrorsEncountered.add("Attempt " + attempt + ": " + buildOutput);
+            // Add the normalized error summary to the tracking list
+            String errorSummary = build.summary();
+            allErrorsEncountered.add("Attempt " + attempt + ": " + errorSummary);
             
             // Use AI to fix the errors
-            boolean fixed = attemptFix(sessionId, projectPath, buildOutput, attempt, maxAttempts);
+            attemptTokens.reset();
+            boolean fixed;
+            if (settings.getSpeculativeCandidates() > 1) {
+                LeoBuildResult promoted = attemptSpeculativeFix(sessionId, projectPath, build, examples, attempt);
+                autoFixService.recordLlmAttempt(attemptTokens.sum());
+                if (promoted != null && promoted.success()) {
+                    return succeed(sessionId, projectPath, promoted, false, attempt);
+                }
+                fixed = promoted != null;
+            } else {
+                fixed = attemptFix(sessionId, projectPath, errorSummary, examples, attempt);
+                autoFixService.recordLlmAttempt(attemptTokens.sum());
+            }
             
             if (!fixed) {
                 logger.warn("Failed to apply fixes on attempt {}", attempt);
@@ -116,9 +193,13 @@ public class WebLeoCodeCorrector {
             } else {
                 eventService.sendFixingProgress(sessionId, "✅ Fixes applied, checking build...", attempt);
             }
+            
+            // A restart from here on resumes with the next attempt on the code this one left
+            fixHistoryManager.checkpointAttempt(sessionId, attempt, Paths.get(projectPath), allErrorsEncountered);
         }
         
         logger.error("❌ Failed to fix compilation errors after {} attempts", maxAttempts);
+        reportRuleFixSavings(sessionId, maxAttempts);
         
         // Record failure
         String lastError = allErrorsEncountered.isEmpty() ? "Unknown error" : allErrorsEncountered.get(allErrorsEncountered.size() - 1);
@@ -127,49 +208,149 @@ public class WebLeoCodeCorrector {
         return false;
     }
     
-    private String buildProject(String projectPath) {
-        File projectDir = new File(projectPath);
-        CommandRunner.CommandResult result = CommandRunner.runBash("leo build", projectDir);
-        
-        // Combine stdout and stderr for full output
-        String fullOutput = result.stdout();
-        if (!result.stderr().isEmpty()) {
-            fullOutput += "\n" + result.stderr();
+    /**
+     * @param builtInProject whether build ran on the project itself rather than a candidate workspace
+     */
+    private boolean succeed(String sessionId, String projectPath, LeoBuildResult build, boolean builtInProject,
+                            int attempt) {
+        if (!builtInProject || build.stage() == LeoBuildResult.Stage.CACHE) {
+            // leo build never ran on these sources in the project, so it has no build output for them
+            eventService.sendFixingProgress(sessionId, "🔨 Running leo build in the project...", attempt);
+            build = compileProject(sessionId, projectPath);
+            if (!build.success()) {
+                logger.error("leo build of {} failed although its sources built before: {}", projectPath, build.summary());
+                eventService.sendError(sessionId, "leo build of the fixed project failed: " + build.summary());
+                allErrorsEncountered.add("Attempt " + attempt + ": " + build.summary());
+                fixHistoryManager.recordFailure(sessionId, attempt, allErrorsEncountered, build.summary());
+                return false;
+            }
         }
+        logger.info("✅ Build succeeded on attempt {}!", attempt);
+        eventService.sendFixingSuccess(sessionId, attempt);
+        reportRuleFixSavings(sessionId, attempt);
         
-        logger.debug("Build exit code: {}", result.exitCode());
+        // Record successful solution
+        Path mainLeoFile = Paths.get(projectPath, "src", "main.leo");
+        fixHistoryManager.recordSolution(sessionId, mainLeoFile, build.output(), attempt, allErrorsEncountered);
         
-        return fullOutput;
+        return true;
     }
     
-    private boolean attemptFix(String sessionId, String projectPath, String errorOutput, int attemptNumber, int maxAttempts) {
-        try {
-            // Record the attempt before starting fixes
-            Path mainLeoFile = Paths.get(projectPath, "src", "main.leo");
-            List<String> fixesApplied = new ArrayList<>();
-            
-            // Build message with system prompt and user message
-            MessageCreateParams.Builder builder = MessageCreateParams.builder()
-                    .model(model)
-                    .maxTokens(8000L)
-                    .system(LeoPrompt.getLeoCorrectorSystemPrompt());
-            
-            // Add tools
-            List<ToolUnion> tools = buildToolUnions();
-            if (!tools.isEmpty()) {
-                builder.tools(tools);
+    private LeoBuildResult buildProject(String sessionId, String projectPath) {
+        try (BuildProgressCoalescer progress = eventService.createBuildProgressCoalescer(sessionId)) {
+            return buildService.build(Paths.get(projectPath), progress);
+        }
+    }
+    
+    private LeoBuildResult compileProject(String sessionId, String projectPath) {
+        try (BuildProgressCoalescer progress = eventService.createBuildProgressCoalescer(sessionId)) {
+            return buildService.compile(Paths.get(projectPath), progress);
+        }
+    }
+    
+    /**
+     * Apply LeoAutoFixer rounds until the build succeeds, no rule matches or a round stops helping.
+     * A round whose rebuild is not better than the previous build is reverted.
+     */
+    private LeoBuildResult applyRuleFixes(String sessionId, String projectPath, LeoBuildResult build, int attempt) {
+        Path projectDir = Paths.get(projectPath);
+        
+        for (int round = 1; round <= settings.getAutoFixMaxRounds() && !build.success(); round++) {
+            Optional<AutoFixService.Round> applied;
+            try {
+                applied = autoFixService.fix(projectDir, build);
+            } catch (IOException e) {
+                logger.warn("Rule-based fixes failed for {}", projectPath, e);
+                return build;
+            }
+            if (applied.isEmpty()) {
+                return build;
             }
             
-            // Add user message with error details
-            builder.addUserMessage(LeoPrompt.getLeoCorrectorUserPrompt(projectPath, errorOutput, attemptNumber).text());
-            
-            // Run the correction loop with WebSocket feedback
-            Message response = runCorrectionLoop(sessionId, builder, attemptNumber);
+            for (LeoAutoFixer.Fix fix : applied.get().result().fixes()) {
+                eventService.sendFixingProgress(sessionId,
+                    String.format("🔧 Rule fix %s at line %d: %s", fix.code(), fix.line(), fix.description()), attempt);
+            }
             
-            // Record the attempt with fixes applied
-            String aiAnalysis = "AI analysis for attempt " + attemptNumber + " - Error: " + errorOutput.substring(0, Math.min(500, errorOutput.length()));
-            fixHistoryManager.recordAttempt(sessionId, attemptNumber, mainLeoFile, errorOutput, aiAnalysis, fixesApplied);
+            LeoBuildResult rebuilt = buildProject(sessionId, projectPath);
+            if (!autoFixService.progressed(build, rebuilt)) {
+                try {
+                    autoFixService.revert(projectDir, applied.get());
+                } catch (IOException e) {
+                    logger.warn("Failed to revert rule-based fixes for {}", projectPath, e);
+                    return rebuilt;
+                }
+                logger.info("Rule-based fixes round {} did not reduce errors, reverted", round);
+                eventService.sendFixingProgress(sessionId, "↩️ Rule-based fixes did not help, reverted", attempt);
+                return build;
+            }
             
+            logger.info("Rule-based fixes round {}: {} -> {} errors", round, build.errors().size(), rebuilt.errors().size());
+            allErrorsEncountered.add("Attempt " + attempt + " (rule-based fixes): " + build.summary());
+            if (rebuilt.success()) {
+                // Fewer errors still leave the LLM attempt to make, only a passing build spares it
+                autoFixService.recordAttemptSaved();
+                attemptsSavedByRules++;
+            }
+            build = rebuilt;
+        }
+        return build;
+    }
+    
+    /**
+     * Apply one round of learned fixes, kept when the rebuild is better than the build before it
+     */
+    private LeoBuildResult applyLearnedFixes(String sessionId, String projectPath, LeoBuildResult build, int attempt) {
+        Path projectDir = Paths.get(projectPath);
+        Optional<FixKnowledgeService.Round> applied;
+        try {
+            applied = fixKnowledgeService.fix(projectDir, build, settings.getKnowledgeMinConfidence());
+        } catch (IOException e) {
+            logger.warn("Learned fixes failed for {}", projectPath, e);
+            return build;
+        }
+        if (applied.isEmpty()) {
+            return build;
+        }
+        
+        for (FixKnowledgeBase.Applied patch : applied.get().result().applied()) {
+            eventService.sendFixingProgress(sessionId,
+                String.format("📚 Learned fix %s at line %d", patch.patch().code(), patch.line()), attempt);
+        }
+        
+        LeoBuildResult rebuilt = buildProject(sessionId, projectPath);
+        if (!autoFixService.progressed(build, rebuilt)) {
+            try {
+                fixKnowledgeService.revert(projectDir, applied.get());
+            } catch (IOException e) {
+                logger.warn("Failed to revert learned fixes for {}", projectPath, e);
+                return rebuilt;
+            }
+            logger.info("Learned fixes did not reduce errors, reverted");
+            eventService.sendFixingProgress(sessionId, "↩️ Learned fixes did not help, reverted", attempt);
+            return build;
+        }
+        
+        logger.info("Learned fixes: {} -> {} errors", build.errors().size(), rebuilt.errors().size());
+        allErrorsEncountered.add("Attempt " + attempt + " (learned fixes): " + build.summary());
+        fixKnowledgeService.recordProgress(applied.get(), rebuilt);
+        return rebuilt;
+    }
+    
+    private void reportRuleFixSavings(String sessionId, int attempt) {
+        if (attemptsSavedByRules == 0) {
+            return;
+        }
+        long tokens = Math.round(attemptsSavedByRules * autoFixService.getAverageTokensPerLlmAttempt());
+        logger.info("Session {}: rule-based fixes saved {} LLM attempts (~{} tokens)", sessionId, attemptsSavedByRules, tokens);
+        eventService.sendFixingProgress(sessionId,
+            String.format("🔧 Rule-based fixes saved %d LLM attempts (~%d tokens)", attemptsSavedByRules, tokens), attempt);
+    }
+    
+    private boolean attemptFix(String sessionId, String projectPath, String errorOutput, String examples, int attemptNumber) {
+        try {
+            BetaMessage response = runLlmFix(sessionId, projectPath, errorOutput, examples, attemptNumber);
+            recordAttempt(sessionId, projectPath, errorOutput, attemptNumber);
             return response != null;
             
         } catch (Exception e) {
@@ -179,21 +360,174 @@ public class WebLeoCodeCorrector {
         }
     }
     
-    private Message runCorrectionLoop(String sessionId, MessageCreateParams.Builder builder, int attemptNumber) {
-        Message lastResponse = null;
+    /**
+     * Let the LLM edit the project at projectPath until it stops calling tools
+     *
+     * @param examples learned fixes of the same errors to include in the prompt, empty for none
+     */
+    private BetaMessage runLlmFix(String sessionId, String projectPath, String errorOutput, String examples,
+                                  int attemptNumber) {
+        // Build message with system prompt and user message
+        MessageCreateParams.Builder builder = MessageCreateParams.builder()
+                .model(model)
+                .maxTokens(8000L)
+                .systemOfBetaTextBlockParams(LeoPrompt.getLeoCorrectorSystemParams());
+        
+        // Add tools
+        List<BetaToolUnion> tools = buildToolUnions();
+        if (!tools.isEmpty()) {
+            builder.tools(tools);
+        }
+        
+        // Conversation of this attempt, starting with the error details
+        ContextCompactor transcript = new ContextCompactor(
+                LeoPrompt.getLeoCorrectorUserPrompt(projectPath, errorOutput, attemptNumber, examples).text(),
+                settings.isCompactionEnabled(),
+                settings.getCompactionKeepRecentTurns(),
+                settings.getCompactionMaxInputTokens());
+        
+        // Run the correction loop with WebSocket feedback
+        return runCorrectionLoop(sessionId, builder, transcript, attemptNumber);
+    }
+    
+    private void recordAttempt(String sessionId, String projectPath, String errorOutput, int attemptNumber) {
+        // Record the attempt with fixes applied
+        Path mainLeoFile = Paths.get(projectPath, "src", "main.leo");
+        List<String> fixesApplied = new ArrayList<>();
+        String aiAnalysis = "AI analysis for attempt " + attemptNumber + " - Error: " + errorOutput.substring(0, Math.min(500, errorOutput.length()));
+        fixHistoryManager.recordAttempt(sessionId, attemptNumber, mainLeoFile, errorOutput, aiAnalysis, fixesApplied);
+    }
+    
+    /**
+     * Outcome of one speculative candidate: its build and the sources it produced
+     */
+    private record Candidate(int index, LeoBuildResult build, Map<String, String> sources) {}
+    
+    /**
+     * Fork several LLM fixes of the same errors, each in its own copy of the project, and build them
+     * in parallel. The first candidate that compiles is promoted and the others are cancelled;
+     * otherwise the candidate with the fewest remaining errors is promoted, provided it is not
+     * worse than the current build.
+     *
+     * @return the build of the promoted candidate, or null when none was promoted
+     */
+    private LeoBuildResult attemptSpeculativeFix(String sessionId, String projectPath, LeoBuildResult current,
+                                                 String examples, int attempt) {
+        int candidates = settings.getSpeculativeCandidates();
+        Path projectDir = Paths.get(projectPath);
+        String errorSummary = current.summary();
+        // Per-session limit on concurrent `leo build` processes
+        Semaphore buildSlots = new Semaphore(settings.getSpeculativeMaxParallelBuilds());
+        
+        logger.info("Session {} attempt {}: forking {} candidate fixes", sessionId, attempt, candidates);
+        eventService.sendFixingProgress(sessionId, String.format("🔀 Forking %d candidate fixes...", candidates), attempt);
+        
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("leo-candidate-", 0).factory());
+        CompletionService<Candidate> completion = new ExecutorCompletionService<>(executor);
+        Candidate best = null;
+        try {
+            for (int k = 1; k <= candidates; k++) {
+                int index = k;
+                completion.submit(() -> runCandidate(sessionId, projectDir, errorSummary, examples, attempt, index, buildSlots));
+            }
+            
+            for (int done = 0; done < candidates; done++) {
+                Candidate candidate;
+                try {
+                    candidate = completion.take().get();
+                } catch (ExecutionException e) {
+                    logger.warn("Candidate fix failed on attempt {}", attempt, e.getCause());
+                    continue;
+                }
+                
+                LeoBuildResult build = candidate.build();
+                logger.info("Candidate {} of attempt {}: {} errors after {} ms", candidate.index(), attempt,
+                        build.errors().size(), (System.nanoTime() - start) / 1_000_000);
+                eventService.sendFixingProgress(sessionId, build.success()
+                        ? String.format("✅ Candidate %d compiles", candidate.index())
+                        : String.format("❌ Candidate %d: %d errors remaining", candidate.index(), build.errors().size()), attempt);
+                
+                if (build.timedOut()) {
+                    continue;
+                }
+                if (best == null || build.success() || build.errors().size() < best.build().errors().size()) {
+                    best = candidate;
+                }
+                if (build.success()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            // Losing candidates stop at their next tool turn and delete their copies
+            executor.shutdownNow();
+        }
+        
+        if (best == null || (!best.build().success() && best.build().errors().size() > current.errors().size())) {
+            logger.info("No candidate of attempt {} improved on {} errors, keeping the project as is", attempt, current.errors().size());
+            eventService.sendFixingProgress(sessionId, "⚠️ No candidate improved the build", attempt);
+            return null;
+        }
+        
+        try {
+            CandidateWorkspace.promote(best.sources(), projectDir);
+        } catch (IOException e) {
+            logger.error("Failed to promote candidate {} into {}", best.index(), projectPath, e);
+            eventService.sendError(sessionId, "Error promoting candidate fix: " + e.getMessage());
+            return null;
+        }
+        recordAttempt(sessionId, projectPath, errorSummary, attempt);
+        logger.info("Promoted candidate {} of attempt {} after {} ms", best.index(), attempt, (System.nanoTime() - start) / 1_000_000);
+        eventService.sendFixingProgress(sessionId, String.format("⤴️ Promoted candidate %d", best.index()), attempt);
+        return best.build();
+    }
+    
+    private Candidate runCandidate(String sessionId, Path projectDir, String errorSummary, String examples, int attempt,
+                                   int index, Semaphore buildSlots) throws Exception {
+        try (CandidateWorkspace workspace = CandidateWorkspace.create(projectDir, "a" + attempt + "c" + index)) {
+            runLlmFix(sessionId, workspace.path().toString(), errorSummary, examples, attempt);
+            
+            buildSlots.acquire();
+            LeoBuildResult build;
+            try {
+                build = buildService.build(workspace.path());
+            } finally {
+                buildSlots.release();
+            }
+            return new Candidate(index, build, workspace.sources());
+        }
+    }
+    
+    private BetaMessage runCorrectionLoop(String sessionId, MessageCreateParams.Builder builder,
+                                          ContextCompactor transcript, int attemptNumber) {
+        BetaMessage lastResponse = null;
         int maxToolTurns = 10; // Max tool turns within a single correction attempt
         
         for (int turn = 0; turn < maxToolTurns; turn++) {
+            if (Thread.currentThread().isInterrupted()) {
+                // A speculative candidate that lost the race
+                return lastResponse;
+            }
             eventService.sendFixingProgress(sessionId, 
                 String.format("▶ Tool turn %d/%d (attempt %d)", turn + 1, maxToolTurns, attemptNumber), 
                 attemptNumber);
             
-            MessageCreateParams request = builder.build();
-            Message response = client.messages().create(request);
+            // Compact the conversation before every request
+            MessageCreateParams request = builder.messages(transcript.render()).build();
+            
+            long start = System.nanoTime();
+            BetaMessage response = anthropic.execute(() -> anthropic.client().beta().messages().create(request));
             lastResponse = response;
+            logger.info("Session {} attempt {} turn {}: {} ms, ~{} conversation tokens, {} tool results compacted",
+                    sessionId, attemptNumber, turn + 1, (System.nanoTime() - start) / 1_000_000,
+                    transcript.getLastEstimatedTokens(), transcript.getLastCompactedResults());
+            recordUsage(sessionId, response.usage(), attemptNumber, turn + 1);
             
             // Extract tool uses from response
-            List<ToolUseBlock> toolUses = extractToolUses(response);
+            List<BetaToolUseBlock> toolUses = extractToolUses(response);
             
             if (toolUses.isEmpty()) {
                 // No more tools to call, correction attempt is complete
@@ -209,16 +543,8 @@ public class WebLeoCodeCorrector {
                 String.format("🔧 Executing %d tool calls...", toolUses.size()), 
                 attemptNumber);
             
-            // Add assistant message to conversation
-            builder.addMessage(response);
-            
-            // Execute tools and collect results
-            List<ContentBlockParam> toolResults = executeTools(sessionId, toolUses, attemptNumber);
-            
-            // Add tool results as user message
-            if (!toolResults.isEmpty()) {
-                builder.addUserMessageOfBlockParams(toolResults);
-            }
+            // Execute tools and add the assistant message with its results to the conversation
+            transcript.addTurn(response, executeTools(sessionId, toolUses, attemptNumber));
         }
         
         logger.warn("Reached maximum tool turns ({}) in correction loop", maxToolTurns);
@@ -228,66 +554,127 @@ public class WebLeoCodeCorrector {
         return lastResponse;
     }
     
-    private List<ToolUnion> buildToolUnions() {
-        return toolRegistry.getAllTools().stream()
-                .map(info -> ToolUnion.ofTool(Tool.builder()
-                        .name(info.getName())
-                        .description(info.getDescription())
-                        .inputSchema(info.getSchema())
-                        .build()))
-                .toList();
+    /**
+     * Tool definitions with a cache breakpoint on the last one, so the whole tool block
+     * is part of the cached prompt prefix. Built once from the registry's canonical definitions
+     * and reused until the tools change, so every request sends the same prefix.
+     */
+    private List<BetaToolUnion> buildToolUnions() {
+        ToolRegistry.Definitions definitions = toolRegistry.getDefinitions();
+        ToolUnions cached = toolUnions;
+        if (cached != null && cached.hash().equals(definitions.hash())) {
+            return cached.unions();
+        }
+        
+        List<ToolRegistry.ToolInfo> infos = definitions.tools();
+        List<BetaToolUnion> tools = new ArrayList<>(infos.size());
+        for (int i = 0; i < infos.size(); i++) {
+            ToolRegistry.ToolInfo info = infos.get(i);
+            Tool.InputSchema schema = info.getSchema();
+            BetaTool.Builder tool = BetaTool.builder()
+                    .name(info.getName())
+                    .description(info.getDescription())
+                    .inputSchema(BetaTool.InputSchema.builder()
+                            .properties(schema._properties())
+                            .putAllAdditionalProperties(schema._additionalProperties())
+                            .build());
+            if (i == infos.size() - 1) {
+                tool.cacheControl(BetaCacheControlEphemeral.builder().build());
+            }
+            tools.add(BetaToolUnion.ofBetaTool(tool.build()));
+        }
+        toolUnions = new ToolUnions(definitions.hash(), List.copyOf(tools));
+        return toolUnions.unions();
     }
     
-    private List<ToolUseBlock> extractToolUses(Message response) {
-        List<ToolUseBlock> toolUses = new ArrayList<>();
-        for (ContentBlock block : response.content()) {
+    /**
+     * Log and aggregate the token usage of one tool turn, including prompt cache activity
+     */
+    private void recordUsage(String sessionId, BetaUsage usage, int attemptNumber, int turn) {
+        long cacheCreation = usage.cacheCreationInputTokens().orElse(0L);
+        long cacheRead = usage.cacheReadInputTokens().orElse(0L);
+        anthropic.getPromptCacheStats().record(usage.inputTokens(), cacheCreation, cacheRead, usage.outputTokens());
+        anthropic.getPromptCacheStats().recordToolsHash(toolRegistry.getDefinitions().hash());
+        attemptTokens.add(usage.inputTokens() + cacheCreation + cacheRead + usage.outputTokens());
+        
+        logger.info("Session {} attempt {} turn {} usage: input={}, cache_creation={}, cache_read={}, output={}",
+                sessionId, attemptNumber, turn, usage.inputTokens(), cacheCreation, cacheRead, usage.outputTokens());
+    }
+    
+    private List<BetaToolUseBlock> extractToolUses(BetaMessage response) {
+        List<BetaToolUseBlock> toolUses = new ArrayList<>();
+        for (BetaContentBlock block : response.content()) {
             block.toolUse().ifPresent(toolUses::add);
         }
         return toolUses;
     }
     
-    private List<ContentBlockParam> executeTools(String sessionId, List<ToolUseBlock> toolUses, int attemptNumber) {
-        List<ContentBlockParam> toolResults = new ArrayList<>();
+    /**
+     * Run the tool calls of a turn. Calls run in parallel on virtual threads unless they conflict
+     * (see {@link ToolRegistry.Access}), in which case the later one waits for the earlier:
+     * reads run together, writes to a file keep their order. Results come back in call order.
+     */
+    private List<ContextCompactor.ToolCall> executeTools(String sessionId, List<BetaToolUseBlock> toolUses, int attemptNumber) {
+        if (toolUses.size() < 2) {
+            return toolUses.stream().map(toolUse -> executeTool(sessionId, toolUse, attemptNumber)).toList();
+        }
         
-        for (ToolUseBlock toolUse : toolUses) {
-            try {
-                logger.info("Executing tool: {}", toolUse.name());
-                eventService.sendFixingProgress(sessionId, 
-                    String.format("    → Executing: %s", toolUse.name()), 
-                    attemptNumber);
-                
-                Object result = toolExecutor.executeTool(toolUse);
-                String resultStr = result != null ? result.toString() : "Success";
-                
-                toolResults.add(ContentBlockParam.ofToolResult(ToolResultBlockParam.builder()
-                        .toolUseId(toolUse.id())
-                        .content(resultStr)
-                        .build()));
-                        
-                logger.info("Tool result: {}", resultStr);
-                
-                // Send abbreviated result via WebSocket
-                String abbreviatedResult = resultStr.length() > 100 ? 
-                    resultStr.substring(0, 97) + "..." : resultStr;
-                eventService.sendFixingProgress(sessionId, 
-                    String.format("      ✓ Result: %s", abbreviatedResult), 
-                    attemptNumber);
-                
-            } catch (Throwable e) {
-                logger.error("Error executing tool: {}", toolUse.name(), e);
-                
-                eventService.sendFixingProgress(sessionId, 
-                    String.format("      ✗ Error: %s", e.getMessage()), 
-                    attemptNumber);
-                
-                toolResults.add(ContentBlockParam.ofToolResult(ToolResultBlockParam.builder()
-                        .toolUseId(toolUse.id())
-                        .content("Error: " + e.getMessage())
-                        .isError(true)
-                        .build()));
+        List<ToolRegistry.Access> accesses = toolUses.stream()
+                .map(toolUse -> toolRegistry.accessOf(toolUse.name(), toolUse._input()))
+                .toList();
+        List<CompletableFuture<ContextCompactor.ToolCall>> calls = new ArrayList<>(toolUses.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < toolUses.size(); i++) {
+                List<CompletableFuture<ContextCompactor.ToolCall>> before = new ArrayList<>();
+                for (int j = 0; j < i; j++) {
+                    if (accesses.get(i).conflictsWith(accesses.get(j))) {
+                        before.add(calls.get(j));
+                    }
+                }
+                BetaToolUseBlock toolUse = toolUses.get(i);
+                calls.add(CompletableFuture.allOf(before.toArray(CompletableFuture[]::new))
+                        .thenApplyAsync(ignored -> executeTool(sessionId, toolUse, attemptNumber), executor));
             }
+            // Join before closing: dependent calls are only submitted once the calls they wait for are done
+            return calls.stream().map(CompletableFuture::join).toList();
         }
+    }
+    
+    private ContextCompactor.ToolCall executeTool(String sessionId, BetaToolUseBlock toolUse, int attemptNumber) {
+        logger.info("Executing tool: {}", toolUse.name());
+        sendToolProgress(sessionId, String.format("    → Executing: %s", toolUse.name()), attemptNumber);
         
-        return toolResults;
+        // Only the tool itself decides the result: progress events are sent after it, outside this block
+        ContextCompactor.ToolCall call;
+        try {
+            Object result = toolExecutor.executeTool(sessionId, toolUse.name(), toolUse._input());
+            String resultStr = result != null ? result.toString() : "Success";
+            logger.debug("Tool {} returned {} chars", toolUse.name(), resultStr.length());
+            call = new ContextCompactor.ToolCall(toolUse, resultStr, false);
+        } catch (Throwable e) {
+            logger.error("Error executing tool: {}", toolUse.name(), e);
+            call = new ContextCompactor.ToolCall(toolUse, "Error: " + e.getMessage(), true);
+        }
+        
+        if (call.isError()) {
+            sendToolProgress(sessionId, String.format("      ✗ %s", call.result()), attemptNumber);
+        } else {
+            // Send abbreviated result via WebSocket
+            String abbreviatedResult = call.result().length() > 100 ? 
+                call.result().substring(0, 97) + "..." : call.result();
+            sendToolProgress(sessionId, String.format("      ✓ Result: %s", abbreviatedResult), attemptNumber);
+        }
+        return call;
+    }
+    
+    /**
+     * Progress of a tool call; a failed notification is logged and never affects the tool result
+     */
+    private void sendToolProgress(String sessionId, String message, int attemptNumber) {
+        try {
+            eventService.sendFixingProgress(sessionId, message, attemptNumber);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to send tool progress for session {}: {}", sessionId, e.getMessage());
+        }
     }
 }
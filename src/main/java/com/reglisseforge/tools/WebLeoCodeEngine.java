@@ -5,11 +5,14 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
-import com.anthropic.client.AnthropicClient;
 import com.anthropic.core.http.StreamResponse;
 import com.anthropic.models.beta.messages.BetaRawMessageStreamEvent;
 import com.anthropic.models.beta.messages.BetaTextBlock;
@@ -17,9 +20,17 @@ import com.anthropic.models.beta.messages.BetaTextBlockParam;
 import com.anthropic.models.beta.messages.BetaThinkingConfigEnabled;
 import com.anthropic.models.beta.messages.MessageCreateParams;
 import com.anthropic.models.messages.Model;
-import com.reglisseforge.utils.AnthropicClientFactory;
-import com.reglisseforge.utils.CommandRunner;
+import com.reglisseforge.leo.LeoBuildResult;
 import com.reglisseforge.utils.LeoPrompt;
+import com.reglisseforge.web.config.CorrectionSettings;
+import com.reglisseforge.web.service.CodeChunkCoalescer;
+import com.reglisseforge.web.service.AutoFixService;
+import com.reglisseforge.web.service.BuildProgressCoalescer;
+import com.reglisseforge.web.service.FixKnowledgeService;
+import com.reglisseforge.web.service.ToolMetricsService;
+import com.reglisseforge.web.service.LeoBuildService;
+import com.reglisseforge.web.service.LeoToolchain;
+import com.reglisseforge.web.service.SharedAnthropicClient;
 import com.reglisseforge.web.service.StreamEventService;
 
 import org.slf4j.Logger;
@@ -35,21 +46,72 @@ public class WebLeoCodeEngine {
     
     private static final Logger logger = LoggerFactory.getLogger(WebLeoCodeEngine.class);
     
+    public static final int DEFAULT_MAX_ATTEMPTS = 20;
+    
     private final Model model = Model.CLAUDE_4_SONNET_20250514;
-    private final AnthropicClient client;
+    private final SharedAnthropicClient anthropic;
     private final StreamEventService eventService;
     private final FixHistoryManager fixHistoryManager;
+    private final CorrectionSettings correctionSettings;
+    private final LeoBuildService buildService;
+    private final AutoFixService autoFixService;
+    private final FixKnowledgeService fixKnowledgeService;
+    private final ToolMetricsService toolMetricsService;
+    private final LeoToolchain toolchain;
+    
+    // Sessions generating or correcting in this process, so a session is never resumed twice
+    private final Set<String> runningSessions = ConcurrentHashMap.newKeySet();
     
-    public WebLeoCodeEngine(StreamEventService eventService) {
-        this.client = AnthropicClientFactory.create();
+    public WebLeoCodeEngine(StreamEventService eventService, SharedAnthropicClient anthropic,
+                            CorrectionSettings correctionSettings, LeoBuildService buildService,
+                            AutoFixService autoFixService, LeoToolchain toolchain, FixHistoryManager fixHistoryManager,
+                            FixKnowledgeService fixKnowledgeService, ToolMetricsService toolMetricsService) {
+        this.anthropic = anthropic;
+        this.correctionSettings = correctionSettings;
+        this.buildService = buildService;
+        this.autoFixService = autoFixService;
+        this.fixKnowledgeService = fixKnowledgeService;
+        this.toolMetricsService = toolMetricsService;
+        this.toolchain = toolchain;
         this.eventService = eventService;
-        this.fixHistoryManager = new FixHistoryManager();
+        this.fixHistoryManager = fixHistoryManager;
     }
 
+    /**
+     * Generate a new project and build and fix it, checkpointing its progress along the way
+     */
+    public boolean generate(String sessionId, String projectName, String projectDescription, String workspacePath,
+                            int maxAttempts) {
+        if (!runningSessions.add(sessionId)) {
+            throw new IllegalStateException("Session " + sessionId + " is already running");
+        }
+        try {
+            String projectPath = initProject(sessionId, projectName, projectDescription, workspacePath, maxAttempts);
+            return buildAndFix(sessionId, projectPath, maxAttempts);
+        } finally {
+            runningSessions.remove(sessionId);
+        }
+    }
+    
     /**
      * Initialize a Leo project and generate code with WebSocket streaming
      */
     public String initProject(String sessionId, String projectName, String projectDescription, String workspacePath) {
+        return initProject(sessionId, projectName, projectDescription, workspacePath, DEFAULT_MAX_ATTEMPTS);
+    }
+    
+    private String initProject(String sessionId, String projectName, String projectDescription, String workspacePath,
+                               int maxAttempts) {
+        // Force project name to lowercase and replace spaces with underscores
+        String leoProjectName = projectName.toLowerCase().replaceAll("\\s+", "_");
+        
+        // Initialize fix history tracking
+        fixHistoryManager.initializeSession(sessionId, leoProjectName, projectDescription, workspacePath, maxAttempts);
+        
+        return createAndGenerate(sessionId, leoProjectName, projectDescription, workspacePath);
+    }
+    
+    private String createAndGenerate(String sessionId, String leoProjectName, String projectDescription, String workspacePath) {
         try {
             // Use provided workspace path or default
             Path baseDir = workspacePath != null ? 
@@ -58,25 +120,19 @@ public class WebLeoCodeEngine {
                 
             Path workspaceDir = baseDir.resolve("leoworkspace");
             Files.createDirectories(workspaceDir);
-
-            // Force project name to lowercase and replace spaces with underscores
-            String leoProjectName = projectName.toLowerCase().replaceAll("\\s+", "_");
             
             eventService.sendInfo(sessionId, "Creating Leo project structure...");
             
-            // Initialize fix history tracking
-            fixHistoryManager.initializeSession(sessionId, leoProjectName, projectDescription, workspacePath);
-            
-            // Create Leo project skeleton
-            String command = "leo new " + leoProjectName;
-            CommandRunner.runBash(command, workspaceDir.toFile());
-            
-            String projectPath = workspaceDir.resolve(leoProjectName).toString();
+            // Create Leo project skeleton (copied from the cached template, no `leo new` per session)
+            Path projectDir = toolchain.newProject(workspaceDir, leoProjectName);
+            String projectPath = projectDir.toString();
+            fixHistoryManager.checkpointProjectCreated(sessionId, projectDir);
             
             eventService.sendInfo(sessionId, "Project structure created at: " + projectPath);
             
             // Generate initial code with streaming
             generateInitialCode(sessionId, projectPath, leoProjectName, projectDescription);
+            fixHistoryManager.checkpointGenerated(sessionId, projectDir);
             
             return projectPath;
             
@@ -86,6 +142,110 @@ public class WebLeoCodeEngine {
             throw new RuntimeException(error, e);
         }
     }
+    
+    /**
+     * Last checkpoint of a session
+     */
+    public Optional<FixHistoryManager.Checkpoint> getCheckpoint(String sessionId) {
+        return fixHistoryManager.loadCheckpoint(sessionId);
+    }
+    
+    /**
+     * Checkpoints of unfinished sessions updated within maxAge, oldest first
+     */
+    public List<FixHistoryManager.Checkpoint> getResumableCheckpoints(Duration maxAge) {
+        return fixHistoryManager.findResumableCheckpoints(maxAge).stream()
+                .filter(checkpoint -> !runningSessions.contains(checkpoint.sessionId()))
+                .toList();
+    }
+    
+    public boolean isRunning(String sessionId) {
+        return runningSessions.contains(sessionId);
+    }
+    
+    /**
+     * Mark a session as running ahead of a {@link #resumeClaimed} queued for later, so that
+     * concurrent requests to resume it cannot both get through
+     *
+     * @return false if the session is already running or claimed
+     */
+    public boolean claim(String sessionId) {
+        return runningSessions.add(sessionId);
+    }
+    
+    /**
+     * Give up a claim whose resume will not run
+     */
+    public void release(String sessionId) {
+        runningSessions.remove(sessionId);
+    }
+    
+    /**
+     * Continue an interrupted session from its last checkpoint: the initial generation is only
+     * redone when it never completed, and correction picks up after the last completed attempt
+     * on the code that attempt left
+     *
+     * @throws IllegalArgumentException if the session has no checkpoint
+     * @throws IllegalStateException    if the session finished or is running
+     */
+    public boolean resume(String sessionId) {
+        if (!claim(sessionId)) {
+            throw new IllegalStateException("Session " + sessionId + " is already running");
+        }
+        return resumeClaimed(sessionId);
+    }
+    
+    /**
+     * {@link #resume} a session already claimed by the caller; the claim is released when it returns
+     *
+     * @throws IllegalArgumentException if the session has no checkpoint
+     * @throws IllegalStateException    if the session finished
+     */
+    public boolean resumeClaimed(String sessionId) {
+        try {
+            FixHistoryManager.Checkpoint checkpoint = fixHistoryManager.loadCheckpoint(sessionId)
+                    .orElseThrow(() -> new IllegalArgumentException("No checkpoint for session " + sessionId));
+            if (checkpoint.phase().isTerminal()) {
+                throw new IllegalStateException("Session " + sessionId + " already finished as " + checkpoint.phase());
+            }
+            return resumeFrom(checkpoint);
+        } finally {
+            release(sessionId);
+        }
+    }
+    
+    private boolean resumeFrom(FixHistoryManager.Checkpoint checkpoint) {
+        String sessionId = checkpoint.sessionId();
+        int maxAttempts = checkpoint.maxAttempts() > 0 ? checkpoint.maxAttempts() : DEFAULT_MAX_ATTEMPTS;
+        logger.info("Resuming session {} from {} (attempt {}/{})", sessionId, checkpoint.phase(), checkpoint.attempt(), maxAttempts);
+        
+        if (checkpoint.phase() == FixHistoryManager.Phase.STARTED) {
+            eventService.sendInfo(sessionId, "♻️ Resuming session: initial generation was interrupted, generating again");
+            String projectPath = createAndGenerate(sessionId, checkpoint.projectName(), checkpoint.projectDescription(),
+                    checkpoint.workspacePath());
+            return buildAndFix(sessionId, projectPath, maxAttempts);
+        }
+        
+        try {
+            fixHistoryManager.restoreSources(checkpoint);
+        } catch (IOException e) {
+            String error = "Failed to restore checkpointed sources: " + e.getMessage();
+            eventService.sendError(sessionId, error);
+            throw new RuntimeException(error, e);
+        }
+        
+        if (checkpoint.phase() == FixHistoryManager.Phase.GENERATED) {
+            eventService.sendInfo(sessionId, "♻️ Resuming session from the generated code");
+            return buildAndFix(sessionId, checkpoint.projectPath(), maxAttempts);
+        }
+        
+        eventService.sendInfo(sessionId, String.format("♻️ Resuming session after correction attempt %d/%d",
+                checkpoint.attempt(), maxAttempts));
+        WebLeoCodeCorrector corrector = createCorrector();
+        boolean success = corrector.fixCompilationErrors(sessionId, checkpoint.projectPath(), maxAttempts,
+                checkpoint.attempt() + 1, checkpoint.errorsEncountered());
+        return finishCorrection(sessionId, checkpoint.projectPath(), maxAttempts, success);
+    }
 
     /**
      * Generate initial Leo code with real-time streaming to WebSocket
@@ -117,7 +277,9 @@ public class WebLeoCodeEngine {
             
             // Use BufferedWriter for efficient file writing
             try (BufferedWriter writer = Files.newBufferedWriter(outputFile);
-                 StreamResponse<BetaRawMessageStreamEvent> streamResponse = client.beta().messages().createStreaming(params)) {
+                 SharedAnthropicClient.Permit permit = anthropic.acquire();
+                 StreamResponse<BetaRawMessageStreamEvent> streamResponse = anthropic.client().beta().messages().createStreaming(params);
+                 CodeChunkCoalescer coalescer = eventService.createCodeChunkCoalescer(sessionId)) {
                 
                 eventService.sendGenerating(sessionId, "Starting code generation...");
                 
@@ -130,8 +292,8 @@ public class WebLeoCodeEngine {
                         .forEach(textDelta -> {
                             String chunk = textDelta.text();
                             
-                            // Send chunk via WebSocket immediately
-                            eventService.sendCodeChunk(sessionId, chunk);
+                            // Batch deltas into larger WebSocket frames
+                            coalescer.append(chunk);
                             
                             // Write to file
                             try {
@@ -146,16 +308,10 @@ public class WebLeoCodeEngine {
                                 eventService.sendError(sessionId, error);
                                 logger.error("Error writing chunk to file", e);
                             }
-                            
-                            // Small delay to ensure real-time streaming
-                            try {
-                                Thread.sleep(10);
-                            } catch (InterruptedException e) {
-                                Thread.currentThread().interrupt();
-                            }
                         });
                 
-                // Final flush
+                // Send the last partial frame, then final flush
+                coalescer.flush();
                 writer.flush();
             }
             
@@ -248,28 +404,46 @@ public class WebLeoCodeEngine {
         
         // First build attempt
         eventService.sendBuildStarted(sessionId);
-        String buildOutput = attemptBuild(projectPath);
+        LeoBuildResult build = attemptBuild(sessionId, projectPath);
+        if (build.success() && build.stage() == LeoBuildResult.Stage.CACHE) {
+            // A cached outcome leaves the project without build output, which the project needs
+            build = compileProject(sessionId, projectPath);
+        }
         
         // Check if initial build succeeded
-        if (isBuildSuccessful(buildOutput)) {
+        if (build.success()) {
             eventService.sendBuildSuccess(sessionId);
             eventService.sendProjectComplete(sessionId, projectPath);
             
             // Record successful solution (no attempts needed)
             Path mainLeoFile = Paths.get(projectPath, "src", "main.leo");
-            fixHistoryManager.recordSolution(sessionId, mainLeoFile, buildOutput, 0, List.of());
+            fixHistoryManager.recordSolution(sessionId, mainLeoFile, build.output(), 0, List.of());
             
             return true;
         }
         
         // Build failed, start correction process
-        eventService.sendBuildFailed(sessionId, buildOutput);
+        eventService.sendBuildFailed(sessionId, build.summary());
+        if (build.timedOut()) {
+            // A hung compiler is not something the LLM can fix
+            eventService.sendError(sessionId, "leo build timed out, giving up on this project");
+            fixHistoryManager.recordFailure(sessionId, 0, List.of(build.summary()), build.summary());
+            return false;
+        }
         eventService.sendInfo(sessionId, "❌ Initial build failed. Starting automatic correction...");
         
         // Use LeoCodeCorrector with WebSocket integration and fix history tracking
-        WebLeoCodeCorrector corrector = new WebLeoCodeCorrector(eventService, fixHistoryManager);
+        WebLeoCodeCorrector corrector = createCorrector();
         boolean success = corrector.fixCompilationErrors(sessionId, projectPath, maxAttempts);
-        
+        return finishCorrection(sessionId, projectPath, maxAttempts, success);
+    }
+    
+    private WebLeoCodeCorrector createCorrector() {
+        return new WebLeoCodeCorrector(eventService, fixHistoryManager, anthropic, correctionSettings,
+                buildService, autoFixService, fixKnowledgeService, toolMetricsService);
+    }
+    
+    private boolean finishCorrection(String sessionId, String projectPath, int maxAttempts, boolean success) {
         if (success) {
             eventService.sendProjectComplete(sessionId, projectPath);
         } else {
@@ -277,25 +451,20 @@ public class WebLeoCodeEngine {
             eventService.sendError(sessionId, "Manual intervention required after " + maxAttempts + " attempts");
         }
         
+        // Learn from what this session's attempts fixed, on the miner thread
+        fixKnowledgeService.learnSession(sessionId);
         return success;
     }
     
-    private String attemptBuild(String projectPath) {
-        Path projectDir = Paths.get(projectPath);
-        CommandRunner.CommandResult result = CommandRunner.runBash("leo build", projectDir.toFile());
-        
-        // Combine stdout and stderr for full output
-        String fullOutput = result.stdout();
-        if (!result.stderr().isEmpty()) {
-            fullOutput += "\n" + result.stderr();
+    private LeoBuildResult attemptBuild(String sessionId, String projectPath) {
+        try (BuildProgressCoalescer progress = eventService.createBuildProgressCoalescer(sessionId)) {
+            return buildService.build(Paths.get(projectPath), progress);
         }
-        
-        return fullOutput;
     }
     
-    private boolean isBuildSuccessful(String output) {
-        return output.contains("✅ Compiled") || 
-               output.contains("Successfully compiled") || 
-               (!output.contains("Error") && !output.contains("error"));
+    private LeoBuildResult compileProject(String sessionId, String projectPath) {
+        try (BuildProgressCoalescer progress = eventService.createBuildProgressCoalescer(sessionId)) {
+            return buildService.compile(Paths.get(projectPath), progress);
+        }
     }
 }
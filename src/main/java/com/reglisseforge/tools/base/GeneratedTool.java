@@ -0,0 +1,10 @@
+package com.reglisseforge.tools.base;
+
+/**
+ * Tool described at compile time: the {@code <Class>_Tools} classes generated by
+ * {@link com.reglisseforge.tools.base.processor.ToolProcessor} expose one per {@link Tool}
+ * method, with its schema and a direct call of the method.
+ *
+ * @param isStatic whether the method is static, otherwise registering it takes an instance
+ */
+public record GeneratedTool(ToolSpec spec, ToolInvoker.Dispatcher dispatcher, boolean isStatic) {}
@@ -10,4 +10,15 @@ import java.lang.annotation.Target;
 public @interface Tool {
     String name() default "";
     String description() default "";
+
+    /**
+     * Whether the tool only reads, so calls of a turn can run next to it
+     */
+    boolean readOnly() default false;
+
+    /**
+     * Name of the {@link Param} holding the file the tool reads or writes. A writer without one
+     * is assumed to touch anything and runs alone.
+     */
+    String path() default "";
 }
\ No newline at end of file
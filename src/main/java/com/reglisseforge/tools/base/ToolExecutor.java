@@ -9,20 +9,33 @@ import org.apache.logging.log4j.Logger;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class ToolExecutor {
     private static final Logger logger = LogManager.getLogger(ToolExecutor.class);
+    private static final String UNKNOWN_TOOL = "<unknown>";
     
     private final ToolRegistry registry;
     private final ObjectMapper objectMapper;
+    private final ToolMetrics metrics;
+    private final double payloadLogSampleRate;
 
     public ToolExecutor(ToolRegistry registry) {
+        this(registry, new ToolMetrics(0), 0.0);
+    }
+
+    /**
+     * @param metrics              receives the measurement of every call
+     * @param payloadLogSampleRate share of calls whose full parameters and result are logged
+     *                             at debug level
+     */
+    public ToolExecutor(ToolRegistry registry, ToolMetrics metrics, double payloadLogSampleRate) {
         this.registry = registry;
+        this.metrics = metrics;
+        this.payloadLogSampleRate = payloadLogSampleRate;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         this.objectMapper.configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, false);
@@ -30,74 +43,92 @@ public class ToolExecutor {
     }
 
     public Object executeTool(ToolUseBlock toolUse) throws Throwable {
-        String toolName = toolUse.name();
-        logger.info("Tentative d'exécution de l'outil: {}", toolName);
-        logger.debug("Paramètres reçus: {}", toolUse._input());
-        
-        ToolRegistry.ToolInfo toolInfo = registry.getTool(toolName);
-        
-        if (toolInfo == null) {
-            logger.error("Outil non trouvé: {}", toolName);
-            logger.error("Outils disponibles: {}", registry.getToolNames());
-            throw new IllegalArgumentException("Tool not found: " + toolName);
-        }
+        return executeTool(toolUse.name(), toolUse._input());
+    }
 
-        logger.info("Outil trouvé - Méthode: {}", toolInfo.getMethod().getName());
-        Object result = executeTool(toolInfo, toolUse._input());
-        logger.info("Résultat: {}", result);
-        return result;
+    /**
+     * Exécute un outil par son nom - utilisable avec les blocs tool_use standard et beta
+     */
+    public Object executeTool(String toolName, JsonValue input) throws Throwable {
+        return executeTool(null, toolName, input);
     }
 
-    public Object executeTool(ToolRegistry.ToolInfo toolInfo, JsonValue input) throws Throwable {
-        Method method = toolInfo.getMethod();
-        Object instance = toolInfo.getInstance();
-        
-        Object[] args = buildArguments(method, input);
+    /**
+     * Execute a tool by name and measure the call for the given session (null outside of one)
+     */
+    public Object executeTool(String sessionId, String toolName, JsonValue input) throws Throwable {
+        logger.debug("Tentative d'exécution de l'outil: {}", toolName);
+        boolean sampled = logger.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < payloadLogSampleRate;
+        if (sampled) {
+            logger.debug("Parameters received by {}: {}", toolName, input);
+        }
         
+        long start = System.nanoTime();
+        Object result = null;
+        boolean error = true;
         try {
-            method.setAccessible(true);
-            // Si instance est null, c'est une méthode statique
-            if (instance == null) {
-                return method.invoke(null, args);
-            } else {
-                return method.invoke(instance, args);
+            ToolRegistry.ToolInfo toolInfo = registry.getTool(toolName);
+            
+            if (toolInfo == null) {
+                logger.error("Outil non trouvé: {}", toolName);
+                logger.error("Outils disponibles: {}", registry.getToolNames());
+                throw new IllegalArgumentException("Tool not found: " + toolName);
+            }
+
+            result = executeTool(toolInfo, input);
+            error = false;
+            return result;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            String inputJson = toJson(input);
+            String output = result != null ? result.toString() : "";
+            // Names made up by the model are grouped so the measurements stay bounded
+            String measuredName = registry.hasTool(toolName) ? toolName : UNKNOWN_TOOL;
+            metrics.record(new ToolMetrics.Call(sessionId, measuredName, nanos, error,
+                    utf8Length(inputJson), inputJson.length(), utf8Length(output), output.length()));
+            if (sampled) {
+                logger.debug("Result of {} in {} µs ({} chars): {}", toolName, nanos / 1_000, output.length(), result);
             }
-        } catch (InvocationTargetException e) {
-            throw new Exception("Error executing tool: " + toolInfo.getName(), e.getCause());
-        } catch (IllegalAccessException e) {
-            throw new Exception("Cannot access tool method: " + toolInfo.getName(), e);
         }
     }
 
-    private Object[] buildArguments(Method method, JsonValue input) throws Throwable {
-        Parameter[] parameters = method.getParameters();
-        Object[] args = new Object[parameters.length];
+    public Object executeTool(ToolRegistry.ToolInfo toolInfo, JsonValue input) throws Throwable {
+        Object[] args = toolInfo.getInvoker().bind(input, this::convertValue);
         
-        @SuppressWarnings("unchecked")
-        Map<String, Object> inputMap = (Map<String, Object>) input.asObject()
-                .orElseThrow(() -> new IllegalArgumentException("Tool input must be an object"));
+        try {
+            return toolInfo.getInvoker().invoke(args);
+        } catch (Exception e) {
+            throw new Exception("Error executing tool: " + toolInfo.getName(), e);
+        }
+    }
 
-        for (int i = 0; i < parameters.length; i++) {
-            Parameter parameter = parameters[i];
-            
-            if (parameter.isAnnotationPresent(Param.class)) {
-                Param paramAnnotation = parameter.getAnnotation(Param.class);
-                String paramName = paramAnnotation.name();
-                String defaultValue = paramAnnotation.defaultValue();
-                
-                Object value = inputMap.get(paramName);
-                
-                if (value == null && !defaultValue.isEmpty()) {
-                    value = defaultValue;
-                }
-                
-                args[i] = convertValue(value, parameter.getType());
+    private String toJson(JsonValue input) {
+        try {
+            return objectMapper.writeValueAsString(input.convert(Object.class));
+        } catch (Exception e) {
+            return String.valueOf(input);
+        }
+    }
+
+    /**
+     * Size in UTF-8 without encoding the string
+     */
+    private static long utf8Length(String value) {
+        long bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
             } else {
-                args[i] = null;
+                bytes += 3;
             }
         }
-        
-        return args;
+        return bytes;
     }
 
     private Object convertValue(Object value, Class<?> targetType) {
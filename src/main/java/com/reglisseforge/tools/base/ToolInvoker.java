@@ -0,0 +1,203 @@
+package com.reglisseforge.tools.base;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.anthropic.core.JsonValue;
+
+/**
+ * Call path of one tool, resolved once when the tool is registered: a dispatcher taking the
+ * arguments as an array, and for each parameter a binder reading its value straight from the
+ * JSON input. The dispatcher is a direct call generated by the tool processor, or a method
+ * handle for tools registered by reflection.
+ *
+ * Strings, numbers and booleans are converted here; other parameter types (lists, maps, objects)
+ * are handed to the caller's converter as plain Java values.
+ */
+public final class ToolInvoker {
+
+    /**
+     * Binds one method parameter
+     *
+     * @param name         JSON property, null for a parameter without {@link Param}, which is always null
+     * @param defaultValue value when the property is absent: converted for simple types, the raw
+     *                     default string otherwise, null without a default
+     * @param converter    JSON to parameter value for simple types, null for the others
+     */
+    private record Binder(String name, Class<?> type, Object defaultValue, Function<JsonValue, Object> converter) {}
+
+    /** Whether a value is JSON null or missing */
+    private static final JsonValue.Visitor<Boolean> IS_NULL = new JsonValue.Visitor<>() {
+        @Override
+        public Boolean visitNull() { return true; }
+
+        @Override
+        public Boolean visitMissing() { return true; }
+
+        @Override
+        public Boolean visitDefault() { return false; }
+    };
+
+    /**
+     * Calls the tool method
+     */
+    @FunctionalInterface
+    public interface Dispatcher {
+        /**
+         * @param instance receiver of an instance method, ignored for a static one
+         */
+        Object call(Object instance, Object[] args) throws Throwable;
+    }
+
+    private final Dispatcher dispatcher;
+    private final Object instance;
+    private final Binder[] binders;
+
+    private ToolInvoker(Dispatcher dispatcher, Object instance, Binder[] binders) {
+        this.dispatcher = dispatcher;
+        this.instance = instance;
+        this.binders = binders;
+    }
+
+    /**
+     * Call path of a described tool
+     *
+     * @param instance receiver of an instance method, null for a static one
+     */
+    public static ToolInvoker of(ToolSpec spec, Dispatcher dispatcher, Object instance) {
+        List<ToolSpec.ParamSpec> params = spec.params();
+        Binder[] binders = new Binder[params.size()];
+        for (int i = 0; i < binders.length; i++) {
+            binders[i] = binder(params.get(i));
+        }
+        return new ToolInvoker(dispatcher, instance, binders);
+    }
+
+    /**
+     * Resolve the call path of a tool method by reflection
+     *
+     * @param instance receiver of an instance method, null for a static one
+     */
+    public static ToolInvoker of(ToolSpec spec, Method method, Object instance) {
+        MethodHandle handle;
+        try {
+            if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                method.setAccessible(true);
+            }
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access tool method: " + method, e);
+        }
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(instance);
+        }
+        MethodHandle spread = handle.asSpreader(Object[].class, method.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        return of(spec, (ignored, args) -> spread.invokeExact(args), null);
+    }
+
+    /**
+     * Arguments of a call
+     *
+     * @param fallback converts the plain value (or default string) of a parameter that is not a simple type
+     */
+    public Object[] bind(JsonValue input, BiFunction<Object, Class<?>, Object> fallback) {
+        Map<String, JsonValue> properties = input.asObject()
+                .orElseThrow(() -> new IllegalArgumentException("Tool input must be an object"));
+
+        Object[] args = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            Binder binder = binders[i];
+            if (binder.name() == null) {
+                continue;
+            }
+            JsonValue value = properties.get(binder.name());
+            Object arg;
+            if (isAbsent(value)) {
+                arg = binder.converter() != null || binder.defaultValue() == null
+                        ? binder.defaultValue()
+                        : fallback.apply(binder.defaultValue(), binder.type());
+            } else if (binder.converter() != null) {
+                arg = convert(binder, value);
+            } else {
+                arg = fallback.apply(value.convert(Object.class), binder.type());
+            }
+            if (arg == null && binder.type().isPrimitive()) {
+                throw new IllegalArgumentException("Missing value for parameter: " + binder.name());
+            }
+            args[i] = arg;
+        }
+        return args;
+    }
+
+    /**
+     * Call the tool; exceptions it throws are propagated as is
+     */
+    public Object invoke(Object[] args) throws Throwable {
+        return dispatcher.call(instance, args);
+    }
+
+    private static Binder binder(ToolSpec.ParamSpec param) {
+        Class<?> type = param.type();
+        if (param.name() == null) {
+            return new Binder(null, type, null, null);
+        }
+        Function<JsonValue, Object> converter = converter(type);
+        Object defaultValue = null;
+        if (!param.defaultValue().isEmpty()) {
+            defaultValue = converter != null
+                    ? converter.apply(JsonValue.from(param.defaultValue()))
+                    : param.defaultValue();
+        }
+        return new Binder(param.name(), type, defaultValue, converter);
+    }
+
+    /**
+     * Converter of a simple parameter type, null for the others
+     */
+    private static Function<JsonValue, Object> converter(Class<?> type) {
+        if (type == String.class) {
+            return ToolInvoker::text;
+        } else if (type == int.class || type == Integer.class) {
+            return value -> value.asNumber().map(Number::intValue).orElseGet(() -> Integer.parseInt(text(value).trim()));
+        } else if (type == long.class || type == Long.class) {
+            return value -> value.asNumber().map(Number::longValue).orElseGet(() -> Long.parseLong(text(value).trim()));
+        } else if (type == double.class || type == Double.class) {
+            return value -> value.asNumber().map(Number::doubleValue).orElseGet(() -> Double.parseDouble(text(value).trim()));
+        } else if (type == float.class || type == Float.class) {
+            return value -> value.asNumber().map(Number::floatValue).orElseGet(() -> Float.parseFloat(text(value).trim()));
+        } else if (type == boolean.class || type == Boolean.class) {
+            return value -> value.asBoolean().orElseGet(() -> Boolean.parseBoolean(text(value).trim()));
+        } else if (type == Object.class) {
+            return value -> value.convert(Object.class);
+        }
+        return null;
+    }
+
+    private static Object convert(Binder binder, JsonValue value) {
+        try {
+            return binder.converter().apply(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cannot convert value '" + text(value) + "' of parameter "
+                    + binder.name() + " to " + binder.type().getSimpleName(), e);
+        }
+    }
+
+    private static String text(JsonValue value) {
+        return value.asString()
+                .or(() -> value.asNumber().map(Number::toString))
+                .or(() -> value.asBoolean().map(String::valueOf))
+                .orElseGet(() -> String.valueOf(value.convert(Object.class)));
+    }
+
+    private static boolean isAbsent(JsonValue value) {
+        return value == null || value.accept(IS_NULL);
+    }
+}
@@ -0,0 +1,181 @@
+package com.reglisseforge.tools.base;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measurements of tool calls, per tool and per session: call count, errors, latency (fixed-bucket
+ * histogram) and size of inputs and outputs in bytes and estimated tokens.
+ *
+ * Thread-safe and lock-free on the recording path, except for looking up the session; only the
+ * maxSessions most recent sessions are kept.
+ */
+public class ToolMetrics {
+
+    /** Upper bounds of the latency buckets in microseconds; the last bucket is unbounded */
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000
+    };
+
+    /** Same heuristic as context compaction: ~4 characters per token */
+    private static final int CHARS_PER_TOKEN = 4;
+
+    /**
+     * Cumulative measurements of a set of calls
+     */
+    public static class Stats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder inputBytes = new LongAdder();
+        private final LongAdder outputBytes = new LongAdder();
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length + 1];
+
+        Stats() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(Call call) {
+            calls.increment();
+            if (call.error()) {
+                errors.increment();
+            }
+            totalNanos.add(call.nanos());
+            maxNanos.accumulate(call.nanos());
+            inputBytes.add(call.inputBytes());
+            outputBytes.add(call.outputBytes());
+            inputTokens.add(estimateTokens(call.inputChars()));
+            outputTokens.add(estimateTokens(call.outputChars()));
+            buckets[bucketOf(TimeUnit.NANOSECONDS.toMicros(call.nanos()))].increment();
+        }
+
+        public long getCalls() { return calls.sum(); }
+
+        public long getErrors() { return errors.sum(); }
+
+        public double getErrorRate() {
+            long count = calls.sum();
+            return count > 0 ? (double) errors.sum() / count : 0.0;
+        }
+
+        public double getAverageMillis() {
+            long count = calls.sum();
+            return count > 0 ? totalNanos.sum() / 1_000_000.0 / count : 0.0;
+        }
+
+        public double getMaxMillis() { return maxNanos.get() / 1_000_000.0; }
+
+        /**
+         * Upper bound of the bucket holding quantile q, in milliseconds; for the last bucket,
+         * the highest latency observed
+         */
+        public double percentileMillis(double q) {
+            long count = calls.sum();
+            if (count == 0) {
+                return 0.0;
+            }
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return Math.min(BUCKET_BOUNDS_MICROS[i] / 1_000.0, getMaxMillis());
+                }
+            }
+            return getMaxMillis();
+        }
+
+        /**
+         * Call count per bucket, keyed by its upper bound in milliseconds ("+Inf" for the last)
+         */
+        public Map<String, Long> getLatencyHistogram() {
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+                histogram.put(String.valueOf(BUCKET_BOUNDS_MICROS[i] / 1_000.0), buckets[i].sum());
+            }
+            histogram.put("+Inf", buckets[BUCKET_BOUNDS_MICROS.length].sum());
+            return histogram;
+        }
+
+        public long getInputBytes() { return inputBytes.sum(); }
+
+        public long getOutputBytes() { return outputBytes.sum(); }
+
+        public long getInputTokens() { return inputTokens.sum(); }
+
+        public long getOutputTokens() { return outputTokens.sum(); }
+    }
+
+    /**
+     * One measured call
+     *
+     * @param sessionId session of the call, null outside of a session
+     */
+    public record Call(String sessionId, String tool, long nanos, boolean error,
+                       long inputBytes, long inputChars, long outputBytes, long outputChars) {}
+
+    private final Map<String, Stats> byTool = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Stats>> bySession;
+
+    public ToolMetrics(int maxSessions) {
+        this.bySession = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Stats>> eldest) {
+                return size() > maxSessions;
+            }
+        });
+    }
+
+    public void record(Call call) {
+        byTool.computeIfAbsent(call.tool(), tool -> new Stats()).record(call);
+        if (call.sessionId() != null) {
+            bySession.computeIfAbsent(call.sessionId(), session -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(call.tool(), tool -> new Stats())
+                    .record(call);
+        }
+    }
+
+    /**
+     * Measurements per tool, sorted by name
+     */
+    public Map<String, Stats> getTools() {
+        return new TreeMap<>(byTool);
+    }
+
+    /**
+     * Measurements per tool of a session, empty when it is unknown or too old
+     */
+    public Map<String, Stats> getSession(String sessionId) {
+        Map<String, Stats> session = bySession.get(sessionId);
+        return session != null ? new TreeMap<>(session) : Map.of();
+    }
+
+    public int getSessionsTracked() {
+        return bySession.size();
+    }
+
+    private static long estimateTokens(long chars) {
+        return (chars + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private static int bucketOf(long micros) {
+        for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+            if (micros <= BUCKET_BOUNDS_MICROS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MICROS.length;
+    }
+}
@@ -1,13 +1,19 @@
 package com.reglisseforge.tools.base;
 
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
@@ -15,38 +21,84 @@ import org.apache.logging.log4j.Logger;
 
 import com.anthropic.core.JsonValue;
 import com.anthropic.models.messages.Tool.InputSchema;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import lombok.Data;
 
 public class ToolRegistry {
     private static final Logger logger = LogManager.getLogger(ToolRegistry.class);
     
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    
     private final Map<String, ToolInfo> tools = new ConcurrentHashMap<>();
-
+    private volatile Definitions definitions;
+
+    /**
+     * What one tool call touches
+     *
+     * @param path normalized absolute path of the file it reads or writes, null when unknown
+     */
+    public record Access(boolean write, String path) {
+        
+        /**
+         * Whether the two calls must run in their original order: one of them writes, and
+         * they touch the same file or either one's file is unknown
+         */
+        public boolean conflictsWith(Access other) {
+            if (!write && !other.write) {
+                return false;
+            }
+            return path == null || other.path == null || path.equals(other.path);
+        }
+    }
+    
     @Data
     public static class ToolInfo {
         private final String name;
         private final String description;
-        private final Method method;
+        private final ToolSpec spec;
         private final Object instance;
         private final InputSchema schema;
+        /** Call path resolved at registration */
+        private final ToolInvoker invoker;
+    }
+
+    /**
+     * The definitions as sent to the model, sorted by name and serialized canonically: as long
+     * as the tools do not change, the request prefix (and so the prompt cache) stays identical.
+     *
+     * @param tools tools sorted by name
+     * @param json  definitions as canonical JSON (sorted keys)
+     * @param hash  hex SHA-256 of json
+     */
+    public record Definitions(List<ToolInfo> tools, String json, String hash) {}
+
+    /**
+     * Register a static tool generated at compile time, without reflection
+     */
+    public void register(GeneratedTool tool) {
+        register(tool, null);
+    }
+    
+    /**
+     * Register a tool generated at compile time, without reflection
+     *
+     * @param instance receiver of an instance method, null for a static method
+     */
+    public void register(GeneratedTool tool, Object instance) {
+        if (!tool.isStatic() && instance == null) {
+            throw new IllegalArgumentException("Tool " + tool.spec().name() + " needs an instance");
+        }
+        register(tool.spec(), ToolInvoker.of(tool.spec(), tool.dispatcher(), instance), instance);
     }
 
     public void registerTool(Object instance) {
-        Class<?> clazz = instance.getClass();
-        
-        for (Method method : clazz.getDeclaredMethods()) {
+        for (Method method : instance.getClass().getDeclaredMethods()) {
             if (method.isAnnotationPresent(Tool.class)) {
-                Tool toolAnnotation = method.getAnnotation(Tool.class);
-                
-                String toolName = toolAnnotation.name().isEmpty() ? 
-                    method.getName() : toolAnnotation.name();
-                String description = toolAnnotation.description();
-                
-                InputSchema schema = buildSchema(method);
-                
-                ToolInfo toolInfo = new ToolInfo(toolName, description, method, instance, schema);
-                tools.put(toolName, toolInfo);
+                register(method, instance);
             }
         }
     }
@@ -55,16 +107,7 @@ public class ToolRegistry {
         try {
             for (Method method : clazz.getDeclaredMethods()) {
                 if (method.getName().equals(methodName) && method.isAnnotationPresent(Tool.class)) {
-                    Tool toolAnnotation = method.getAnnotation(Tool.class);
-                    
-                    String toolName = toolAnnotation.name().isEmpty() ? 
-                        method.getName() : toolAnnotation.name();
-                    String description = toolAnnotation.description();
-                    
-                    InputSchema schema = buildSchema(method);
-                    
-                    ToolInfo toolInfo = new ToolInfo(toolName, description, method, null, schema);
-                    tools.put(toolName, toolInfo);
+                    register(method, null);
                     break;
                 }
             }
@@ -75,91 +118,108 @@ public class ToolRegistry {
     
     public void registerMethod(Method method, Object instance) {
         if (method.isAnnotationPresent(Tool.class)) {
-            Tool toolAnnotation = method.getAnnotation(Tool.class);
-            
-            String toolName = toolAnnotation.name().isEmpty() ? 
-                method.getName() : toolAnnotation.name();
-            String description = toolAnnotation.description();
-            
-            InputSchema schema = buildSchema(method);
-            
-            ToolInfo toolInfo = new ToolInfo(toolName, description, method, instance, schema);
-            tools.put(toolName, toolInfo);
+            register(method, instance);
         }
     }
 
-    private InputSchema buildSchema(Method method) {
-        Map<String, Object> properties = new HashMap<>();
-        List<String> required = new ArrayList<>();
-
-        for (Parameter parameter : method.getParameters()) {
-            if (parameter.isAnnotationPresent(Param.class)) {
-                Param paramAnnotation = parameter.getAnnotation(Param.class);
-                
-                String paramName = paramAnnotation.name();
-                String paramDescription = paramAnnotation.description();
-                boolean isRequired = paramAnnotation.required();
-                String defaultValue = paramAnnotation.defaultValue();
+    private void register(Method method, Object instance) {
+        ToolSpec spec = ToolSpec.of(method);
+        register(spec, ToolInvoker.of(spec, method, instance), instance);
+    }
 
-                Map<String, Object> paramSchema = new HashMap<>();
-                paramSchema.put("type", getJsonType(parameter.getType()));
-                if (!paramDescription.isEmpty()) {
-                    paramSchema.put("description", paramDescription);
-                }
-                if (!defaultValue.isEmpty()) {
-                    paramSchema.put("default", defaultValue);
-                }
+    private void register(ToolSpec spec, ToolInvoker invoker, Object instance) {
+        InputSchema schema = InputSchema.builder()
+                .properties(JsonValue.from(spec.inputSchema().get("properties")))
+                .putAdditionalProperty("required", JsonValue.from(spec.inputSchema().get("required")))
+                .build();
+        
+        tools.put(spec.name(), new ToolInfo(spec.name(), spec.description(), spec, instance, schema, invoker));
+        definitions = null;
+    }
 
-                properties.put(paramName, paramSchema);
-                
-                if (isRequired) {
-                    required.add(paramName);
+    /**
+     * Current definitions, rebuilt only after a tool was registered
+     */
+    public Definitions getDefinitions() {
+        Definitions current = definitions;
+        if (current == null) {
+            synchronized (this) {
+                current = definitions;
+                if (current == null) {
+                    current = buildDefinitions();
+                    definitions = current;
                 }
             }
         }
-
-        return InputSchema.builder()
-                .properties(JsonValue.from(properties))
-                .putAdditionalProperty("required", JsonValue.from(required))
-                .build();
+        return current;
     }
 
-    private String getJsonType(Class<?> type) {
-        // Primitive types and wrappers
-        if (type == String.class) return "string";
-        if (type == int.class || type == Integer.class) return "integer";
-        if (type == long.class || type == Long.class) return "integer";
-        if (type == double.class || type == Double.class) return "number";
-        if (type == float.class || type == Float.class) return "number";
-        if (type == boolean.class || type == Boolean.class) return "boolean";
-        
-        // Collections
-        if (List.class.isAssignableFrom(type)) return "array";
-        if (type.isArray()) return "array";
-        
-        // Map and complex objects
-        if (Map.class.isAssignableFrom(type)) return "object";
-        
-        // Other complex objects (will be treated as JSON string)
-        if (!type.isPrimitive() && type != String.class) {
-            logger.warn("Complex type detected: {} - will be treated as 'object'. Consider using JSON String.", 
-                       type.getSimpleName());
-            return "object";
+    private Definitions buildDefinitions() {
+        List<ToolInfo> sorted = tools.values().stream()
+                .sorted(Comparator.comparing(ToolInfo::getName))
+                .toList();
+        List<Map<String, Object>> payload = new ArrayList<>(sorted.size());
+        for (ToolInfo info : sorted) {
+            Map<String, Object> definition = new TreeMap<>();
+            definition.put("name", info.getName());
+            definition.put("description", info.getDescription());
+            definition.put("input_schema", info.getSpec().inputSchema());
+            payload.add(definition);
+        }
+        try {
+            String json = CANONICAL_MAPPER.writeValueAsString(payload);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            Definitions built = new Definitions(sorted, json, HexFormat.of().formatHex(digest));
+            logger.info("Tool definitions {}: hash {}", built.tools().stream().map(ToolInfo::getName).toList(),
+                    built.hash());
+            return built;
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot build tool definitions", e);
         }
-        
-        return "string"; // Default for everything else
     }
 
     public ToolInfo getTool(String name) {
         return tools.get(name);
     }
+    
+    /**
+     * Access of a call as the tool declares it; unknown tools are writers of unknown files
+     */
+    public Access accessOf(String name, JsonValue input) {
+        ToolInfo info = tools.get(name);
+        if (info == null) {
+            return new Access(true, null);
+        }
+        ToolSpec tool = info.getSpec();
+        String path = null;
+        if (!tool.path().isEmpty()) {
+            path = input.asObject()
+                    .map(properties -> properties.get(tool.path()))
+                    .flatMap(JsonValue::asString)
+                    .map(ToolRegistry::normalizePath)
+                    .orElse(null);
+        }
+        return new Access(!tool.readOnly(), path);
+    }
+    
+    private static String normalizePath(String value) {
+        try {
+            return Paths.get(value).toAbsolutePath().normalize().toString();
+        } catch (InvalidPathException e) {
+            // The tool will fail on its own, treat it as an unknown file
+            return null;
+        }
+    }
 
     public Set<String> getToolNames() {
         return tools.keySet();
     }
 
+    /**
+     * Tools sorted by name
+     */
     public Collection<ToolInfo> getAllTools() {
-        return tools.values();
+        return getDefinitions().tools();
     }
 
     public boolean hasTool(String name) {
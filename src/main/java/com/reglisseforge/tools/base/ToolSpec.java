@@ -0,0 +1,123 @@
+package com.reglisseforge.tools.base;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Description of a tool taken from its {@link Tool} and {@link Param} annotations: generated at
+ * compile time by {@link com.reglisseforge.tools.base.processor.ToolProcessor}, or read by
+ * reflection for classes that were not processed.
+ *
+ * @param params      one per method parameter, in order
+ * @param inputSchema JSON schema of the parameters, properties sorted by name
+ */
+public record ToolSpec(String name, String description, boolean readOnly, String path,
+                       List<ParamSpec> params, Map<String, Object> inputSchema) {
+
+    private static final Logger logger = LogManager.getLogger(ToolSpec.class);
+
+    /**
+     * One parameter of the method
+     *
+     * @param name         JSON property, null for a parameter without {@link Param}
+     * @param jsonType     JSON type declared in the schema
+     * @param defaultValue default value, empty when there is none
+     */
+    public record ParamSpec(String name, Class<?> type, String jsonType, String description,
+                            boolean required, String defaultValue) {
+
+        /**
+         * Parameter without {@link Param}, always null in the call
+         */
+        public static ParamSpec unbound(Class<?> type) {
+            return new ParamSpec(null, type, null, "", false, "");
+        }
+    }
+
+    public static ToolSpec of(String name, String description, boolean readOnly, String path, List<ParamSpec> params) {
+        return new ToolSpec(name, description, readOnly, path, List.copyOf(params), schemaOf(params));
+    }
+
+    /**
+     * Description of an annotated method, read by reflection
+     */
+    public static ToolSpec of(Method method) {
+        Tool tool = method.getAnnotation(Tool.class);
+        String name = tool.name().isEmpty() ? method.getName() : tool.name();
+
+        List<ParamSpec> params = new ArrayList<>();
+        for (Parameter parameter : method.getParameters()) {
+            Param param = parameter.getAnnotation(Param.class);
+            params.add(param == null
+                    ? ParamSpec.unbound(parameter.getType())
+                    : new ParamSpec(param.name(), parameter.getType(), getJsonType(parameter.getType()),
+                            param.description(), param.required(), param.defaultValue()));
+        }
+        return of(name, tool.description(), tool.readOnly(), tool.path(), params);
+    }
+
+    private static Map<String, Object> schemaOf(List<ParamSpec> params) {
+        Map<String, Object> properties = new TreeMap<>();
+        List<String> required = new ArrayList<>();
+
+        for (ParamSpec param : params) {
+            if (param.name() == null) {
+                continue;
+            }
+            Map<String, Object> paramSchema = new TreeMap<>();
+            paramSchema.put("type", param.jsonType());
+            if (!param.description().isEmpty()) {
+                paramSchema.put("description", param.description());
+            }
+            if (!param.defaultValue().isEmpty()) {
+                paramSchema.put("default", param.defaultValue());
+            }
+
+            properties.put(param.name(), Collections.unmodifiableMap(paramSchema));
+
+            if (param.required()) {
+                required.add(param.name());
+            }
+        }
+
+        Map<String, Object> schema = new TreeMap<>();
+        schema.put("type", "object");
+        schema.put("properties", Collections.unmodifiableMap(properties));
+        schema.put("required", List.copyOf(required));
+        return Collections.unmodifiableMap(schema);
+    }
+
+    private static String getJsonType(Class<?> type) {
+        // Primitive types and wrappers
+        if (type == String.class) return "string";
+        if (type == int.class || type == Integer.class) return "integer";
+        if (type == long.class || type == Long.class) return "integer";
+        if (type == double.class || type == Double.class) return "number";
+        if (type == float.class || type == Float.class) return "number";
+        if (type == boolean.class || type == Boolean.class) return "boolean";
+
+        // Collections
+        if (List.class.isAssignableFrom(type)) return "array";
+        if (type.isArray()) return "array";
+
+        // Map and complex objects
+        if (Map.class.isAssignableFrom(type)) return "object";
+
+        // Other complex objects (will be treated as JSON string)
+        if (!type.isPrimitive() && type != String.class) {
+            logger.warn("Complex type detected: {} - will be treated as 'object'. Consider using JSON String.",
+                       type.getSimpleName());
+            return "object";
+        }
+
+        return "string"; // Default for everything else
+    }
+}
@@ -0,0 +1,292 @@
+package com.reglisseforge.tools.base.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import com.reglisseforge.tools.base.Param;
+import com.reglisseforge.tools.base.Tool;
+
+/**
+ * Generates at compile time, for each class with {@link Tool} methods, a {@code <Class>_Tools}
+ * class exposing one {@link com.reglisseforge.tools.base.GeneratedTool} per method: its
+ * description and schema as constants, and a direct call of the method. Registering these tools
+ * involves no reflection, which also suits AOT and native-image builds.
+ *
+ * Declaration errors (private method, non-static nested class, a {@code path} naming no
+ * {@link Param}, duplicate name) are reported at compile time.
+ */
+@SupportedAnnotationTypes("com.reglisseforge.tools.base.Tool")
+public class ToolProcessor extends AbstractProcessor {
+
+    private static final String SUFFIX = "_Tools";
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<TypeElement, List<ExecutableElement>> toolsByType = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Tool.class)) {
+            if (element.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            toolsByType.computeIfAbsent((TypeElement) element.getEnclosingElement(), type -> new ArrayList<>())
+                    .add((ExecutableElement) element);
+        }
+
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : toolsByType.entrySet()) {
+            TypeElement type = entry.getKey();
+            if (generated.add(type.getQualifiedName().toString()) && isValid(type, entry.getValue())) {
+                write(type, entry.getValue());
+            }
+        }
+        return false;
+    }
+
+    private boolean isValid(TypeElement type, List<ExecutableElement> methods) {
+        boolean valid = true;
+        if (type.getModifiers().contains(Modifier.PRIVATE)
+                || (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC))
+                || type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            error(type, "@Tool methods must be declared in a top-level or static nested, non-private class");
+            valid = false;
+        }
+
+        Set<String> names = new HashSet<>();
+        Set<String> constants = new HashSet<>(Set.of("ALL"));
+        for (ExecutableElement method : methods) {
+            Tool tool = method.getAnnotation(Tool.class);
+            String name = toolName(method);
+            if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                error(method, "@Tool method must not be private");
+                valid = false;
+            }
+            if (!names.add(name) || !constants.add(constantName(name))) {
+                error(method, "Duplicate tool name: " + name);
+                valid = false;
+            }
+            if (!tool.path().isEmpty() && method.getParameters().stream()
+                    .map(parameter -> parameter.getAnnotation(Param.class))
+                    .noneMatch(param -> param != null && param.name().equals(tool.path()))) {
+                error(method, "@Tool path '" + tool.path() + "' does not name a @Param of the method");
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    private void write(TypeElement type, List<ExecutableElement> methods) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String className = generatedName(type);
+        String typeName = type.getQualifiedName().toString();
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import java.util.List;\n\n")
+                .append("import javax.annotation.processing.Generated;\n\n")
+                .append("import com.reglisseforge.tools.base.GeneratedTool;\n")
+                .append("import com.reglisseforge.tools.base.ToolSpec;\n\n")
+                .append("/**\n * Tools of {@link ").append(typeName).append("}, generated from its {@code @Tool} methods\n */\n")
+                .append("@Generated(\"").append(ToolProcessor.class.getName()).append("\")\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(className).append(" {\n");
+
+        List<String> constants = new ArrayList<>();
+        for (ExecutableElement method : methods) {
+            String constant = constantName(toolName(method));
+            constants.add(constant);
+            appendTool(source, typeName, method, constant);
+        }
+
+        source.append("\n    /** All tools of the class, in declaration order */\n")
+                .append("    public static final List<GeneratedTool> ALL = List.of(")
+                .append(String.join(", ", constants)).append(");\n\n")
+                .append("    private ").append(className).append("() {}\n")
+                .append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Cannot write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private void appendTool(StringBuilder source, String typeName, ExecutableElement method, String constant) {
+        Tool tool = method.getAnnotation(Tool.class);
+        boolean isStatic = method.getModifiers().contains(Modifier.STATIC);
+
+        source.append("\n    public static final GeneratedTool ").append(constant).append(" = new GeneratedTool(\n")
+                .append("            ToolSpec.of(").append(literal(toolName(method))).append(", ")
+                .append(literal(tool.description())).append(", ").append(tool.readOnly()).append(", ")
+                .append(literal(tool.path())).append(", List.of(");
+
+        List<String> arguments = new ArrayList<>();
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            TypeMirror erasure = processingEnv.getTypeUtils().erasure(parameter.asType());
+            Param param = parameter.getAnnotation(Param.class);
+
+            source.append(i == 0 ? "\n" : ",\n").append("                    ");
+            if (param == null) {
+                source.append("ToolSpec.ParamSpec.unbound(").append(erasure).append(".class)");
+            } else {
+                source.append("new ToolSpec.ParamSpec(").append(literal(param.name())).append(", ")
+                        .append(erasure).append(".class, ").append(literal(jsonType(parameter))).append(", ")
+                        .append(literal(param.description())).append(", ").append(param.required()).append(", ")
+                        .append(literal(param.defaultValue())).append(")");
+            }
+            arguments.add("(" + boxed(erasure) + ") args[" + i + "]");
+        }
+        source.append(")),\n");
+
+        String receiver = isStatic ? typeName : "((" + typeName + ") instance)";
+        String call = receiver + "." + method.getSimpleName() + "(" + String.join(", ", arguments) + ")";
+        source.append("            (instance, args) -> ");
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            source.append("{\n                ").append(call).append(";\n                return null;\n            }");
+        } else {
+            source.append(call);
+        }
+        source.append(",\n            ").append(isStatic).append(");\n");
+    }
+
+    /**
+     * JSON type of a parameter, as {@code ToolSpec} derives it by reflection
+     */
+    private String jsonType(VariableElement parameter) {
+        TypeMirror type = parameter.asType();
+        if (type.getKind().isPrimitive()) {
+            return switch (type.getKind()) {
+                case INT, LONG -> "integer";
+                case DOUBLE, FLOAT -> "number";
+                case BOOLEAN -> "boolean";
+                default -> "string";
+            };
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return "array";
+        }
+        String simple = switch (processingEnv.getTypeUtils().erasure(type).toString()) {
+            case "java.lang.String" -> "string";
+            case "java.lang.Integer", "java.lang.Long" -> "integer";
+            case "java.lang.Double", "java.lang.Float" -> "number";
+            case "java.lang.Boolean" -> "boolean";
+            default -> null;
+        };
+        if (simple != null) {
+            return simple;
+        }
+        if (isSubtype(type, "java.util.List")) {
+            return "array";
+        }
+        if (!isSubtype(type, "java.util.Map")) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Complex type " + type + " will be treated as 'object'. Consider using JSON String.", parameter);
+        }
+        return "object";
+    }
+
+    private boolean isSubtype(TypeMirror type, String supertype) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(supertype);
+        return element != null && processingEnv.getTypeUtils().isAssignable(
+                processingEnv.getTypeUtils().erasure(type), processingEnv.getTypeUtils().erasure(element.asType()));
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type)
+                    .getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private static String toolName(ExecutableElement method) {
+        String name = method.getAnnotation(Tool.class).name();
+        return name.isEmpty() ? method.getSimpleName().toString() : name;
+    }
+
+    private static String generatedName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element outer = type.getEnclosingElement(); outer instanceof TypeElement; outer = outer.getEnclosingElement()) {
+            name.insert(0, outer.getSimpleName() + "_");
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    /**
+     * READ_FILE_LINES for read_file_lines or readFileLines
+     */
+    private static String constantName(String toolName) {
+        StringBuilder constant = new StringBuilder();
+        for (int i = 0; i < toolName.length(); i++) {
+            char c = toolName.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(toolName.charAt(i - 1))) {
+                constant.append('_');
+            }
+            constant.append(Character.isLetterOrDigit(c) && c < 128 ? Character.toUpperCase(c) : '_');
+        }
+        if (constant.isEmpty() || Character.isDigit(constant.charAt(0))) {
+            constant.insert(0, '_');
+        }
+        return constant.toString();
+    }
+
+    /**
+     * Java literal of a string, in ASCII so as not to depend on the source encoding
+     */
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> {
+                    if (c < 0x20 || c > 0x7e) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+                }
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -12,7 +12,7 @@ public class WeatherTool {
 
 	private static final ObjectMapper JSON = new ObjectMapper();
 
-	@Tool(name = "get_weather", description = "Get current mocked weather for a given city.")
+	@Tool(name = "get_weather", readOnly = true, description = "Get current mocked weather for a given city.")
 	public String getWeatherByCity(
 			@Param(name = "city", description = "City name", required = true) String city,
 			@Param(name = "unit", description = "Temperature unit: 'C' or 'F'", required = false, defaultValue = "C") String unit
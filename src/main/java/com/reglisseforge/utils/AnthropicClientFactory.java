@@ -1,5 +1,7 @@
 package com.reglisseforge.utils;
 
+import java.time.Duration;
+
 import com.anthropic.client.AnthropicClient;
 import com.anthropic.client.okhttp.AnthropicOkHttpClient;
 
@@ -26,6 +28,15 @@ public final class AnthropicClientFactory {
                 .build();
     }
 
+    /** Creates a client with explicit request timeout and retry budget, for long-lived shared use. */
+    public static AnthropicClient create(Duration timeout, int maxRetries) {
+        return AnthropicOkHttpClient.builder()
+                .apiKey(resolveApiKey())
+                .timeout(timeout)
+                .maxRetries(maxRetries)
+                .build();
+    }
+
     /** Returns the API key from env/system properties, or falls back to the default embedded key. */
     public static String resolveApiKey() {
         String key = System.getenv("ANTHROPIC_API_KEY");
@@ -1,67 +1,263 @@
 package com.reglisseforge.utils;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
 import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.ProcessDestroyer;
 import org.apache.commons.exec.PumpStreamHandler;
+import org.apache.commons.exec.TimeoutObserver;
+import org.apache.commons.exec.Watchdog;
 
 public final class CommandRunner {
 
+    /** Deadline of commands run without an explicit timeout */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
+
+    /** Output kept per stream; the oldest lines are dropped beyond it */
+    public static final int DEFAULT_MAX_RETAINED_CHARS = 256 * 1024;
+
+    private static final LongAdder commandsRun = new LongAdder();
+    private static final LongAdder commandsTimedOut = new LongAdder();
+    private static final Map<String, LongAdder> timeoutsByCommand = new ConcurrentHashMap<>();
+
     private CommandRunner() {}
 
-    public record CommandResult(int exitCode, String stdout, String stderr) {}
+    /**
+     * @param timedOut the command exceeded its deadline and its process tree was killed
+     */
+    public record CommandResult(int exitCode, String stdout, String stderr, boolean timedOut) {
+
+        public CommandResult(int exitCode, String stdout, String stderr) {
+            this(exitCode, stdout, stderr, false);
+        }
+    }
+
+    public enum Channel { STDOUT, STDERR }
+
+    /**
+     * Receives output lines as the process prints them, on the stream pumper threads
+     */
+    @FunctionalInterface
+    public interface LineListener {
+        void onLine(Channel channel, String line);
+    }
 
     public static CommandResult run(String command, File workingDir) {
-        try {
-            DefaultExecutor.Builder<?> builder = DefaultExecutor.builder();
-            if (workingDir != null) {
-                builder.setWorkingDirectory(workingDir);
-            }
-            DefaultExecutor executor = builder.get();
-            executor.setExitValues(null); 
+        return runStreaming(command, workingDir, null);
+    }
 
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            ByteArrayOutputStream err = new ByteArrayOutputStream();
-            executor.setStreamHandler(new PumpStreamHandler(out, err));
+    public static CommandResult runBash(String bashCommand, File workingDir) {
+        return runBash(bashCommand, workingDir, DEFAULT_TIMEOUT);
+    }
 
-            int code = executor.execute(CommandLine.parse(command));
-            return new CommandResult(code, out.toString(), err.toString());
-        } catch (ExecuteException ee) {
-            return new CommandResult(ee.getExitValue(), "", ee.getMessage());
-        } catch (Exception e) {
+    public static CommandResult runBash(String bashCommand, File workingDir, Duration timeout) {
+        return runBashStreaming(bashCommand, workingDir, timeout, null);
+    }
+
+    /**
+     * Run a command, delivering each stdout/stderr line to the listener as it arrives
+     */
+    public static CommandResult runStreaming(String command, File workingDir, LineListener listener) {
+        return execute(command, CommandLine.parse(command), workingDir, DEFAULT_TIMEOUT, listener);
+    }
+
+    public static CommandResult runBashStreaming(String bashCommand, File workingDir, LineListener listener) {
+        return runBashStreaming(bashCommand, workingDir, DEFAULT_TIMEOUT, listener);
+    }
+
+    /**
+     * Run a command through {@code bash -lc}, delivering each stdout/stderr line to the listener as it arrives.
+     * Past the timeout, bash and every process it started are killed.
+     */
+    public static CommandResult runBashStreaming(String bashCommand, File workingDir, Duration timeout, LineListener listener) {
+        // Use CommandLine.addArgument to properly handle quotes
+        CommandLine cmdLine = new CommandLine("bash");
+        cmdLine.addArgument("-lc");
+        cmdLine.addArgument(bashCommand, false); // false = don't handle quotes ourselves
+        return execute(bashCommand, cmdLine, workingDir, timeout, listener);
+    }
+
+    /**
+     * Exec a program directly, without a shell, with the given environment (the inherited one when null).
+     * Output is read by ProcessOutputReader, with a bounded drain after exit.
+     */
+    public static CommandResult exec(List<String> command, File workingDir, Map<String, String> environment,
+                                     Duration timeout, LineListener listener) {
+        commandsRun.increment();
+        ProcessBuilder builder = new ProcessBuilder(command);
+        if (workingDir != null) {
+            builder.directory(workingDir);
+        }
+        if (environment != null) {
+            builder.environment().clear();
+            builder.environment().putAll(environment);
+        }
+
+        Process process;
+        try {
+            process = builder.start();
+            // Nothing is ever written to stdin; closing it lets a prompting program fail instead of hang
+            process.getOutputStream().close();
+        } catch (IOException e) {
             return new CommandResult(-1, "", e.getMessage());
         }
+
+        LineCollector out = new LineCollector(Channel.STDOUT, listener, DEFAULT_MAX_RETAINED_CHARS);
+        LineCollector err = new LineCollector(Channel.STDERR, listener, DEFAULT_MAX_RETAINED_CHARS);
+        ProcessOutputReader.Outcome outcome;
+        try {
+            outcome = ProcessOutputReader.shared().await(process, out, err, timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            killTree(process);
+            return new CommandResult(-1, out.finish(), "Interrupted while running " + command.get(0));
+        }
+
+        // "leo build" rather than "/home/user/.cargo/bin/leo build" in metrics and messages
+        String display = Path.of(command.get(0)).getFileName() + " " + String.join(" ", command.subList(1, command.size()));
+        if (outcome.timedOut()) {
+            return timedOut(display.strip(), timeout, outcome.exitCode(), out.finish(), err.finish());
+        }
+        return new CommandResult(outcome.exitCode(), out.finish(), err.finish());
     }
 
-    public static CommandResult runBash(String bashCommand, File workingDir) {
+    private static CommandResult execute(String command, CommandLine cmdLine, File workingDir, Duration timeout,
+                                         LineListener listener) {
+        commandsRun.increment();
+        TreeKillingWatchdog watchdog = new TreeKillingWatchdog(timeout);
         try {
             DefaultExecutor.Builder<?> builder = DefaultExecutor.builder();
             if (workingDir != null) {
                 builder.setWorkingDirectory(workingDir);
             }
             DefaultExecutor executor = builder.get();
-            executor.setExitValues(null); 
+            executor.setExitValues(null);
+            executor.setProcessDestroyer(watchdog);
 
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            LineCollector out = new LineCollector(Channel.STDOUT, listener, DEFAULT_MAX_RETAINED_CHARS);
+            LineCollector err = new LineCollector(Channel.STDERR, listener, DEFAULT_MAX_RETAINED_CHARS);
             executor.setStreamHandler(new PumpStreamHandler(out, err));
 
-            // Use CommandLine.addArgument to properly handle quotes
-            CommandLine cmdLine = new CommandLine("bash");
-            cmdLine.addArgument("-lc");
-            cmdLine.addArgument(bashCommand, false); // false = don't handle quotes ourselves
-            
             int code = executor.execute(cmdLine);
-            return new CommandResult(code, out.toString(), err.toString());
+            if (watchdog.killedProcess()) {
+                return timedOut(command, timeout, code, out.finish(), err.finish());
+            }
+            return new CommandResult(code, out.finish(), err.finish());
         } catch (ExecuteException ee) {
+            if (watchdog.killedProcess()) {
+                return timedOut(command, timeout, ee.getExitValue(), "", "");
+            }
             return new CommandResult(ee.getExitValue(), "", ee.getMessage());
         } catch (Exception e) {
             return new CommandResult(-1, "", e.getMessage());
         }
     }
-}
 
+    private static CommandResult timedOut(String command, Duration timeout, int exitCode, String stdout, String stderr) {
+        commandsTimedOut.increment();
+        timeoutsByCommand.computeIfAbsent(label(command), key -> new LongAdder()).increment();
+        String message = "Command '" + command + "' timed out after " + timeout.toMillis() + " ms and was killed";
+        return new CommandResult(exitCode, stdout, stderr + message + "\n", true);
+    }
+
+    /**
+     * Metrics key of a command: its first two words, e.g. "leo build"
+     */
+    private static String label(String command) {
+        String[] words = command.strip().split("\\s+", 3);
+        return words.length > 1 ? words[0] + " " + words[1] : words[0];
+    }
+
+    public static long getCommandsRun() { return commandsRun.sum(); }
+
+    public static long getCommandsTimedOut() { return commandsTimedOut.sum(); }
+
+    /**
+     * Exec'd commands currently running
+     */
+    public static int getRunningCommands() { return ProcessOutputReader.shared().getRunning(); }
 
+    /**
+     * Exec'd commands whose output was still open after they exited, e.g. held by a background
+     * child, and stopped being read after the drain timeout
+     */
+    public static long getOutputDrainsAbandoned() { return ProcessOutputReader.shared().getDrainsAbandoned(); }
+
+    public static Map<String, Long> getTimeoutsByCommand() {
+        Map<String, Long> counts = new TreeMap<>();
+        timeoutsByCommand.forEach((command, count) -> counts.put(command, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Kill a process and everything it started. Descendants are collected first, before the
+     * process dies and they get reparented.
+     */
+    static void killTree(Process process) {
+        List<ProcessHandle> descendants = process.toHandle().descendants().toList();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * Watchdog that kills the whole process tree on timeout. ExecuteWatchdog alone only destroys
+     * the direct child, i.e. bash, which would leave a hung compiler running and holding the pipes
+     * the stream pumpers wait on. It is registered as the executor's ProcessDestroyer, which is
+     * handed the process right after launch and released once it has exited.
+     */
+    private static final class TreeKillingWatchdog implements ProcessDestroyer, TimeoutObserver {
+
+        private final Watchdog watchdog;
+        private Process process;
+        private boolean killed;
+
+        TreeKillingWatchdog(Duration timeout) {
+            this.watchdog = Watchdog.builder()
+                    .setTimeout(timeout)
+                    .setThreadFactory(Thread.ofVirtual().factory())
+                    .get();
+            this.watchdog.addTimeoutObserver(this);
+        }
+
+        @Override
+        public synchronized boolean add(Process process) {
+            this.process = process;
+            watchdog.start();
+            return true;
+        }
+
+        @Override
+        public synchronized boolean remove(Process process) {
+            watchdog.stop();
+            this.process = null;
+            return true;
+        }
+
+        @Override
+        public synchronized int size() {
+            return process != null ? 1 : 0;
+        }
+
+        @Override
+        public synchronized void timeoutOccured(Watchdog watchdog) {
+            if (process != null && process.isAlive()) {
+                killed = true;
+                killTree(process);
+            }
+        }
+
+        synchronized boolean killedProcess() {
+            return killed;
+        }
+    }
+}
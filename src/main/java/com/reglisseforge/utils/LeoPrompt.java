@@ -569,17 +569,34 @@ public final class LeoPrompt {
     /**
      * System prompt for Leo code correction with tools
      * 
-     * IMPORTANT: Cache control is only available with beta messages.
-     * Since we're using standard messages for the corrector (as per requirements),
-     * we cannot cache the Leo rules here. To enable caching, we would need to 
-     * switch to beta messages in LeoCodeCorrector.
+     * Plain-string variant for the standard messages API (LeoCodeCorrector), which cannot
+     * carry cache control. The web corrector uses {@link #getLeoCorrectorSystemParams()}.
      * 
      * @return Full system prompt with Leo rules (uncached)
      */
     public static String getLeoCorrectorSystemPrompt() {
-        return LeoRulesBook() + """
-        
-        
+        return LeoRulesBook() + "\n\n" + getLeoCorrectorInstructions();
+    }
+
+    /**
+     * System prompt for Leo code correction as beta text blocks: the rules book followed by
+     * the corrector instructions, both marked for ephemeral caching so every tool turn of
+     * every attempt reads the same cached prefix.
+     */
+    public static List<BetaTextBlockParam> getLeoCorrectorSystemParams() {
+        return List.of(
+                LeoRulesBookParam(),
+                BetaTextBlockParam.builder()
+                        .text(getLeoCorrectorInstructions())
+                        .cacheControl(BetaCacheControlEphemeral.builder().build())
+                        .build());
+    }
+
+    /**
+     * Corrector role, tool usage and error-code playbook (without the rules book)
+     */
+    public static String getLeoCorrectorInstructions() {
+        return """
         You are a Leo language expert debugger. Your task is to fix compilation errors in Leo code using the provided tools.
         
         IMPORTANT: You MUST use the tools to read, analyze and fix the code. Do not output code directly.
@@ -644,6 +661,16 @@ public final class LeoPrompt {
      * Creates a user prompt for Leo code correction
      */
     public static BetaTextBlock getLeoCorrectorUserPrompt(String projectPath, String errorOutput, int attemptNumber) {
+        return getLeoCorrectorUserPrompt(projectPath, errorOutput, attemptNumber, "");
+    }
+    
+    /**
+     * Correction prompt with fixes that resolved the same errors in earlier sessions
+     *
+     * @param examples rendered examples, empty for none
+     */
+    public static BetaTextBlock getLeoCorrectorUserPrompt(String projectPath, String errorOutput, int attemptNumber,
+                                                          String examples) {
         String prompt = String.format("""
         Fix the Leo compilation errors in the project at: %s
         
@@ -664,6 +691,10 @@ public final class LeoPrompt {
         
         Focus on fixing the errors one by one, starting with the first error in the list.
         """, projectPath, attemptNumber, errorOutput, projectPath);
+        if (!examples.isEmpty()) {
+            prompt += "\nThese edits fixed the same errors in earlier projects, adapt them to this code if they apply:\n"
+                    + examples;
+        }
         
         return BetaTextBlock.builder()
                 .text(prompt)
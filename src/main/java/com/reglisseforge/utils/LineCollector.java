@@ -0,0 +1,98 @@
+package com.reglisseforge.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.reglisseforge.utils.CommandRunner.Channel;
+import com.reglisseforge.utils.CommandRunner.LineListener;
+
+/**
+ * Splits a process stream into lines, hands them to the listener and keeps only the most
+ * recent {@code maxRetainedChars} of them (a ring buffer of lines).
+ */
+final class LineCollector extends OutputStream {
+
+    /** Longer lines are cut, so a single runaway line cannot grow the heap either */
+    private static final int MAX_LINE_BYTES = 8 * 1024;
+
+    private final Channel channel;
+    private final LineListener listener;
+    private final int maxRetainedChars;
+
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private final Deque<String> retained = new ArrayDeque<>();
+    private int retainedChars;
+    private int droppedLines;
+    private boolean lineCut;
+
+    LineCollector(Channel channel, LineListener listener, int maxRetainedChars) {
+        this.channel = channel;
+        this.listener = listener;
+        this.maxRetainedChars = maxRetainedChars;
+    }
+
+    @Override
+    public void write(int b) {
+        if (b == '\n') {
+            endLine();
+        } else if (line.size() < MAX_LINE_BYTES) {
+            line.write(b);
+        } else {
+            lineCut = true;
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            write(bytes[i]);
+        }
+    }
+
+    private void endLine() {
+        String text = line.toString(Charset.defaultCharset());
+        if (text.endsWith("\r")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        if (lineCut) {
+            text += " [...]";
+        }
+        line.reset();
+        lineCut = false;
+
+        retained.addLast(text);
+        retainedChars += text.length() + 1;
+        while (retainedChars > maxRetainedChars && retained.size() > 1) {
+            retainedChars -= retained.removeFirst().length() + 1;
+            droppedLines++;
+        }
+
+        if (listener != null) {
+            try {
+                listener.onLine(channel, text);
+            } catch (RuntimeException e) {
+                // A failing listener must not stop the pumper, or the process would block on a full pipe
+            }
+        }
+    }
+
+    /**
+     * Retained output once the process has exited, flushing an unterminated last line
+     */
+    String finish() {
+        if (line.size() > 0 || lineCut) {
+            endLine();
+        }
+        StringBuilder output = new StringBuilder(retainedChars + 64);
+        if (droppedLines > 0) {
+            output.append("[... ").append(droppedLines).append(" earlier lines dropped ...]\n");
+        }
+        for (String text : retained) {
+            output.append(text).append('\n');
+        }
+        return output.toString();
+    }
+}
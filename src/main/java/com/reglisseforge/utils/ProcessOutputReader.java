@@ -0,0 +1,127 @@
+package com.reglisseforge.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads the output pipes of directly exec'd processes and enforces their deadline.
+ *
+ * Each stream is read by its own virtual thread with plain blocking reads. On JDK 21 a blocking
+ * pipe read is not parked like socket I/O: the scheduler compensates by adding a carrier thread
+ * for as long as the read blocks, so a running process costs about two platform threads, as the
+ * commons-exec pumpers do. What this buys over them is no polling (a silent process uses no CPU)
+ * and isolation: the caller waits for its own process, kills its process tree past the deadline,
+ * then gives the readers a bounded time to reach EOF. A background child that outlives the process
+ * and keeps the pipes open therefore delays this command by at most the drain timeout and never
+ * any other; its late output is discarded.
+ */
+final class ProcessOutputReader {
+
+    /** How long output may still be read once the process is gone */
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(2);
+
+    private static final ProcessOutputReader SHARED = new ProcessOutputReader();
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder drainsAbandoned = new LongAdder();
+
+    /**
+     * @param exitCode exit code of the process, after it was killed if it timed out
+     */
+    record Outcome(int exitCode, boolean timedOut) {}
+
+    private ProcessOutputReader() {}
+
+    static ProcessOutputReader shared() {
+        return SHARED;
+    }
+
+    /**
+     * Read the process output until it exits, killing its process tree past the deadline. The
+     * collectors are no longer written once this returns, even when it throws.
+     */
+    Outcome await(Process process, LineCollector out, LineCollector err, Duration timeout) throws InterruptedException {
+        Reader stdout = Reader.start(process.getInputStream(), out, "stdout-" + process.pid());
+        Reader stderr = Reader.start(process.getErrorStream(), err, "stderr-" + process.pid());
+        running.incrementAndGet();
+        try {
+            boolean timedOut = !process.waitFor(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            if (timedOut) {
+                CommandRunner.killTree(process);
+                process.waitFor();
+            }
+            try {
+                CompletableFuture.allOf(stdout.done, stderr.done).get(DRAIN_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                drainsAbandoned.increment();
+            } catch (ExecutionException e) {
+                // Readers complete normally, a read error just ends the output
+            }
+            return new Outcome(process.exitValue(), timedOut);
+        } finally {
+            stdout.detach();
+            stderr.detach();
+            running.decrementAndGet();
+        }
+    }
+
+    int getRunning() {
+        return running.get();
+    }
+
+    long getDrainsAbandoned() {
+        return drainsAbandoned.sum();
+    }
+
+    /**
+     * Copies one stream into its collector until EOF or until detached
+     */
+    private static final class Reader implements Runnable {
+        private final InputStream in;
+        private final LineCollector collector;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private boolean detached;
+
+        private Reader(InputStream in, LineCollector collector) {
+            this.in = in;
+            this.collector = collector;
+        }
+
+        static Reader start(InputStream in, LineCollector collector, String name) {
+            Reader reader = new Reader(in, collector);
+            Thread.ofVirtual().name("leo-output-" + name).start(reader);
+            return reader;
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[8192];
+            try (in) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    synchronized (this) {
+                        if (detached) {
+                            return;
+                        }
+                        collector.write(buffer, 0, read);
+                    }
+                }
+            } catch (IOException e) {
+                // Killing a process closes its pipes, whatever output was left is gone
+            } finally {
+                done.complete(null);
+            }
+        }
+
+        synchronized void detach() {
+            detached = true;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.reglisseforge.web.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deadlines of the external commands run for a generation. A command that exceeds its deadline
+ * is killed together with every process it started, so a hung compiler cannot pin a generation
+ * thread. Build and project creation default to leo.generation.timeout.
+ */
+@Component
+public class CommandTimeouts {
+
+    private final Duration build;
+    private final Duration newProject;
+    private final Duration version;
+
+    public CommandTimeouts(@Value("${leo.command.timeout.build-ms:${leo.generation.timeout:300000}}") long buildMillis,
+                           @Value("${leo.command.timeout.new-ms:${leo.generation.timeout:300000}}") long newProjectMillis,
+                           @Value("${leo.command.timeout.version-ms:10000}") long versionMillis) {
+        this.build = Duration.ofMillis(buildMillis);
+        this.newProject = Duration.ofMillis(newProjectMillis);
+        this.version = Duration.ofMillis(versionMillis);
+    }
+
+    /**
+     * Deadline of `leo build`
+     */
+    public Duration getBuild() { return build; }
+
+    /**
+     * Deadline of `leo new`
+     */
+    public Duration getNewProject() { return newProject; }
+
+    /**
+     * Deadline of `leo --version`
+     */
+    public Duration getVersion() { return version; }
+}
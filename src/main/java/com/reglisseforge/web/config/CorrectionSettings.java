@@ -0,0 +1,90 @@
+package com.reglisseforge.web.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tunables of the correction loop, passed to each WebLeoCodeCorrector
+ */
+@Component
+public class CorrectionSettings {
+
+    private final boolean compactionEnabled;
+    private final int compactionKeepRecentTurns;
+    private final int compactionMaxInputTokens;
+    private final boolean precheckEnabled;
+    private final boolean autoFixEnabled;
+    private final int autoFixMaxRounds;
+    private final int speculativeCandidates;
+    private final int speculativeMaxParallelBuilds;
+    private final boolean knowledgeEnabled;
+    private final double knowledgeMinConfidence;
+    private final int knowledgeMaxExamples;
+
+    public CorrectionSettings(@Value("${leo.correction.compaction.enabled:true}") boolean compactionEnabled,
+                              @Value("${leo.correction.compaction.keep-recent-turns:2}") int compactionKeepRecentTurns,
+                              @Value("${leo.correction.compaction.max-input-tokens:40000}") int compactionMaxInputTokens,
+                              @Value("${leo.correction.precheck.enabled:true}") boolean precheckEnabled,
+                              @Value("${leo.correction.auto-fix.enabled:true}") boolean autoFixEnabled,
+                              @Value("${leo.correction.auto-fix.max-rounds:3}") int autoFixMaxRounds,
+                              @Value("${leo.correction.speculative.candidates:1}") int speculativeCandidates,
+                              @Value("${leo.correction.speculative.max-parallel-builds:2}") int speculativeMaxParallelBuilds,
+                              @Value("${leo.correction.knowledge.enabled:true}") boolean knowledgeEnabled,
+                              @Value("${leo.correction.knowledge.min-confidence:0.75}") double knowledgeMinConfidence,
+                              @Value("${leo.correction.knowledge.max-examples:3}") int knowledgeMaxExamples) {
+        this.compactionEnabled = compactionEnabled;
+        this.compactionKeepRecentTurns = compactionKeepRecentTurns;
+        this.compactionMaxInputTokens = compactionMaxInputTokens;
+        this.precheckEnabled = precheckEnabled;
+        this.autoFixEnabled = autoFixEnabled;
+        this.autoFixMaxRounds = autoFixMaxRounds;
+        this.speculativeCandidates = Math.max(1, speculativeCandidates);
+        this.speculativeMaxParallelBuilds = Math.max(1, speculativeMaxParallelBuilds);
+        this.knowledgeEnabled = knowledgeEnabled;
+        this.knowledgeMinConfidence = knowledgeMinConfidence;
+        this.knowledgeMaxExamples = Math.max(0, knowledgeMaxExamples);
+    }
+
+    public boolean isCompactionEnabled() { return compactionEnabled; }
+
+    public int getCompactionKeepRecentTurns() { return compactionKeepRecentTurns; }
+
+    public int getCompactionMaxInputTokens() { return compactionMaxInputTokens; }
+
+    /**
+     * Whether builds are preceded by the in-process LeoSyntaxChecker
+     */
+    public boolean isPrecheckEnabled() { return precheckEnabled; }
+
+    /**
+     * Whether known errors are rewritten by LeoAutoFixer before asking the LLM
+     */
+    public boolean isAutoFixEnabled() { return autoFixEnabled; }
+
+    public int getAutoFixMaxRounds() { return autoFixMaxRounds; }
+
+    /**
+     * Candidate fixes forked per correction attempt, each in its own project copy; 1 corrects in place
+     */
+    public int getSpeculativeCandidates() { return speculativeCandidates; }
+
+    /**
+     * Candidate builds one session may run at the same time
+     */
+    public int getSpeculativeMaxParallelBuilds() { return speculativeMaxParallelBuilds; }
+
+    /**
+     * Whether fixes learned from the fix history are applied and shown to the LLM
+     */
+    public boolean isKnowledgeEnabled() { return knowledgeEnabled; }
+
+    /**
+     * Confidence a learned fix needs to be applied without the LLM
+     */
+    public double getKnowledgeMinConfidence() { return knowledgeMinConfidence; }
+
+    /**
+     * Learned fixes shown to the LLM as examples per attempt
+     */
+    public int getKnowledgeMaxExamples() { return knowledgeMaxExamples; }
+}
@@ -1,11 +1,15 @@
 package com.reglisseforge.web.controller;
 
+import com.reglisseforge.tools.FixHistoryIndex;
 import com.reglisseforge.tools.FixHistoryManager;
+import com.reglisseforge.web.model.SessionPageResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 /**
@@ -18,10 +22,12 @@ public class FixHistoryController {
     
     private static final Logger logger = LoggerFactory.getLogger(FixHistoryController.class);
     
+    private static final int MAX_PAGE_SIZE = 200;
+    
     private final FixHistoryManager fixHistoryManager;
     
-    public FixHistoryController() {
-        this.fixHistoryManager = new FixHistoryManager();
+    public FixHistoryController(FixHistoryManager fixHistoryManager) {
+        this.fixHistoryManager = fixHistoryManager;
     }
     
     /**
@@ -47,15 +53,57 @@ public class FixHistoryController {
         }
     }
     
+    /**
+     * List sessions from the in-memory index, most recently updated first
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<SessionPageResponse> listSessions(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) FixHistoryManager.Phase phase,
+            @RequestParam(required = false) String project,
+            @RequestParam(required = false) String errorCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        long start = System.nanoTime();
+        FixHistoryIndex.Query query = new FixHistoryIndex.Query(status, phase, project, errorCode, since, until);
+        FixHistoryIndex.Page result = fixHistoryManager.getIndex().search(query, page, size);
+        return ResponseEntity.ok(SessionPageResponse.create(result, System.nanoTime() - start));
+    }
+    
+    /**
+     * Write the readable JSON views of a session from its journal
+     */
+    @PostMapping("/session/{sessionId}/materialize")
+    public ResponseEntity<Map<String, Object>> materializeSessionHistory(@PathVariable String sessionId) {
+        if (!fixHistoryManager.materialize(sessionId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("sessionId", sessionId, "materialized", true));
+    }
+    
     /**
      * Health check for fix history system
      */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
-        return ResponseEntity.ok(Map.of(
-                "status", "healthy",
-                "service", "fix-history",
-                "timestamp", java.time.LocalDateTime.now()
+        return ResponseEntity.ok(Map.ofEntries(
+                Map.entry("status", "healthy"),
+                Map.entry("service", "fix-history"),
+                Map.entry("journalRecords", fixHistoryManager.getJournalRecords()),
+                Map.entry("journalBytes", fixHistoryManager.getJournalBytes()),
+                Map.entry("journalSyncs", fixHistoryManager.getJournalSyncs()),
+                Map.entry("journalRecordsPerSync", fixHistoryManager.getJournalRecordsPerSync()),
+                Map.entry("indexedSessions", fixHistoryManager.getIndex().size()),
+                Map.entry("snapshotsStored", fixHistoryManager.getSnapshotsStored()),
+                Map.entry("snapshotsDeduplicated", fixHistoryManager.getSnapshotsDeduplicated()),
+                Map.entry("snapshotBytesDeduplicated", fixHistoryManager.getSnapshotBytesDeduplicated()),
+                Map.entry("timestamp", java.time.LocalDateTime.now())
         ));
     }
 }
@@ -1,22 +1,28 @@
 package com.reglisseforge.web.controller;
 
+import com.reglisseforge.tools.FixHistoryManager;
 import com.reglisseforge.tools.WebLeoCodeEngine;
 import com.reglisseforge.web.model.GenerationRequest;
 import com.reglisseforge.web.model.GenerationResponse;
 import com.reglisseforge.web.model.StatusResponse;
 import com.reglisseforge.web.model.ConnectionsResponse;
 import com.reglisseforge.web.model.HealthResponse;
+import com.reglisseforge.web.model.SchedulerStatsResponse;
+import com.reglisseforge.web.model.StreamStatsResponse;
+import com.reglisseforge.web.service.GenerationScheduler;
 import com.reglisseforge.web.service.StreamEventService;
 import com.reglisseforge.web.handler.LeoGenerationWebSocketHandler;
 
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST Controller for Leo code generation
@@ -30,10 +36,13 @@ public class LeoGenerationController {
     
     private final WebLeoCodeEngine webLeoCodeEngine;
     private final StreamEventService eventService;
+    private final GenerationScheduler generationScheduler;
     public LeoGenerationController(WebLeoCodeEngine webLeoCodeEngine, StreamEventService eventService, 
-                                   LeoGenerationWebSocketHandler webSocketHandler) {
+                                   LeoGenerationWebSocketHandler webSocketHandler,
+                                   GenerationScheduler generationScheduler) {
         this.webLeoCodeEngine = webLeoCodeEngine;
         this.eventService = eventService;
+        this.generationScheduler = generationScheduler;
     }
 
     /**
@@ -52,20 +61,18 @@ public class LeoGenerationController {
             // Sessions will be subscribed via the WebSocket API endpoint when the frontend connects
             logger.info("Generation session {} ready for WebSocket subscriptions", sessionId);
             
-            // Start generation asynchronously
-            CompletableFuture.runAsync(() -> {
+            // Start generation on the dedicated generation scheduler
+            generationScheduler.submit(sessionId, () -> {
                 try {
-                    // Initialize project and generate code
-                    String projectPath = webLeoCodeEngine.initProject(
+                    // Initialize project, generate code, then build and fix with max 20 attempts
+                    webLeoCodeEngine.generate(
                         sessionId, 
                         request.getProjectName(), 
                         request.getProjectDescription(),
-                        request.getWorkspacePath()
+                        request.getWorkspacePath(),
+                        WebLeoCodeEngine.DEFAULT_MAX_ATTEMPTS
                     );
                     
-                    // Build and fix with max 20 attempts
-                    webLeoCodeEngine.buildAndFix(sessionId, projectPath, 20);
-                    
                 } catch (Exception e) {
                     logger.error("Error during generation for session: {}", sessionId, e);
                     eventService.sendError(sessionId, "Generation failed: " + e.getMessage());
@@ -76,6 +83,12 @@ public class LeoGenerationController {
             GenerationResponse response = GenerationResponse.success(sessionId, "Generation started");
             return ResponseEntity.ok(response);
             
+        } catch (RejectedExecutionException e) {
+            GenerationResponse response = GenerationResponse.error(
+                "Generation capacity reached, please retry later");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "30")
+                    .body(response);
         } catch (Exception e) {
             logger.error("Failed to start generation", e);
             GenerationResponse response = GenerationResponse.error("Failed to start generation: " + e.getMessage());
@@ -83,6 +96,54 @@ public class LeoGenerationController {
         }
     }
 
+    /**
+     * Resume an interrupted session from its last checkpoint
+     */
+    @PostMapping("/resume/{sessionId}")
+    public ResponseEntity<GenerationResponse> resumeGeneration(@PathVariable String sessionId) {
+        Optional<FixHistoryManager.Checkpoint> checkpoint = webLeoCodeEngine.getCheckpoint(sessionId);
+        if (checkpoint.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(GenerationResponse.error("No checkpoint for session " + sessionId));
+        }
+        if (checkpoint.get().phase().isTerminal()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(GenerationResponse.error("Session " + sessionId + " already finished as " + checkpoint.get().phase()));
+        }
+        // Claimed now rather than when the job starts, so a concurrent request is turned away here
+        if (!webLeoCodeEngine.claim(sessionId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(GenerationResponse.error("Session " + sessionId + " is running"));
+        }
+        
+        try {
+            logger.info("Resuming session {} from {}", sessionId, checkpoint.get().phase());
+            generationScheduler.submit(sessionId, () -> {
+                try {
+                    webLeoCodeEngine.resumeClaimed(sessionId);
+                } catch (Exception e) {
+                    logger.error("Error while resuming session: {}", sessionId, e);
+                    eventService.sendError(sessionId, "Resume failed: " + e.getMessage());
+                }
+            });
+            
+            GenerationResponse response = GenerationResponse.success(sessionId, checkpoint.get().projectPath());
+            response.setMessage("Generation resumed from " + checkpoint.get().phase());
+            return ResponseEntity.ok(response);
+            
+        } catch (RejectedExecutionException e) {
+            webLeoCodeEngine.release(sessionId);
+            GenerationResponse response = GenerationResponse.error(
+                "Generation capacity reached, please retry later");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "30")
+                    .body(response);
+        } catch (RuntimeException e) {
+            webLeoCodeEngine.release(sessionId);
+            throw e;
+        }
+    }
+
     /**
      * Get generation status
      */
@@ -103,6 +164,27 @@ public class LeoGenerationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get CODE_CHUNK streaming statistics (frames/sec, bytes/frame)
+     */
+    @GetMapping("/stream-stats")
+    public ResponseEntity<StreamStatsResponse> getStreamStats() {
+        StreamStatsResponse response = StreamStatsResponse.create(
+                eventService.getCodeChunkStats(),
+                eventService.getCoalesceWindowMillis(),
+                eventService.getCoalesceMaxBytes());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get generation scheduler statistics (active jobs, queue depth, wait time)
+     */
+    @GetMapping("/scheduler")
+    public ResponseEntity<SchedulerStatsResponse> getSchedulerStats() {
+        SchedulerStatsResponse response = SchedulerStatsResponse.create(generationScheduler);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Health check endpoint
      */
@@ -0,0 +1,124 @@
+package com.reglisseforge.web.controller;
+
+import com.reglisseforge.web.config.CommandTimeouts;
+import com.reglisseforge.web.model.AnthropicClientStatsResponse;
+import com.reglisseforge.web.model.AutoFixStatsResponse;
+import com.reglisseforge.web.model.BuildCacheStatsResponse;
+import com.reglisseforge.web.model.CommandStatsResponse;
+import com.reglisseforge.web.model.FixHistoryStatsResponse;
+import com.reglisseforge.web.model.FixKnowledgeStatsResponse;
+import com.reglisseforge.web.model.PromptCacheStatsResponse;
+import com.reglisseforge.web.model.ToolMetricsResponse;
+import com.reglisseforge.web.service.AutoFixService;
+import com.reglisseforge.web.service.BuildCache;
+import com.reglisseforge.web.service.FixHistoryMaintenance;
+import com.reglisseforge.web.service.FixKnowledgeService;
+import com.reglisseforge.web.service.LeoToolchain;
+import com.reglisseforge.web.service.SharedAnthropicClient;
+import com.reglisseforge.web.service.ToolMetricsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller exposing runtime metrics of shared infrastructure
+ */
+@RestController
+@RequestMapping("/api/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsController {
+
+    private final SharedAnthropicClient anthropicClient;
+    private final BuildCache buildCache;
+    private final AutoFixService autoFixService;
+    private final CommandTimeouts commandTimeouts;
+    private final LeoToolchain leoToolchain;
+    private final FixHistoryMaintenance fixHistoryMaintenance;
+    private final FixKnowledgeService fixKnowledgeService;
+    private final ToolMetricsService toolMetricsService;
+
+    public MetricsController(SharedAnthropicClient anthropicClient, BuildCache buildCache,
+                             AutoFixService autoFixService, CommandTimeouts commandTimeouts,
+                             LeoToolchain leoToolchain, FixHistoryMaintenance fixHistoryMaintenance,
+                             FixKnowledgeService fixKnowledgeService, ToolMetricsService toolMetricsService) {
+        this.anthropicClient = anthropicClient;
+        this.buildCache = buildCache;
+        this.autoFixService = autoFixService;
+        this.commandTimeouts = commandTimeouts;
+        this.leoToolchain = leoToolchain;
+        this.fixHistoryMaintenance = fixHistoryMaintenance;
+        this.fixKnowledgeService = fixKnowledgeService;
+        this.toolMetricsService = toolMetricsService;
+    }
+
+    /**
+     * Get shared Anthropic client statistics (in-flight requests, slot wait, latency)
+     */
+    @GetMapping("/anthropic")
+    public ResponseEntity<AnthropicClientStatsResponse> getAnthropicClientStats() {
+        return ResponseEntity.ok(AnthropicClientStatsResponse.create(anthropicClient));
+    }
+
+    /**
+     * Get prompt cache token usage and hit rates of the correction loop
+     */
+    @GetMapping("/prompt-cache")
+    public ResponseEntity<PromptCacheStatsResponse> getPromptCacheStats() {
+        return ResponseEntity.ok(PromptCacheStatsResponse.create(anthropicClient.getPromptCacheStats()));
+    }
+
+    /**
+     * Get build result cache hit/miss counts and the compiler time it saved
+     */
+    @GetMapping("/build-cache")
+    public ResponseEntity<BuildCacheStatsResponse> getBuildCacheStats() {
+        return ResponseEntity.ok(BuildCacheStatsResponse.create(buildCache));
+    }
+
+    /**
+     * Get rule-based auto-fixer counts and the LLM attempts and tokens it saved
+     */
+    @GetMapping("/auto-fix")
+    public ResponseEntity<AutoFixStatsResponse> getAutoFixStats() {
+        return ResponseEntity.ok(AutoFixStatsResponse.create(autoFixService));
+    }
+
+    /**
+     * Get external command counts, timeouts and how leo is executed
+     */
+    @GetMapping("/commands")
+    public ResponseEntity<CommandStatsResponse> getCommandStats() {
+        return ResponseEntity.ok(CommandStatsResponse.create(commandTimeouts, leoToolchain));
+    }
+
+    /**
+     * Get fix history archiving, eviction and disk usage counts
+     */
+    @GetMapping("/fix-history")
+    public ResponseEntity<FixHistoryStatsResponse> getFixHistoryStats() {
+        return ResponseEntity.ok(FixHistoryStatsResponse.create(fixHistoryMaintenance));
+    }
+
+    /**
+     * Get learned fix counts: fixes known, applied, reverted and the LLM attempts they saved
+     */
+    @GetMapping("/fix-knowledge")
+    public ResponseEntity<FixKnowledgeStatsResponse> getFixKnowledgeStats() {
+        return ResponseEntity.ok(FixKnowledgeStatsResponse.create(fixKnowledgeService));
+    }
+
+    /**
+     * Get tool call counts, latency percentiles and histogram, error rates and payload sizes per tool
+     */
+    @GetMapping("/tools")
+    public ResponseEntity<ToolMetricsResponse> getToolMetrics() {
+        return ResponseEntity.ok(ToolMetricsResponse.create(toolMetricsService));
+    }
+
+    /**
+     * Get the tool call metrics of one correction session
+     */
+    @GetMapping("/tools/{sessionId}")
+    public ResponseEntity<ToolMetricsResponse> getSessionToolMetrics(@PathVariable String sessionId) {
+        return ResponseEntity.ok(ToolMetricsResponse.create(toolMetricsService, sessionId));
+    }
+}
@@ -4,10 +4,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.reglisseforge.web.model.StreamEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
@@ -16,6 +19,11 @@ import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * WebSocket handler for streaming Leo code generation events
+ *
+ * Events of one generation session are sent from several threads (tool calls and speculative
+ * candidates run in parallel), so every connection is wrapped in a
+ * {@link ConcurrentWebSocketSessionDecorator}: concurrent sends are queued and written one at a
+ * time instead of failing in the container.
  */
 @Component
 public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
@@ -23,33 +31,38 @@ public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
     private static final Logger logger = LoggerFactory.getLogger(LeoGenerationWebSocketHandler.class);
     
     private final ObjectMapper objectMapper;
+    private final int sendTimeLimitMillis;
+    private final int sendBufferLimitBytes;
     
     // Track sessions by sessionId for targeted messaging
     private final ConcurrentHashMap<String, CopyOnWriteArraySet<WebSocketSession>> sessionGroups = new ConcurrentHashMap<>();
     
-    // Track all active sessions
-    private final CopyOnWriteArraySet<WebSocketSession> allSessions = new CopyOnWriteArraySet<>();
+    // Track all active sessions by WebSocket session ID, each wrapped for concurrent sends
+    private final ConcurrentHashMap<String, WebSocketSession> allSessions = new ConcurrentHashMap<>();
 
-    public LeoGenerationWebSocketHandler(ObjectMapper objectMapper) {
+    public LeoGenerationWebSocketHandler(ObjectMapper objectMapper,
+                                         @Value("${leo.websocket.send-time-limit-ms:10000}") int sendTimeLimitMillis,
+                                         @Value("${leo.websocket.send-buffer-limit-bytes:1048576}") int sendBufferLimitBytes) {
         this.objectMapper = objectMapper;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.sendBufferLimitBytes = sendBufferLimitBytes;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        allSessions.add(session);
+        WebSocketSession concurrentSession = new ConcurrentWebSocketSessionDecorator(
+                session, sendTimeLimitMillis, sendBufferLimitBytes);
+        allSessions.put(session.getId(), concurrentSession);
         logger.info("WebSocket connection established: {}", session.getId());
         
         // Send welcome message
         StreamEvent welcomeEvent = StreamEvent.info(null, "Connected to Leo Generation Stream");
-        sendEventToSession(session, welcomeEvent);
+        sendEventToSession(concurrentSession, welcomeEvent);
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        allSessions.remove(session);
-        
-        // Remove from all session groups
-        sessionGroups.values().forEach(sessions -> sessions.remove(session));
+        removeSession(session.getId());
         
         logger.info("WebSocket connection closed: {} with status: {}", session.getId(), status);
     }
@@ -59,8 +72,11 @@ public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
         logger.error("WebSocket transport error for session {}: {}", session.getId(), exception.getMessage());
         
         // Send error event to client
-        StreamEvent errorEvent = StreamEvent.error(null, "Connection error: " + exception.getMessage());
-        sendEventToSession(session, errorEvent);
+        WebSocketSession concurrentSession = allSessions.get(session.getId());
+        if (concurrentSession != null) {
+            StreamEvent errorEvent = StreamEvent.error(null, "Connection error: " + exception.getMessage());
+            sendEventToSession(concurrentSession, errorEvent);
+        }
     }
 
     /**
@@ -68,7 +84,7 @@ public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
      */
     public void subscribeToSession(WebSocketSession webSocketSession, String sessionId) {
         sessionGroups.computeIfAbsent(sessionId, k -> new CopyOnWriteArraySet<>())
-                     .add(webSocketSession);
+                     .add(allSessions.getOrDefault(webSocketSession.getId(), webSocketSession));
         logger.info("WebSocket session {} subscribed to generation session {}", 
                    webSocketSession.getId(), sessionId);
     }
@@ -79,8 +95,7 @@ public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
     public boolean subscribeSessionById(String webSocketSessionId, String sessionId) {
         logger.info("Attempting to subscribe WebSocket session {} to generation session {}", 
                    webSocketSessionId, sessionId);
-        logger.info("Available WebSocket sessions: {}", 
-                   allSessions.stream().map(WebSocketSession::getId).toArray());
+        logger.info("Available WebSocket sessions: {}", allSessions.keySet());
         
         WebSocketSession session = findSessionById(webSocketSessionId);
         if (session != null) {
@@ -91,7 +106,7 @@ public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
             
             // Fallback: if we have exactly one active session, use it
             if (allSessions.size() == 1) {
-                WebSocketSession fallbackSession = allSessions.iterator().next();
+                WebSocketSession fallbackSession = allSessions.values().iterator().next();
                 logger.info("Using fallback: subscribing the only active session {} to generation session {}", 
                            fallbackSession.getId(), sessionId);
                 subscribeToSession(fallbackSession, sessionId);
@@ -105,10 +120,7 @@ public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
      * Find a WebSocket session by its ID
      */
     private WebSocketSession findSessionById(String webSocketSessionId) {
-        return allSessions.stream()
-                .filter(session -> session.getId().equals(webSocketSessionId))
-                .findFirst()
-                .orElse(null);
+        return allSessions.get(webSocketSessionId);
     }
 
     /**
@@ -117,7 +129,7 @@ public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
      */
     public int subscribeAllActiveSessionsTo(String sessionId) {
         int subscribed = 0;
-        for (WebSocketSession session : allSessions) {
+        for (WebSocketSession session : allSessions.values()) {
             if (session.isOpen()) {
                 subscribeToSession(session, sessionId);
                 subscribed++;
@@ -148,7 +160,7 @@ public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
     public void unsubscribeFromSession(WebSocketSession webSocketSession, String sessionId) {
         CopyOnWriteArraySet<WebSocketSession> sessions = sessionGroups.get(sessionId);
         if (sessions != null) {
-            sessions.remove(webSocketSession);
+            sessions.remove(allSessions.getOrDefault(webSocketSession.getId(), webSocketSession));
             if (sessions.isEmpty()) {
                 sessionGroups.remove(sessionId);
             }
@@ -183,17 +195,23 @@ public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
                 session.sendMessage(message);
                 
                 logger.debug("Sent event {} to WebSocket session {}", event.getType(), session.getId());
-            } catch (IOException e) {
+            } catch (IOException | SessionLimitExceededException e) {
                 logger.error("Failed to send event to WebSocket session {}: {}", 
                            session.getId(), e.getMessage());
                 
                 // Remove failed session
-                allSessions.remove(session);
-                sessionGroups.values().forEach(sessions -> sessions.remove(session));
+                removeSession(session.getId());
             }
         } else {
             logger.warn("Attempted to send message to closed WebSocket session: {}", session.getId());
-            allSessions.remove(session);
+            removeSession(session.getId());
+        }
+    }
+
+    private void removeSession(String webSocketSessionId) {
+        WebSocketSession session = allSessions.remove(webSocketSessionId);
+        if (session != null) {
+            // Remove from all session groups
             sessionGroups.values().forEach(sessions -> sessions.remove(session));
         }
     }
@@ -203,7 +221,7 @@ public class LeoGenerationWebSocketHandler extends TextWebSocketHandler {
      */
     public void broadcastEvent(StreamEvent event) {
         logger.debug("Broadcasting event {} to {} sessions", event.getType(), allSessions.size());
-        allSessions.forEach(session -> sendEventToSession(session, event));
+        allSessions.values().forEach(session -> sendEventToSession(session, event));
     }
 
     /**
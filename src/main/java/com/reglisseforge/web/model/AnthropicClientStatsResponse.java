@@ -0,0 +1,35 @@
+package com.reglisseforge.web.model;
+
+import com.reglisseforge.web.service.SharedAnthropicClient;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for shared Anthropic client statistics
+ */
+@Data
+@Builder
+public class AnthropicClientStatsResponse {
+    private int maxConcurrentRequests;
+    private int inFlight;
+    private int peakInFlight;
+    private int waiting;
+    private long requests;
+    private long failures;
+    private double averageWaitMillis;
+    private double averageHoldMillis;
+
+    public static AnthropicClientStatsResponse create(SharedAnthropicClient client) {
+        return AnthropicClientStatsResponse.builder()
+                .maxConcurrentRequests(client.getMaxConcurrentRequests())
+                .inFlight(client.getInFlight())
+                .peakInFlight(client.getPeakInFlight())
+                .waiting(client.getWaiting())
+                .requests(client.getRequests())
+                .failures(client.getFailures())
+                .averageWaitMillis(client.getAverageWaitMillis())
+                .averageHoldMillis(client.getAverageHoldMillis())
+                .build();
+    }
+}
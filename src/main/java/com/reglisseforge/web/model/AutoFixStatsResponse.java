@@ -0,0 +1,35 @@
+package com.reglisseforge.web.model;
+
+import java.util.Map;
+
+import com.reglisseforge.web.service.AutoFixService;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for rule-based auto-fixer statistics
+ */
+@Data
+@Builder
+public class AutoFixStatsResponse {
+    private long rounds;
+    private long revertedRounds;
+    private Map<String, Long> fixesByCode;
+    private long attemptsSaved;
+    private long llmAttempts;
+    private double averageTokensPerLlmAttempt;
+    private long estimatedTokensSaved;
+
+    public static AutoFixStatsResponse create(AutoFixService service) {
+        return AutoFixStatsResponse.builder()
+                .rounds(service.getRounds())
+                .revertedRounds(service.getRevertedRounds())
+                .fixesByCode(service.getFixesByCode())
+                .attemptsSaved(service.getAttemptsSaved())
+                .llmAttempts(service.getLlmAttempts())
+                .averageTokensPerLlmAttempt(service.getAverageTokensPerLlmAttempt())
+                .estimatedTokensSaved(service.getEstimatedTokensSaved())
+                .build();
+    }
+}
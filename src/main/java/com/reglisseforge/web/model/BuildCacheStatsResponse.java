@@ -0,0 +1,39 @@
+package com.reglisseforge.web.model;
+
+import com.reglisseforge.web.service.BuildCache;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for build result cache statistics
+ */
+@Data
+@Builder
+public class BuildCacheStatsResponse {
+    private boolean enabled;
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private double hitRate;
+    private long stores;
+    private long evictions;
+    private int memorySize;
+    private int diskSize;
+    private long savedBuildMillis;
+
+    public static BuildCacheStatsResponse create(BuildCache cache) {
+        return BuildCacheStatsResponse.builder()
+                .enabled(cache.isEnabled())
+                .memoryHits(cache.getMemoryHits())
+                .diskHits(cache.getDiskHits())
+                .misses(cache.getMisses())
+                .hitRate(cache.getHitRate())
+                .stores(cache.getStores())
+                .evictions(cache.getEvictions())
+                .memorySize(cache.getMemorySize())
+                .diskSize(cache.getDiskSize())
+                .savedBuildMillis(cache.getSavedBuildMillis())
+                .build();
+    }
+}
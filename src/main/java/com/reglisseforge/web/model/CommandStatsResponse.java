@@ -0,0 +1,43 @@
+package com.reglisseforge.web.model;
+
+import java.util.Map;
+
+import com.reglisseforge.utils.CommandRunner;
+import com.reglisseforge.web.config.CommandTimeouts;
+import com.reglisseforge.web.service.LeoToolchain;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for external command statistics: deadlines and how often they were hit
+ */
+@Data
+@Builder
+public class CommandStatsResponse {
+    private long commandsRun;
+    private long commandsTimedOut;
+    private Map<String, Long> timeoutsByCommand;
+    private long buildTimeoutMillis;
+    private long newProjectTimeoutMillis;
+    private long versionTimeoutMillis;
+    private boolean leoDirectExec;
+    private String leoBinary;
+    private int runningCommands;
+    private long outputDrainsAbandoned;
+
+    public static CommandStatsResponse create(CommandTimeouts timeouts, LeoToolchain toolchain) {
+        return CommandStatsResponse.builder()
+                .commandsRun(CommandRunner.getCommandsRun())
+                .commandsTimedOut(CommandRunner.getCommandsTimedOut())
+                .timeoutsByCommand(CommandRunner.getTimeoutsByCommand())
+                .buildTimeoutMillis(timeouts.getBuild().toMillis())
+                .newProjectTimeoutMillis(timeouts.getNewProject().toMillis())
+                .versionTimeoutMillis(timeouts.getVersion().toMillis())
+                .leoDirectExec(toolchain.isDirectExec())
+                .leoBinary(toolchain.isDirectExec() ? toolchain.getLeoBinary().toString() : null)
+                .runningCommands(CommandRunner.getRunningCommands())
+                .outputDrainsAbandoned(CommandRunner.getOutputDrainsAbandoned())
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.reglisseforge.web.model;
+
+import com.reglisseforge.web.service.FixHistoryMaintenance;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for fix history retention statistics
+ */
+@Data
+@Builder
+public class FixHistoryStatsResponse {
+    private boolean maintenanceEnabled;
+    private String codec;
+    private long maintenanceRuns;
+    private long lastRunMillis;
+    private long sessionsArchived;
+    private long sessionsEvicted;
+    private long snapshotsSwept;
+    private long diskUsageBytes;
+    private long maxTotalBytes;
+
+    public static FixHistoryStatsResponse create(FixHistoryMaintenance maintenance) {
+        return FixHistoryStatsResponse.builder()
+                .maintenanceEnabled(maintenance.isEnabled())
+                .codec(maintenance.getCodec())
+                .maintenanceRuns(maintenance.getRuns())
+                .lastRunMillis(maintenance.getLastRunMillis())
+                .sessionsArchived(maintenance.getSessionsArchived())
+                .sessionsEvicted(maintenance.getSessionsEvicted())
+                .snapshotsSwept(maintenance.getSnapshotsSwept())
+                .diskUsageBytes(maintenance.getDiskUsageBytes())
+                .maxTotalBytes(maintenance.getMaxTotalBytes())
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.reglisseforge.web.model;
+
+import com.reglisseforge.web.service.FixKnowledgeService;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for learned fix statistics
+ */
+@Data
+@Builder
+public class FixKnowledgeStatsResponse {
+    private long sessionsMined;
+    private long attemptsMined;
+    private int knownFixes;
+    private int knownSignatures;
+    private long lookups;
+    private long rounds;
+    private long revertedRounds;
+    private long patchesApplied;
+    private long attemptsSaved;
+    private long hintedAttempts;
+
+    public static FixKnowledgeStatsResponse create(FixKnowledgeService service) {
+        return FixKnowledgeStatsResponse.builder()
+                .sessionsMined(service.getSessionsMined())
+                .attemptsMined(service.getStepsMined())
+                .knownFixes(service.getKnownFixes())
+                .knownSignatures(service.getKnownSignatures())
+                .lookups(service.getLookups())
+                .rounds(service.getRounds())
+                .revertedRounds(service.getRevertedRounds())
+                .patchesApplied(service.getPatchesApplied())
+                .attemptsSaved(service.getAttemptsSaved())
+                .hintedAttempts(service.getHintedAttempts())
+                .build();
+    }
+}
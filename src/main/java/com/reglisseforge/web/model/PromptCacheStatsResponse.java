@@ -0,0 +1,37 @@
+package com.reglisseforge.web.model;
+
+import com.reglisseforge.web.service.PromptCacheStats;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for prompt cache token usage
+ */
+@Data
+@Builder
+public class PromptCacheStatsResponse {
+    private long requests;
+    private long inputTokens;
+    private long cacheCreationTokens;
+    private long cacheReadTokens;
+    private long outputTokens;
+    private double requestHitRate;
+    private double tokenHitRate;
+    private String toolsHash;
+    private long toolsHashChanges;
+
+    public static PromptCacheStatsResponse create(PromptCacheStats stats) {
+        return PromptCacheStatsResponse.builder()
+                .requests(stats.getRequests())
+                .inputTokens(stats.getInputTokens())
+                .cacheCreationTokens(stats.getCacheCreationTokens())
+                .cacheReadTokens(stats.getCacheReadTokens())
+                .outputTokens(stats.getOutputTokens())
+                .requestHitRate(stats.getRequestHitRate())
+                .tokenHitRate(stats.getTokenHitRate())
+                .toolsHash(stats.getToolsHash())
+                .toolsHashChanges(stats.getToolsHashChanges())
+                .build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.reglisseforge.web.model;
+
+import com.reglisseforge.web.service.GenerationScheduler;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for generation scheduler statistics
+ */
+@Data
+@Builder
+public class SchedulerStatsResponse {
+    private int maxConcurrent;
+    private int queueCapacity;
+    private boolean virtualThreads;
+    private int activeJobs;
+    private int queueDepth;
+    private long submitted;
+    private long completed;
+    private long failed;
+    private long rejected;
+    private double averageWaitMillis;
+    private double maxWaitMillis;
+
+    public static SchedulerStatsResponse create(GenerationScheduler scheduler) {
+        return SchedulerStatsResponse.builder()
+                .maxConcurrent(scheduler.getMaxConcurrent())
+                .queueCapacity(scheduler.getQueueCapacity())
+                .virtualThreads(scheduler.isVirtualThreads())
+                .activeJobs(scheduler.getActiveJobs())
+                .queueDepth(scheduler.getQueueDepth())
+                .submitted(scheduler.getSubmitted())
+                .completed(scheduler.getCompleted())
+                .failed(scheduler.getFailed())
+                .rejected(scheduler.getRejected())
+                .averageWaitMillis(scheduler.getAverageWaitMillis())
+                .maxWaitMillis(scheduler.getMaxWaitMillis())
+                .build();
+    }
+}
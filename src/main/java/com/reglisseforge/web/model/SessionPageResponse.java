@@ -0,0 +1,33 @@
+package com.reglisseforge.web.model;
+
+import java.util.List;
+
+import com.reglisseforge.tools.FixHistoryIndex;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for a page of fix history sessions
+ */
+@Data
+@Builder
+public class SessionPageResponse {
+    private List<FixHistoryIndex.SessionEntry> sessions;
+    private int page;
+    private int size;
+    private long totalSessions;
+    private int totalPages;
+    private double queryMicros;
+
+    public static SessionPageResponse create(FixHistoryIndex.Page page, long queryNanos) {
+        return SessionPageResponse.builder()
+                .sessions(page.items())
+                .page(page.page())
+                .size(page.size())
+                .totalSessions(page.total())
+                .totalPages((int) ((page.total() + page.size() - 1) / page.size()))
+                .queryMicros(queryNanos / 1_000.0)
+                .build();
+    }
+}
@@ -18,6 +18,7 @@ public class StreamEvent {
         GENERATING,        // Code generation in progress
         CODE_CHUNK,        // Piece of generated code
         BUILD_STARTED,     // Leo build process started
+        BUILD_PROGRESS,    // Line of leo build output, as it is printed
         BUILD_SUCCESS,     // Leo build succeeded
         BUILD_FAILED,      // Leo build failed
         FIXING_STARTED,    // Auto-correction started
@@ -75,6 +76,15 @@ public class StreamEvent {
                 .build();
     }
     
+    public static StreamEvent buildProgress(String sessionId, String line) {
+        return StreamEvent.builder()
+                .type(EventType.BUILD_PROGRESS)
+                .sessionId(sessionId)
+                .message(line)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+    
     public static StreamEvent buildSuccess(String sessionId) {
         return StreamEvent.builder()
                 .type(EventType.BUILD_SUCCESS)
@@ -0,0 +1,37 @@
+package com.reglisseforge.web.model;
+
+import com.reglisseforge.web.service.CodeChunkStats;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for CODE_CHUNK streaming statistics
+ */
+@Data
+@Builder
+public class StreamStatsResponse {
+    private long coalesceWindowMillis;
+    private int coalesceMaxBytes;
+    private long streams;
+    private long deltas;
+    private long frames;
+    private long bytes;
+    private double framesPerSecond;
+    private double bytesPerFrame;
+    private double deltasPerFrame;
+
+    public static StreamStatsResponse create(CodeChunkStats stats, long coalesceWindowMillis, int coalesceMaxBytes) {
+        return StreamStatsResponse.builder()
+                .coalesceWindowMillis(coalesceWindowMillis)
+                .coalesceMaxBytes(coalesceMaxBytes)
+                .streams(stats.getStreams())
+                .deltas(stats.getDeltas())
+                .frames(stats.getFrames())
+                .bytes(stats.getBytes())
+                .framesPerSecond(stats.getFramesPerSecond())
+                .bytesPerFrame(stats.getBytesPerFrame())
+                .deltasPerFrame(stats.getDeltasPerFrame())
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.reglisseforge.web.model;
+
+import java.util.List;
+import java.util.Map;
+
+import com.reglisseforge.tools.base.ToolMetrics;
+import com.reglisseforge.web.service.ToolMetricsService;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for tool call metrics, of all sessions or of one
+ */
+@Data
+@Builder
+public class ToolMetricsResponse {
+    private String sessionId;
+    private List<ToolStatsResponse> tools;
+    private int sessionsTracked;
+    private int maxSessions;
+    private double payloadLogSampleRate;
+
+    public static ToolMetricsResponse create(ToolMetricsService service) {
+        return create(service, null, service.getMetrics().getTools());
+    }
+
+    public static ToolMetricsResponse create(ToolMetricsService service, String sessionId) {
+        return create(service, sessionId, service.getMetrics().getSession(sessionId));
+    }
+
+    private static ToolMetricsResponse create(ToolMetricsService service, String sessionId,
+                                              Map<String, ToolMetrics.Stats> stats) {
+        return ToolMetricsResponse.builder()
+                .sessionId(sessionId)
+                .tools(stats.entrySet().stream()
+                        .map(entry -> ToolStatsResponse.create(entry.getKey(), entry.getValue()))
+                        .toList())
+                .sessionsTracked(service.getMetrics().getSessionsTracked())
+                .maxSessions(service.getMaxSessions())
+                .payloadLogSampleRate(service.getPayloadLogSampleRate())
+                .build();
+    }
+}
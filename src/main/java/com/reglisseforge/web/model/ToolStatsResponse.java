@@ -0,0 +1,49 @@
+package com.reglisseforge.web.model;
+
+import java.util.Map;
+
+import com.reglisseforge.tools.base.ToolMetrics;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * Response DTO for the call metrics of one tool
+ */
+@Data
+@Builder
+public class ToolStatsResponse {
+    private String tool;
+    private long calls;
+    private long errors;
+    private double errorRate;
+    private double averageMillis;
+    private double p50Millis;
+    private double p95Millis;
+    private double p99Millis;
+    private double maxMillis;
+    private Map<String, Long> latencyHistogram;
+    private long inputBytes;
+    private long outputBytes;
+    private long inputTokens;
+    private long outputTokens;
+
+    public static ToolStatsResponse create(String tool, ToolMetrics.Stats stats) {
+        return ToolStatsResponse.builder()
+                .tool(tool)
+                .calls(stats.getCalls())
+                .errors(stats.getErrors())
+                .errorRate(stats.getErrorRate())
+                .averageMillis(stats.getAverageMillis())
+                .p50Millis(stats.percentileMillis(0.50))
+                .p95Millis(stats.percentileMillis(0.95))
+                .p99Millis(stats.percentileMillis(0.99))
+                .maxMillis(stats.getMaxMillis())
+                .latencyHistogram(stats.getLatencyHistogram())
+                .inputBytes(stats.getInputBytes())
+                .outputBytes(stats.getOutputBytes())
+                .inputTokens(stats.getInputTokens())
+                .outputTokens(stats.getOutputTokens())
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.reglisseforge.web.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.reglisseforge.leo.LeoAutoFixer;
+import com.reglisseforge.leo.LeoBuildResult;
+import com.reglisseforge.leo.LeoSyntaxChecker;
+
+/**
+ * Applies LeoAutoFixer rules to a project's main.leo and keeps track of what they saved.
+ *
+ * A round that makes progress (the build succeeds or the reported errors change without
+ * growing) stands in for one LLM correction attempt; the tokens saved are estimated from the
+ * average token usage of the LLM attempts actually made.
+ */
+@Service
+public class AutoFixService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoFixService.class);
+
+    /**
+     * One applied round: the source before the rewrite, for reverting, and the fixes
+     */
+    public record Round(String original, LeoAutoFixer.Result result) {}
+
+    private final LongAdder rounds = new LongAdder();
+    private final LongAdder revertedRounds = new LongAdder();
+    private final LongAdder attemptsSaved = new LongAdder();
+    private final LongAdder llmAttempts = new LongAdder();
+    private final LongAdder llmTokens = new LongAdder();
+    private final Map<String, LongAdder> fixesByCode = new ConcurrentHashMap<>();
+
+    /**
+     * Rewrite main.leo for the errors of a failed build
+     *
+     * @return the applied round, or empty when no rule matched
+     */
+    public Optional<Round> fix(Path projectDir, LeoBuildResult build) throws IOException {
+        Path mainFile = projectDir.resolve(LeoSyntaxChecker.MAIN_FILE);
+        String original = Files.readString(mainFile);
+        LeoAutoFixer.Result result = LeoAutoFixer.apply(original, build.errors());
+        if (!result.changed()) {
+            return Optional.empty();
+        }
+
+        Files.writeString(mainFile, result.source());
+        rounds.increment();
+        result.fixes().forEach(fix -> fixesByCode.computeIfAbsent(fix.code(), code -> new LongAdder()).increment());
+        logger.info("Applied {} rule-based fixes to {}: {}", result.fixes().size(), mainFile, result.fixes());
+        return Optional.of(new Round(original, result));
+    }
+
+    /**
+     * Restore main.leo as it was before a round that did not help
+     */
+    public void revert(Path projectDir, Round round) throws IOException {
+        Files.writeString(projectDir.resolve(LeoSyntaxChecker.MAIN_FILE), round.original());
+        revertedRounds.increment();
+    }
+
+    /**
+     * Whether the rebuild after a round is better than the build before it
+     */
+    public boolean progressed(LeoBuildResult before, LeoBuildResult after) {
+        if (after.success()) {
+            return true;
+        }
+        if (after.timedOut()) {
+            return false;
+        }
+        int errorsBefore = before.errors().size();
+        int errorsAfter = after.errors().size();
+        // Parse errors are fatal at the first one, so a different error of the same count is progress too
+        return errorsAfter < errorsBefore
+                || (errorsAfter == errorsBefore && !after.summary().equals(before.summary()));
+    }
+
+    /**
+     * Record an LLM attempt made unnecessary by rule-based fixes that made the build succeed
+     */
+    public void recordAttemptSaved() {
+        attemptsSaved.increment();
+    }
+
+    /**
+     * Record the token usage of an LLM correction attempt, used to estimate savings
+     */
+    public void recordLlmAttempt(long tokens) {
+        llmAttempts.increment();
+        llmTokens.add(tokens);
+    }
+
+    public long getRounds() { return rounds.sum(); }
+
+    public long getRevertedRounds() { return revertedRounds.sum(); }
+
+    public long getAttemptsSaved() { return attemptsSaved.sum(); }
+
+    public long getLlmAttempts() { return llmAttempts.sum(); }
+
+    /**
+     * Average tokens (input, cache and output) of one LLM correction attempt
+     */
+    public double getAverageTokensPerLlmAttempt() {
+        long attempts = llmAttempts.sum();
+        return attempts > 0 ? (double) llmTokens.sum() / attempts : 0.0;
+    }
+
+    /**
+     * Tokens that the saved attempts would have cost at the observed average
+     */
+    public long getEstimatedTokensSaved() {
+        return Math.round(attemptsSaved.sum() * getAverageTokensPerLlmAttempt());
+    }
+
+    public Map<String, Long> getFixesByCode() {
+        Map<String, Long> counts = new TreeMap<>();
+        fixesByCode.forEach((code, count) -> counts.put(code, count.sum()));
+        return counts;
+    }
+}
@@ -0,0 +1,246 @@
+package com.reglisseforge.web.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Build outcomes keyed by a content hash of the project sources and the leo version.
+ *
+ * Identical sources (retries, the initial build repeated as correction attempt 1, popular
+ * prompts across sessions) reuse the recorded compiler output instead of running
+ * `leo build` again. Entries live in an in-memory LRU backed by a larger LRU of JSON files
+ * on disk, so the cache survives restarts.
+ */
+@Service
+public class BuildCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BuildCache.class);
+
+    /**
+     * A recorded `leo build` outcome
+     */
+    public record CachedBuild(int exitCode, String output, String leoVersion, long durationMillis, long createdAt) {}
+
+    private final boolean enabled;
+    private final int memoryEntries;
+    private final int diskEntries;
+    private final Path cacheDir;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** Access-ordered: the eldest entry is the least recently used */
+    private final LinkedHashMap<String, CachedBuild> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Boolean> disk = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder savedBuildMillis = new LongAdder();
+
+    public BuildCache(@Value("${leo.build.cache.enabled:true}") boolean enabled,
+                      @Value("${leo.build.cache.memory-entries:128}") int memoryEntries,
+                      @Value("${leo.build.cache.disk-entries:2048}") int diskEntries,
+                      @Value("${leo.build.cache.dir:buildcache}") String cacheDir) {
+        this.enabled = enabled;
+        this.memoryEntries = memoryEntries;
+        this.diskEntries = diskEntries;
+        this.cacheDir = Paths.get(cacheDir).toAbsolutePath().normalize();
+
+        if (enabled) {
+            loadDiskIndex();
+        }
+    }
+
+    /**
+     * Rebuild the disk LRU order from file modification times
+     */
+    private void loadDiskIndex() {
+        try {
+            Files.createDirectories(cacheDir);
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(cacheDir)) {
+                files = new ArrayList<>(stream.filter(path -> path.getFileName().toString().endsWith(".json")).toList());
+            }
+            files.sort(Comparator.comparing(path -> path.toFile().lastModified()));
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                disk.put(name.substring(0, name.length() - ".json".length()), Boolean.TRUE);
+            }
+            logger.info("Build cache at {}: {} entries on disk", cacheDir, disk.size());
+        } catch (IOException e) {
+            logger.warn("Failed to load build cache index from {}", cacheDir, e);
+        }
+    }
+
+    /**
+     * Content hash of everything that determines the build outcome: program.json, every file
+     * under src/ and the compiler version
+     */
+    public String key(Path projectDir, String leoVersion) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        update(digest, "leo-version", leoVersion.getBytes());
+
+        List<Path> inputs = new ArrayList<>();
+        inputs.add(projectDir.resolve("program.json"));
+        Path srcDir = projectDir.resolve("src");
+        if (Files.isDirectory(srcDir)) {
+            try (Stream<Path> stream = Files.walk(srcDir)) {
+                stream.filter(Files::isRegularFile).sorted().forEach(inputs::add);
+            }
+        }
+        for (Path input : inputs) {
+            if (Files.isRegularFile(input)) {
+                update(digest, projectDir.relativize(input).toString(), Files.readAllBytes(input));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String name, byte[] content) {
+        // Length-prefixed so that moving bytes between name and content changes the hash
+        digest.update((name + "\0" + content.length + "\0").getBytes());
+        digest.update(content);
+    }
+
+    /**
+     * Look up a build outcome, promoting disk hits into memory
+     */
+    public synchronized Optional<CachedBuild> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        CachedBuild cached = memory.get(key);
+        if (cached != null) {
+            memoryHits.increment();
+            savedBuildMillis.add(cached.durationMillis());
+            return Optional.of(cached);
+        }
+
+        if (disk.get(key) != null) {
+            Path file = entryFile(key);
+            try {
+                cached = objectMapper.readValue(file.toFile(), CachedBuild.class);
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                putInMemory(key, cached);
+                diskHits.increment();
+                savedBuildMillis.add(cached.durationMillis());
+                return Optional.of(cached);
+            } catch (IOException e) {
+                logger.warn("Dropping unreadable build cache entry {}", file, e);
+                disk.remove(key);
+                deleteQuietly(file);
+            }
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Record a build outcome in memory and on disk
+     */
+    public synchronized void put(String key, CachedBuild build) {
+        if (!enabled) {
+            return;
+        }
+        putInMemory(key, build);
+
+        Path file = entryFile(key);
+        Path tmp = cacheDir.resolve(key + ".tmp");
+        try {
+            Files.createDirectories(cacheDir);
+            objectMapper.writeValue(tmp.toFile(), build);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            disk.put(key, Boolean.TRUE);
+            stores.increment();
+        } catch (IOException e) {
+            logger.warn("Failed to persist build cache entry {}", file, e);
+            deleteQuietly(tmp);
+        }
+
+        while (disk.size() > diskEntries) {
+            Map.Entry<String, Boolean> eldest = disk.entrySet().iterator().next();
+            disk.remove(eldest.getKey());
+            deleteQuietly(entryFile(eldest.getKey()));
+            evictions.increment();
+        }
+    }
+
+    private void putInMemory(String key, CachedBuild build) {
+        memory.put(key, build);
+        while (memory.size() > memoryEntries) {
+            memory.remove(memory.keySet().iterator().next());
+        }
+    }
+
+    private Path entryFile(String key) {
+        return cacheDir.resolve(key + ".json");
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Failed to delete {}", file, e);
+        }
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public long getMemoryHits() { return memoryHits.sum(); }
+
+    public long getDiskHits() { return diskHits.sum(); }
+
+    public long getMisses() { return misses.sum(); }
+
+    public long getStores() { return stores.sum(); }
+
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * Compiler wall-clock time avoided by cache hits, based on the recorded build durations
+     */
+    public long getSavedBuildMillis() { return savedBuildMillis.sum(); }
+
+    public synchronized int getMemorySize() { return memory.size(); }
+
+    public synchronized int getDiskSize() { return disk.size(); }
+
+    /**
+     * Fraction of lookups served from memory or disk
+     */
+    public double getHitRate() {
+        long hits = memoryHits.sum() + diskHits.sum();
+        long lookups = hits + misses.sum();
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.reglisseforge.web.service;
+
+import com.reglisseforge.utils.CommandRunner;
+
+/**
+ * Batches the output lines of one build into BUILD_PROGRESS frames, with the same time window
+ * and byte threshold as CODE_CHUNK frames, and stops forwarding after {@code maxLines} lines:
+ * the rest of a verbose build is summarized in one last frame when the build ends.
+ */
+public class BuildProgressCoalescer implements CommandRunner.LineListener, AutoCloseable {
+
+    private final CodeChunkCoalescer frames;
+    private final int maxLines;
+
+    private int lines;
+    private int droppedLines;
+
+    public BuildProgressCoalescer(CodeChunkCoalescer frames, int maxLines) {
+        this.frames = frames;
+        this.maxLines = maxLines;
+    }
+
+    @Override
+    public synchronized void onLine(CommandRunner.Channel channel, String line) {
+        if (lines >= maxLines) {
+            droppedLines++;
+            return;
+        }
+        lines++;
+        frames.append(line + "\n");
+    }
+
+    /**
+     * Flush the buffered lines and report the lines that were not forwarded
+     */
+    @Override
+    public synchronized void close() {
+        if (droppedLines > 0) {
+            frames.append(String.format("... %d more lines (see build result)%n", droppedLines));
+        }
+        frames.close();
+    }
+}
@@ -0,0 +1,116 @@
+package com.reglisseforge.web.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces streamed text deltas into larger CODE_CHUNK frames.
+ *
+ * A frame is emitted when the buffered text reaches {@code maxBytes} or when the oldest
+ * buffered delta is older than {@code windowMillis}, whichever comes first. Flushing only
+ * happens on the producer thread (on append or close), never on a timer of its own.
+ *
+ * Also batches build output lines, see {@link BuildProgressCoalescer}.
+ */
+public class CodeChunkCoalescer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CodeChunkCoalescer.class);
+
+    private final String sessionId;
+    private final Consumer<String> sink;
+    private final long windowNanos;
+    private final int maxBytes;
+    private final CodeChunkStats stats;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private int bufferedBytes;
+    private long firstBufferedAt;
+
+    private final long startedAt = System.nanoTime();
+    private long deltas;
+    private long frames;
+    private long bytes;
+    private boolean closed;
+
+    public CodeChunkCoalescer(String sessionId, Consumer<String> sink, long windowMillis, int maxBytes,
+                              CodeChunkStats stats) {
+        this.sessionId = sessionId;
+        this.sink = sink;
+        this.windowNanos = windowMillis * 1_000_000L;
+        this.maxBytes = maxBytes;
+        this.stats = stats;
+    }
+
+    /**
+     * Buffer a text delta, emitting a frame if the byte threshold or time window is reached
+     */
+    public synchronized void append(String delta) {
+        if (closed || delta == null || delta.isEmpty()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (buffer.isEmpty()) {
+            firstBufferedAt = now;
+        }
+        buffer.append(delta);
+        bufferedBytes += delta.getBytes(StandardCharsets.UTF_8).length;
+        deltas++;
+
+        if (bufferedBytes >= maxBytes || now - firstBufferedAt >= windowNanos) {
+            flush();
+        }
+    }
+
+    /**
+     * Emit whatever is currently buffered as a single frame
+     */
+    public synchronized void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        String frame = buffer.toString();
+        int frameBytes = bufferedBytes;
+        buffer.setLength(0);
+        bufferedBytes = 0;
+
+        sink.accept(frame);
+        frames++;
+        bytes += frameBytes;
+    }
+
+    /**
+     * Flush the remaining text and record this stream in the aggregated statistics, if any
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+
+        if (stats == null) {
+            // Untracked stream, such as build output
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        stats.record(deltas, frames, bytes, elapsedNanos);
+
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        logger.info("Session {}: {} deltas coalesced into {} frames ({} bytes/frame, {} frames/sec)",
+                sessionId, deltas, frames,
+                frames > 0 ? bytes / frames : 0,
+                seconds > 0 ? String.format("%.1f", frames / seconds) : "0.0");
+    }
+
+    public synchronized long getDeltaCount() { return deltas; }
+
+    public synchronized long getFrameCount() { return frames; }
+
+    public synchronized long getByteCount() { return bytes; }
+}
@@ -0,0 +1,55 @@
+package com.reglisseforge.web.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated CODE_CHUNK streaming statistics across all sessions
+ */
+public class CodeChunkStats {
+
+    private final LongAdder streams = new LongAdder();
+    private final LongAdder deltas = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder streamNanos = new LongAdder();
+
+    void record(long deltaCount, long frameCount, long byteCount, long elapsedNanos) {
+        streams.increment();
+        deltas.add(deltaCount);
+        frames.add(frameCount);
+        bytes.add(byteCount);
+        streamNanos.add(elapsedNanos);
+    }
+
+    public long getStreams() { return streams.sum(); }
+
+    public long getDeltas() { return deltas.sum(); }
+
+    public long getFrames() { return frames.sum(); }
+
+    public long getBytes() { return bytes.sum(); }
+
+    /**
+     * Average frame size in bytes
+     */
+    public double getBytesPerFrame() {
+        long frameCount = frames.sum();
+        return frameCount > 0 ? (double) bytes.sum() / frameCount : 0.0;
+    }
+
+    /**
+     * Average number of frames sent per second of streaming
+     */
+    public double getFramesPerSecond() {
+        long nanos = streamNanos.sum();
+        return nanos > 0 ? frames.sum() / (nanos / 1_000_000_000.0) : 0.0;
+    }
+
+    /**
+     * Average number of text deltas folded into a single frame
+     */
+    public double getDeltasPerFrame() {
+        long frameCount = frames.sum();
+        return frameCount > 0 ? (double) deltas.sum() / frameCount : 0.0;
+    }
+}
@@ -0,0 +1,114 @@
+package com.reglisseforge.web.service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.reglisseforge.tools.FixHistoryArchive;
+import com.reglisseforge.tools.FixHistoryManager;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the fix history directory bounded: on a fixed interval it packs completed sessions into
+ * compressed archives, evicts those past their TTL or beyond the size cap (least recently read
+ * first) and removes the code snapshots no session refers to any more.
+ */
+@Service
+public class FixHistoryMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(FixHistoryMaintenance.class);
+
+    private final FixHistoryManager fixHistoryManager;
+    private final boolean enabled;
+    private final Duration archiveAfter;
+    private final FixHistoryArchive.Codec codec;
+    private final Duration ttl;
+    private final long maxTotalBytes;
+    private final ScheduledExecutorService executor;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder sessionsArchived = new LongAdder();
+    private final LongAdder sessionsEvicted = new LongAdder();
+    private final LongAdder snapshotsSwept = new LongAdder();
+    private volatile long lastRunMillis;
+
+    public FixHistoryMaintenance(FixHistoryManager fixHistoryManager,
+                                 @Value("${leo.fixhistory.maintenance.enabled:true}") boolean enabled,
+                                 @Value("${leo.fixhistory.maintenance.interval-minutes:30}") long intervalMinutes,
+                                 @Value("${leo.fixhistory.archive.after-minutes:60}") long archiveAfterMinutes,
+                                 @Value("${leo.fixhistory.archive.codec:gzip}") String codec,
+                                 @Value("${leo.fixhistory.retention.ttl-days:90}") long ttlDays,
+                                 @Value("${leo.fixhistory.retention.max-total-mb:1024}") long maxTotalMb) {
+        this.fixHistoryManager = fixHistoryManager;
+        this.enabled = enabled;
+        this.archiveAfter = Duration.ofMinutes(archiveAfterMinutes);
+        this.codec = FixHistoryArchive.Codec.of(codec);
+        this.ttl = Duration.ofDays(ttlDays);
+        this.maxTotalBytes = maxTotalMb * 1024 * 1024;
+
+        if (enabled) {
+            this.executor = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("leo-fixhistory-maintenance").daemon(true).factory());
+            executor.scheduleWithFixedDelay(this::runSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+            logger.info("Fix history maintenance every {} min: archive after {} min with {}, keep {} days and {} MB",
+                    intervalMinutes, archiveAfterMinutes, this.codec, ttlDays, maxTotalMb);
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Archive completed sessions, evict expired or excess ones, then sweep unreferenced snapshots
+     */
+    public synchronized void run() {
+        long start = System.nanoTime();
+        sessionsArchived.add(fixHistoryManager.archiveCompletedSessions(codec, archiveAfter));
+        sessionsEvicted.add(fixHistoryManager.evictArchives(ttl, maxTotalBytes));
+        snapshotsSwept.add(fixHistoryManager.sweepSnapshots());
+        runs.increment();
+        lastRunMillis = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runSafely() {
+        try {
+            run();
+        } catch (RuntimeException e) {
+            // Keep the schedule alive, the next run retries
+            logger.error("Fix history maintenance failed", e);
+        }
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public String getCodec() { return codec.name().toLowerCase(Locale.ROOT); }
+
+    public long getRuns() { return runs.sum(); }
+
+    public long getSessionsArchived() { return sessionsArchived.sum(); }
+
+    public long getSessionsEvicted() { return sessionsEvicted.sum(); }
+
+    public long getSnapshotsSwept() { return snapshotsSwept.sum(); }
+
+    public long getLastRunMillis() { return lastRunMillis; }
+
+    public long getMaxTotalBytes() { return maxTotalBytes; }
+
+    public long getDiskUsageBytes() { return fixHistoryManager.getDiskUsageBytes(); }
+}
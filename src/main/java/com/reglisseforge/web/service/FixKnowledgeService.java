@@ -0,0 +1,203 @@
+package com.reglisseforge.web.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.reglisseforge.leo.LeoBuildResult;
+import com.reglisseforge.leo.LeoSyntaxChecker;
+import com.reglisseforge.tools.FixHistoryIndex;
+import com.reglisseforge.tools.FixHistoryManager;
+import com.reglisseforge.tools.FixKnowledgeBase;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Learns error fixes from the fix history and serves them to the correction loop, either as
+ * patches applied to main.leo or as examples for the LLM, and keeps track of what they saved.
+ *
+ * The knowledge base is mined from all completed sessions at startup and from each session as it
+ * completes, always on one background miner thread so that neither generation threads nor the
+ * archive's recency are affected.
+ */
+@Service
+public class FixKnowledgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FixKnowledgeService.class);
+
+    /**
+     * One applied round: the source before the patches, for reverting, and the patches
+     */
+    public record Round(String original, FixKnowledgeBase.Result result) {}
+
+    private final FixHistoryManager fixHistoryManager;
+    private final FixKnowledgeBase knowledge = new FixKnowledgeBase();
+    private final Set<String> minedSessions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService miner = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("leo-fix-knowledge-miner").factory());
+
+    private final LongAdder stepsMined = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder rounds = new LongAdder();
+    private final LongAdder revertedRounds = new LongAdder();
+    private final LongAdder patchesApplied = new LongAdder();
+    private final LongAdder attemptsSaved = new LongAdder();
+    private final LongAdder hintedAttempts = new LongAdder();
+
+    public FixKnowledgeService(FixHistoryManager fixHistoryManager) {
+        this.fixHistoryManager = fixHistoryManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void mineHistory() {
+        submit(() -> {
+            long start = System.nanoTime();
+            for (FixHistoryIndex.SessionEntry entry : List.copyOf(fixHistoryManager.getIndex().entries())) {
+                if (entry.status() != null && entry.status().startsWith("COMPLETED_")) {
+                    learn(entry.sessionId());
+                }
+            }
+            logger.info("Learned {} fixes for {} error signatures from {} sessions in {} ms", knowledge.size(),
+                    knowledge.signatures(), minedSessions.size(), (System.nanoTime() - start) / 1_000_000);
+        });
+    }
+
+    /**
+     * Queue learning from the correction attempts of a completed session, once
+     */
+    public void learnSession(String sessionId) {
+        submit(() -> learn(sessionId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        miner.shutdownNow();
+    }
+
+    private void submit(Runnable task) {
+        try {
+            miner.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down, the session is mined at the next startup
+        }
+    }
+
+    private void learn(String sessionId) {
+        if (!minedSessions.add(sessionId)) {
+            return;
+        }
+        try {
+            // Mining must not count as an access, or it would keep every archive from eviction
+            for (FixHistoryManager.FixStep step : fixHistoryManager.getFixSteps(sessionId, false)) {
+                knowledge.learn(step);
+                stepsMined.increment();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to learn fixes from session: {}", sessionId, e);
+        }
+    }
+
+    /**
+     * Patch main.leo for the errors of a failed build with the learned fixes at or above minConfidence
+     *
+     * @return the applied round, or empty when no fix matched
+     */
+    public Optional<Round> fix(Path projectDir, LeoBuildResult build, double minConfidence) throws IOException {
+        lookups.increment();
+        Path mainFile = projectDir.resolve(LeoSyntaxChecker.MAIN_FILE);
+        String original = Files.readString(mainFile);
+        FixKnowledgeBase.Result result = knowledge.apply(original, build.errors(), minConfidence);
+        if (!result.changed()) {
+            return Optional.empty();
+        }
+
+        Files.writeString(mainFile, result.source());
+        rounds.increment();
+        patchesApplied.add(result.applied().size());
+        logger.info("Applied {} learned fixes to {}: {}", result.applied().size(), mainFile,
+                result.applied().stream().map(a -> a.patch().code() + "@" + a.line()).toList());
+        return Optional.of(new Round(original, result));
+    }
+
+    /**
+     * Restore main.leo as it was before a round that did not help
+     */
+    public void revert(Path projectDir, Round round) throws IOException {
+        Files.writeString(projectDir.resolve(LeoSyntaxChecker.MAIN_FILE), round.original());
+        revertedRounds.increment();
+        recordOutcome(round, false);
+    }
+
+    /**
+     * Record a round that made progress, rebuilt being the build after it. The round saved an
+     * LLM attempt only when that build succeeded; with errors left, an attempt is still needed.
+     */
+    public void recordProgress(Round round, LeoBuildResult rebuilt) {
+        recordOutcome(round, true);
+        if (rebuilt.success()) {
+            attemptsSaved.increment();
+        }
+    }
+
+    /**
+     * Learned fixes of the errors of a build, rendered as examples for the correction prompt
+     *
+     * @return the examples, empty when none are known
+     */
+    public String examples(LeoBuildResult build, int limit) {
+        if (limit <= 0) {
+            return "";
+        }
+        List<FixKnowledgeBase.Match> matches = knowledge.examples(build.errors(), limit);
+        if (matches.isEmpty()) {
+            return "";
+        }
+        hintedAttempts.increment();
+        StringBuilder examples = new StringBuilder();
+        for (FixKnowledgeBase.Match match : matches) {
+            FixKnowledgeBase.Patch patch = match.patch();
+            examples.append(String.format("[%s] fixed %d of %d times by rewriting:%n```%n%s%n```%ninto:%n```%n%s%n```%n",
+                    patch.code(), match.successes(), match.successes() + match.failures(),
+                    patch.exampleBefore(), patch.exampleAfter()));
+        }
+        return examples.toString();
+    }
+
+    private void recordOutcome(Round round, boolean success) {
+        round.result().applied().forEach(applied -> knowledge.recordOutcome(applied.patch(), success));
+    }
+
+    public long getSessionsMined() { return minedSessions.size(); }
+
+    public long getStepsMined() { return stepsMined.sum(); }
+
+    public int getKnownFixes() { return knowledge.size(); }
+
+    public int getKnownSignatures() { return knowledge.signatures(); }
+
+    public long getLookups() { return lookups.sum(); }
+
+    public long getRounds() { return rounds.sum(); }
+
+    public long getRevertedRounds() { return revertedRounds.sum(); }
+
+    public long getPatchesApplied() { return patchesApplied.sum(); }
+
+    public long getAttemptsSaved() { return attemptsSaved.sum(); }
+
+    public long getHintedAttempts() { return hintedAttempts.sum(); }
+}
@@ -0,0 +1,140 @@
+package com.reglisseforge.web.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Dedicated scheduler for generation jobs (LLM generation + build/fix loop).
+ *
+ * Jobs run on their own bounded pool instead of the common ForkJoinPool, so blocking LLM
+ * calls and {@code leo build} never compete with parallel streams. At most
+ * {@code maxConcurrent} jobs run at once, at most {@code queueCapacity} wait, and anything
+ * beyond that is rejected so the caller can answer 429.
+ */
+@Service
+public class GenerationScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationScheduler.class);
+
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final boolean virtualThreads;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public GenerationScheduler(@Value("${leo.generation.max-concurrent:4}") int maxConcurrent,
+                               @Value("${leo.generation.queue-capacity:16}") int queueCapacity,
+                               @Value("${leo.generation.virtual-threads:false}") boolean virtualThreads) {
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+        this.virtualThreads = virtualThreads;
+
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("leo-gen-", 0).factory()
+                : Thread.ofPlatform().name("leo-gen-", 0).daemon(true).factory();
+
+        this.executor = new ThreadPoolExecutor(
+                maxConcurrent, maxConcurrent,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+
+        logger.info("Generation scheduler started: maxConcurrent={}, queueCapacity={}, virtualThreads={}",
+                maxConcurrent, queueCapacity, virtualThreads);
+    }
+
+    /**
+     * Submit a generation job
+     *
+     * @throws RejectedExecutionException if all workers are busy and the queue is full
+     */
+    public void submit(String sessionId, Runnable job) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(sessionId, job, enqueuedAt));
+            submitted.increment();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warn("Generation scheduler saturated, rejecting session {} (active={}, queued={})",
+                    sessionId, executor.getActiveCount(), executor.getQueue().size());
+            throw e;
+        }
+    }
+
+    private void run(String sessionId, Runnable job, long enqueuedAt) {
+        long waitNanos = System.nanoTime() - enqueuedAt;
+        started.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        logger.info("Session {} started after waiting {} ms in the generation queue",
+                sessionId, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+
+        try {
+            job.run();
+            completed.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            throw e;
+        }
+    }
+
+    public int getMaxConcurrent() { return maxConcurrent; }
+
+    public int getQueueCapacity() { return queueCapacity; }
+
+    public boolean isVirtualThreads() { return virtualThreads; }
+
+    public int getActiveJobs() { return executor.getActiveCount(); }
+
+    public int getQueueDepth() { return executor.getQueue().size(); }
+
+    public long getSubmitted() { return submitted.sum(); }
+
+    public long getCompleted() { return completed.sum(); }
+
+    public long getFailed() { return failed.sum(); }
+
+    public long getRejected() { return rejected.sum(); }
+
+    /**
+     * Average time a job spent in the queue before starting, in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long count = started.sum();
+        return count > 0 ? totalWaitNanos.sum() / (count * 1_000_000.0) : 0.0;
+    }
+
+    /**
+     * Longest time a job spent in the queue before starting, in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Shutting down generation scheduler ({} active, {} queued)",
+                executor.getActiveCount(), executor.getQueue().size());
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,139 @@
+package com.reglisseforge.web.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.reglisseforge.leo.LeoBuildResult;
+import com.reglisseforge.leo.LeoSyntaxChecker;
+import com.reglisseforge.utils.CommandRunner;
+import com.reglisseforge.web.config.CommandTimeouts;
+import com.reglisseforge.web.config.CorrectionSettings;
+
+/**
+ * Builds Leo projects for the web engine and correctors.
+ *
+ * A build goes through three stages, each cheaper than the next: the in-process syntax
+ * pre-check, the content-hash {@link BuildCache}, and finally `leo build` itself.
+ */
+@Service
+public class LeoBuildService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeoBuildService.class);
+
+    private final CorrectionSettings settings;
+    private final BuildCache buildCache;
+    private final CommandTimeouts timeouts;
+    private final LeoToolchain toolchain;
+
+    public LeoBuildService(CorrectionSettings settings, BuildCache buildCache, CommandTimeouts timeouts,
+                           LeoToolchain toolchain) {
+        this.settings = settings;
+        this.buildCache = buildCache;
+        this.timeouts = timeouts;
+        this.toolchain = toolchain;
+    }
+
+    /**
+     * Build a project and parse the compiler output into diagnostics
+     */
+    public LeoBuildResult build(Path projectDir) {
+        return build(projectDir, null);
+    }
+
+    /**
+     * Build a project, streaming the compiler output line by line to the listener while it runs.
+     * Pre-check and cache results are returned without calling the listener.
+     */
+    public LeoBuildResult build(Path projectDir, CommandRunner.LineListener listener) {
+        // Syntax errors are reported in milliseconds without spawning the compiler
+        if (settings.isPrecheckEnabled()) {
+            LeoSyntaxChecker.Result precheck = LeoSyntaxChecker.checkProject(projectDir);
+            logger.info("Pre-check: {} errors, {} warnings in {} ms", precheck.errors().size(),
+                    precheck.warnings().size(), precheck.elapsedMillis());
+            if (precheck.hasErrors()) {
+                return LeoBuildResult.fromPrecheck(precheck);
+            }
+        }
+
+        String key = cacheKey(projectDir);
+        if (key != null) {
+            Optional<BuildCache.CachedBuild> cached = buildCache.get(key);
+            if (cached.isPresent()) {
+                logger.info("Build cache hit for {} ({} ms of leo build saved)",
+                        projectDir.getFileName(), cached.get().durationMillis());
+                return LeoBuildResult.fromOutput(LeoBuildResult.Stage.CACHE, cached.get().exitCode(),
+                        cached.get().output(), 0L);
+            }
+        }
+
+        return runCompiler(projectDir, key, listener);
+    }
+
+    /**
+     * Run `leo build` in the project whatever the pre-check and the cache say, so that its build/
+     * output exists. A passing build replayed from the cache, or run in a candidate workspace,
+     * leaves the project without one.
+     */
+    public LeoBuildResult compile(Path projectDir, CommandRunner.LineListener listener) {
+        return runCompiler(projectDir, cacheKey(projectDir), listener);
+    }
+
+    private LeoBuildResult runCompiler(Path projectDir, String key, CommandRunner.LineListener listener) {
+        long start = System.nanoTime();
+        CommandRunner.CommandResult result = toolchain.run(projectDir.toFile(), timeouts.getBuild(), listener, "build");
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Combine stdout and stderr for full output
+        String fullOutput = result.stdout();
+        if (!result.stderr().isEmpty()) {
+            fullOutput += "\n" + result.stderr();
+        }
+
+        if (result.timedOut()) {
+            logger.warn("leo build of {} timed out after {} ms, process tree killed", projectDir, durationMillis);
+            return LeoBuildResult.fromTimeout(result.exitCode(), fullOutput, durationMillis);
+        }
+
+        logger.debug("Build exit code: {} ({} ms)", result.exitCode(), durationMillis);
+
+        // Exit code -1 means the process could not be run at all, which says nothing about the sources
+        if (key != null && result.exitCode() >= 0) {
+            buildCache.put(key, new BuildCache.CachedBuild(result.exitCode(), fullOutput, getLeoVersion(),
+                    durationMillis, System.currentTimeMillis()));
+        }
+
+        return LeoBuildResult.fromOutput(LeoBuildResult.Stage.COMPILER, result.exitCode(), fullOutput, durationMillis);
+    }
+
+    /**
+     * Cache key of the project, or null when the project cannot be cached
+     */
+    private String cacheKey(Path projectDir) {
+        if (!buildCache.isEnabled()) {
+            return null;
+        }
+        String version = getLeoVersion();
+        if (version == null) {
+            return null;
+        }
+        try {
+            return buildCache.key(projectDir, version);
+        } catch (IOException e) {
+            logger.warn("Failed to hash project {}, building without cache", projectDir, e);
+            return null;
+        }
+    }
+
+    /**
+     * Installed compiler version. Null while leo cannot be run, so that outcomes of an unknown
+     * compiler are never cached.
+     */
+    public String getLeoVersion() {
+        return toolchain.getLeoVersion();
+    }
+}
@@ -0,0 +1,227 @@
+package com.reglisseforge.web.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.reglisseforge.leo.PrivateKeyPool;
+import com.reglisseforge.leo.ProjectSkeletonCache;
+import com.reglisseforge.utils.CommandRunner;
+import com.reglisseforge.web.config.CommandTimeouts;
+
+/**
+ * Runs the leo CLI.
+ *
+ * The login environment and the leo binary are resolved once at startup with a single
+ * `bash -lc`, after which every leo command is exec'd directly with that environment: no shell,
+ * no profile sourcing per build, and output read on virtual threads. When leo cannot
+ * be resolved (or leo.command.direct-exec is false), commands go through `bash -lc` as before.
+ *
+ * New projects are copied from a per-version template skeleton rather than made by `leo new`.
+ */
+@Service
+public class LeoToolchain {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeoToolchain.class);
+
+    private final Path leoBinary;
+    private final Map<String, String> environment;
+    private final CommandTimeouts timeouts;
+    private final ProjectSkeletonCache skeletons;
+
+    private volatile String leoVersion;
+
+    public LeoToolchain(@Value("${leo.command.direct-exec:true}") boolean directExec,
+                        @Value("${leo.project.skeleton-cache.enabled:true}") boolean skeletonCacheEnabled,
+                        @Value("${leo.project.skeleton-cache.dir:skeletons}") String skeletonCacheDir,
+                        @Value("${leo.project.skeleton-cache.key-pool-size:4}") int keyPoolSize,
+                        CommandTimeouts timeouts) {
+        this.timeouts = timeouts;
+        this.skeletons = skeletonCacheEnabled
+                ? new ProjectSkeletonCache(Path.of(skeletonCacheDir),
+                        (dir, name) -> run(dir, timeouts.getNewProject(), null, "new", name),
+                        new PrivateKeyPool(Path.of(skeletonCacheDir, "keys"), keyPoolSize,
+                                () -> run(null, timeouts.getNewProject(), null, "account", "new")))
+                : null;
+
+        Map<String, String> loginEnvironment = directExec ? loginEnvironment(timeouts.getVersion()) : null;
+        this.environment = loginEnvironment;
+        this.leoBinary = loginEnvironment != null ? findOnPath("leo", loginEnvironment.get("PATH")) : null;
+
+        if (leoBinary != null) {
+            logger.info("Executing leo directly from {}", leoBinary);
+        } else {
+            logger.info("Executing leo through bash -lc (direct exec {})", directExec ? "unavailable" : "disabled");
+        }
+    }
+
+    /**
+     * Produce the project template and the first private keys in the background, so that the first
+     * session does not wait for them
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareSkeletons() {
+        if (skeletons != null) {
+            Thread.ofVirtual().name("leo-skeleton-prepare").start(() -> skeletons.prepare(getLeoVersion()));
+        }
+    }
+
+    /**
+     * Run `leo <args>`, streaming output lines to the listener (may be null)
+     */
+    public CommandRunner.CommandResult run(File workingDir, Duration timeout, CommandRunner.LineListener listener,
+                                           String... args) {
+        if (leoBinary == null) {
+            return CommandRunner.runBashStreaming("leo " + String.join(" ", args), workingDir, timeout, listener);
+        }
+        List<String> command = new ArrayList<>(args.length + 1);
+        command.add(leoBinary.toString());
+        command.addAll(List.of(args));
+        return CommandRunner.exec(command, workingDir, environment, timeout, listener);
+    }
+
+    /**
+     * Create workspaceDir/projectName, from the template skeleton when possible
+     *
+     * @return the project directory
+     */
+    public Path newProject(Path workspaceDir, String projectName) throws IOException {
+        if (skeletons != null) {
+            return skeletons.materialize(workspaceDir, projectName, getLeoVersion());
+        }
+        CommandRunner.CommandResult result = run(workspaceDir.toFile(), timeouts.getNewProject(), null, "new", projectName);
+        if (result.timedOut()) {
+            throw new IOException(result.stderr().strip());
+        }
+        return workspaceDir.resolve(projectName);
+    }
+
+    /**
+     * Installed compiler version, resolved once. Null while leo cannot be run.
+     */
+    public String getLeoVersion() {
+        String version = leoVersion;
+        if (version == null) {
+            CommandRunner.CommandResult result = run(null, timeouts.getVersion(), null, "--version");
+            if (result.exitCode() == 0 && !result.stdout().isBlank()) {
+                version = result.stdout().trim();
+                leoVersion = version;
+                logger.info("Using {}", version);
+            } else {
+                logger.warn("Could not determine leo version (exit code {})", result.exitCode());
+            }
+        }
+        return version;
+    }
+
+    public boolean isDirectExec() { return leoBinary != null; }
+
+    /**
+     * Resolved leo binary, or null when commands go through bash
+     */
+    public Path getLeoBinary() { return leoBinary; }
+
+    /**
+     * Environment of a login shell, i.e. with the PATH additions of the user's profile. The
+     * output of `env -0` is read raw and whole: a single variable may be longer than any line
+     * limit, and a partial environment is worse than falling back to bash.
+     */
+    private static Map<String, String> loginEnvironment(Duration timeout) {
+        byte[] output;
+        try {
+            output = readLoginEnvironment(timeout);
+        } catch (IOException e) {
+            logger.warn("Could not capture the login environment: {}", e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        Map<String, String> environment = new HashMap<>();
+        for (String entry : new String(output, StandardCharsets.UTF_8).split("\0")) {
+            int equals = entry.indexOf('=');
+            if (equals > 0) {
+                // Anything a profile printed ends up before the first name
+                String name = entry.substring(entry.lastIndexOf('\n', equals) + 1, equals);
+                environment.put(name, entry.substring(equals + 1));
+            }
+        }
+        return environment;
+    }
+
+    private static byte[] readLoginEnvironment(Duration timeout) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("bash", "-lc", "env -0")
+                .redirectInput(ProcessBuilder.Redirect.from(new File("/dev/null")))
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        CompletableFuture<byte[]> output = new CompletableFuture<>();
+        Thread.ofVirtual().name("login-environment-reader").start(() -> {
+            try (InputStream in = process.getInputStream()) {
+                output.complete(in.readAllBytes());
+            } catch (IOException e) {
+                output.completeExceptionally(e);
+            }
+        });
+
+        try {
+            if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("env -0 timed out after " + timeout.toMillis() + " ms");
+            }
+            // A background process started by the profile may still hold the pipe
+            byte[] bytes = output.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (process.exitValue() != 0) {
+                throw new IOException("env -0 exited with code " + process.exitValue());
+            }
+            if (bytes.length == 0 || bytes[bytes.length - 1] != 0) {
+                throw new IOException("env -0 output is incomplete (" + bytes.length + " bytes)");
+            }
+            return bytes;
+        } catch (ExecutionException e) {
+            throw new IOException("Could not read env -0 output: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IOException("env -0 output was still open after the shell exited");
+        } finally {
+            if (!output.isDone()) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+                process.getInputStream().close();
+            }
+        }
+    }
+
+    private static Path findOnPath(String program, String path) {
+        if (path == null) {
+            return null;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isEmpty()) {
+                continue;
+            }
+            Path candidate = Path.of(dir, program);
+            if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.reglisseforge.web.service;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated token usage of cached-prompt requests, used to verify prompt cache hit rates
+ */
+public class PromptCacheStats {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder inputTokens = new LongAdder();
+    private final LongAdder cacheCreationTokens = new LongAdder();
+    private final LongAdder cacheReadTokens = new LongAdder();
+    private final LongAdder outputTokens = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder toolsHashChanges = new LongAdder();
+    private final AtomicReference<String> toolsHash = new AtomicReference<>();
+
+    public void record(long input, long cacheCreation, long cacheRead, long output) {
+        requests.increment();
+        inputTokens.add(input);
+        cacheCreationTokens.add(cacheCreation);
+        cacheReadTokens.add(cacheRead);
+        outputTokens.add(output);
+        if (cacheRead > 0) {
+            cacheHits.increment();
+        }
+    }
+
+    /**
+     * Hash of the tool definitions a request was sent with; a change invalidates the cached prefix
+     */
+    public void recordToolsHash(String hash) {
+        String previous = toolsHash.getAndSet(hash);
+        if (previous != null && !previous.equals(hash)) {
+            toolsHashChanges.increment();
+        }
+    }
+
+    public long getRequests() { return requests.sum(); }
+
+    public long getInputTokens() { return inputTokens.sum(); }
+
+    public long getCacheCreationTokens() { return cacheCreationTokens.sum(); }
+
+    public long getCacheReadTokens() { return cacheReadTokens.sum(); }
+
+    public long getOutputTokens() { return outputTokens.sum(); }
+
+    public String getToolsHash() { return toolsHash.get(); }
+
+    public long getToolsHashChanges() { return toolsHashChanges.sum(); }
+
+    /**
+     * Fraction of requests that read at least part of their prompt from the cache
+     */
+    public double getRequestHitRate() {
+        long count = requests.sum();
+        return count > 0 ? (double) cacheHits.sum() / count : 0.0;
+    }
+
+    /**
+     * Fraction of all prompt tokens that were served from the cache
+     */
+    public double getTokenHitRate() {
+        long read = cacheReadTokens.sum();
+        long total = read + cacheCreationTokens.sum() + inputTokens.sum();
+        return total > 0 ? (double) read / total : 0.0;
+    }
+}
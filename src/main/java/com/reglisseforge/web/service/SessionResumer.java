@@ -0,0 +1,81 @@
+package com.reglisseforge.web.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.reglisseforge.tools.FixHistoryManager;
+import com.reglisseforge.tools.WebLeoCodeEngine;
+
+/**
+ * Resumes, on startup, the sessions a previous run left unfinished, from their last checkpoint.
+ *
+ * Only checkpoints updated within {@code maxAgeHours} are picked up, so sessions abandoned long
+ * ago are not revived; older ones can still be resumed through /api/generation/resume.
+ */
+@Service
+public class SessionResumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionResumer.class);
+
+    private final WebLeoCodeEngine engine;
+    private final GenerationScheduler scheduler;
+    private final StreamEventService eventService;
+    private final boolean enabled;
+    private final Duration maxAge;
+
+    public SessionResumer(WebLeoCodeEngine engine, GenerationScheduler scheduler, StreamEventService eventService,
+                          @Value("${leo.generation.resume-on-startup:true}") boolean enabled,
+                          @Value("${leo.generation.resume-max-age-hours:24}") long maxAgeHours) {
+        this.engine = engine;
+        this.scheduler = scheduler;
+        this.eventService = eventService;
+        this.enabled = enabled;
+        this.maxAge = Duration.ofHours(maxAgeHours);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedSessions() {
+        if (!enabled) {
+            return;
+        }
+
+        List<FixHistoryManager.Checkpoint> checkpoints = engine.getResumableCheckpoints(maxAge);
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+        logger.info("Resuming {} interrupted session(s)", checkpoints.size());
+
+        for (FixHistoryManager.Checkpoint checkpoint : checkpoints) {
+            String sessionId = checkpoint.sessionId();
+            if (!engine.claim(sessionId)) {
+                // Resumed through the API meanwhile
+                continue;
+            }
+            try {
+                scheduler.submit(sessionId, () -> {
+                    try {
+                        engine.resumeClaimed(sessionId);
+                    } catch (Exception e) {
+                        logger.error("Error while resuming session: {}", sessionId, e);
+                        eventService.sendError(sessionId, "Resume failed: " + e.getMessage());
+                    }
+                });
+                logger.info("Session {} queued for resume from {} (attempt {})", sessionId, checkpoint.phase(), checkpoint.attempt());
+            } catch (RejectedExecutionException e) {
+                engine.release(sessionId);
+                // The rest stays checkpointed and can be resumed through the API
+                logger.warn("Generation scheduler full, {} session(s) left to resume manually",
+                        checkpoints.size() - checkpoints.indexOf(checkpoint));
+                return;
+            }
+        }
+    }
+}
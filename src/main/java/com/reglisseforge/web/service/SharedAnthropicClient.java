@@ -0,0 +1,203 @@
+package com.reglisseforge.web.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.anthropic.client.AnthropicClient;
+import com.anthropic.models.messages.MessageCountTokensParams;
+import com.anthropic.models.messages.Model;
+import com.reglisseforge.utils.AnthropicClientFactory;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Single Anthropic client shared by every web engine and corrector.
+ *
+ * One client means one HTTP connection pool and one set of TLS sessions for the whole
+ * process. Requests go through a fair gate limiting how many calls may be in flight at
+ * once; callers above the limit wait instead of silently queueing inside the HTTP layer,
+ * and the wait is visible in {@link #getAverageWaitMillis()}.
+ */
+@Service
+public class SharedAnthropicClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedAnthropicClient.class);
+
+    private final AnthropicClient client;
+    private final Semaphore gate;
+    private final int maxConcurrentRequests;
+    private final int warmupConnections;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalHoldNanos = new LongAdder();
+    private final PromptCacheStats promptCacheStats = new PromptCacheStats();
+
+    public SharedAnthropicClient(@Value("${leo.anthropic.max-concurrent-requests:32}") int maxConcurrentRequests,
+                                 @Value("${leo.anthropic.timeout-seconds:600}") long timeoutSeconds,
+                                 @Value("${leo.anthropic.max-retries:2}") int maxRetries,
+                                 @Value("${leo.anthropic.warmup-connections:2}") int warmupConnections) {
+        this.client = AnthropicClientFactory.create(Duration.ofSeconds(timeoutSeconds), maxRetries);
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.gate = new Semaphore(maxConcurrentRequests, true);
+        this.warmupConnections = warmupConnections;
+
+        logger.info("Shared Anthropic client created: maxConcurrentRequests={}, timeout={}s, maxRetries={}",
+                maxConcurrentRequests, timeoutSeconds, maxRetries);
+    }
+
+    /**
+     * A slot in the request gate, released on close
+     */
+    public final class Permit implements AutoCloseable {
+        private final long acquiredAt = System.nanoTime();
+        private boolean released;
+
+        private Permit() {}
+
+        /**
+         * Mark the guarded call as failed
+         */
+        public void failed() {
+            failures.increment();
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            totalHoldNanos.add(System.nanoTime() - acquiredAt);
+            inFlight.decrementAndGet();
+            gate.release();
+        }
+    }
+
+    /**
+     * The underlying client. Calls made with it should hold a {@link Permit}.
+     */
+    public AnthropicClient client() {
+        return client;
+    }
+
+    /**
+     * Wait for a request slot. Use with try-with-resources around streaming calls.
+     */
+    public Permit acquire() {
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            gate.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an Anthropic request slot", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        totalWaitNanos.add(System.nanoTime() - start);
+        requests.increment();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return new Permit();
+    }
+
+    /**
+     * Run a blocking call while holding a request slot
+     */
+    public <T> T execute(Supplier<T> call) {
+        try (Permit permit = acquire()) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                permit.failed();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Open connections to the API ahead of the first generation so the first session does
+     * not pay DNS and TLS setup. Uses token counting, which is not billed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmupConnections <= 0) {
+            return;
+        }
+
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[warmupConnections];
+        for (int i = 0; i < warmupConnections; i++) {
+            calls[i] = CompletableFuture.runAsync(() -> execute(() -> client.messages().countTokens(
+                    MessageCountTokensParams.builder()
+                            .model(Model.CLAUDE_4_SONNET_20250514)
+                            .addUserMessage("ping")
+                            .build())));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture.allOf(calls).whenComplete((ignored, error) -> {
+            if (error != null) {
+                logger.warn("Anthropic connection warm-up failed: {}", error.getMessage());
+            } else {
+                logger.info("Warmed up {} Anthropic connections in {} ms",
+                        warmupConnections, (System.nanoTime() - start) / 1_000_000);
+            }
+        });
+    }
+
+    /**
+     * Token usage and prompt cache hit rates of requests made with cache control
+     */
+    public PromptCacheStats getPromptCacheStats() {
+        return promptCacheStats;
+    }
+
+    public int getMaxConcurrentRequests() { return maxConcurrentRequests; }
+
+    public int getInFlight() { return inFlight.get(); }
+
+    public int getPeakInFlight() { return peakInFlight.get(); }
+
+    public int getWaiting() { return waiting.get(); }
+
+    public long getRequests() { return requests.sum(); }
+
+    public long getFailures() { return failures.sum(); }
+
+    /**
+     * Average time spent waiting for a request slot, in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long count = requests.sum();
+        return count > 0 ? totalWaitNanos.sum() / (count * 1_000_000.0) : 0.0;
+    }
+
+    /**
+     * Average time a request slot was held (request latency incl. streaming), in milliseconds
+     */
+    public double getAverageHoldMillis() {
+        long count = requests.sum() - inFlight.get();
+        return count > 0 ? totalHoldNanos.sum() / (count * 1_000_000.0) : 0.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        client.close();
+    }
+}
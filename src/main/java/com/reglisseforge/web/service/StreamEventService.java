@@ -4,6 +4,7 @@ import com.reglisseforge.web.handler.LeoGenerationWebSocketHandler;
 import com.reglisseforge.web.model.StreamEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.function.Consumer;
@@ -17,9 +18,19 @@ public class StreamEventService {
     private static final Logger logger = LoggerFactory.getLogger(StreamEventService.class);
     
     private final LeoGenerationWebSocketHandler webSocketHandler;
-
-    public StreamEventService(LeoGenerationWebSocketHandler webSocketHandler) {
+    private final CodeChunkStats codeChunkStats = new CodeChunkStats();
+    private final long coalesceWindowMillis;
+    private final int coalesceMaxBytes;
+    private final int buildProgressMaxLines;
+
+    public StreamEventService(LeoGenerationWebSocketHandler webSocketHandler,
+                              @Value("${leo.stream.coalesce-window-ms:50}") long coalesceWindowMillis,
+                              @Value("${leo.stream.coalesce-max-bytes:2048}") int coalesceMaxBytes,
+                              @Value("${leo.stream.build-progress-max-lines:500}") int buildProgressMaxLines) {
         this.webSocketHandler = webSocketHandler;
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.coalesceMaxBytes = coalesceMaxBytes;
+        this.buildProgressMaxLines = buildProgressMaxLines;
     }
 
     /**
@@ -66,6 +77,15 @@ public class StreamEventService {
         logger.info("Session {}: Build started", sessionId);
     }
 
+    /**
+     * Send a batch of build output lines while the build is running
+     */
+    public void sendBuildProgress(String sessionId, String lines) {
+        StreamEvent event = StreamEvent.buildProgress(sessionId, lines);
+        sendToSubscribedSessions(sessionId, event);
+        logger.debug("Session {}: Build output ({} chars)", sessionId, lines.length());
+    }
+
     /**
      * Send build success event
      */
@@ -154,6 +174,40 @@ public class StreamEventService {
         return chunk -> sendCodeChunk(sessionId, chunk);
     }
 
+    /**
+     * Create a coalescer that batches streamed code deltas into CODE_CHUNK frames
+     */
+    public CodeChunkCoalescer createCodeChunkCoalescer(String sessionId) {
+        return new CodeChunkCoalescer(sessionId, chunk -> sendCodeChunk(sessionId, chunk),
+                coalesceWindowMillis, coalesceMaxBytes, codeChunkStats);
+    }
+
+    /**
+     * Create a build output listener that batches lines into BUILD_PROGRESS frames; close it
+     * when the build ends
+     */
+    public BuildProgressCoalescer createBuildProgressCoalescer(String sessionId) {
+        CodeChunkCoalescer frames = new CodeChunkCoalescer(sessionId,
+                lines -> sendBuildProgress(sessionId, lines.stripTrailing()),
+                coalesceWindowMillis, coalesceMaxBytes, null);
+        return new BuildProgressCoalescer(frames, buildProgressMaxLines);
+    }
+
+    /**
+     * Get aggregated CODE_CHUNK streaming statistics
+     */
+    public CodeChunkStats getCodeChunkStats() {
+        return codeChunkStats;
+    }
+
+    public long getCoalesceWindowMillis() {
+        return coalesceWindowMillis;
+    }
+
+    public int getCoalesceMaxBytes() {
+        return coalesceMaxBytes;
+    }
+
     /**
      * Get the number of active WebSocket connections
      */
@@ -0,0 +1,40 @@
+package com.reglisseforge.web.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.reglisseforge.tools.base.ToolExecutor;
+import com.reglisseforge.tools.base.ToolMetrics;
+import com.reglisseforge.tools.base.ToolRegistry;
+
+/**
+ * Collects the tool call metrics of all correction sessions: each corrector's tool executor
+ * records into the shared {@link ToolMetrics}, which keeps the most recent sessions.
+ */
+@Service
+public class ToolMetricsService {
+
+    private final ToolMetrics metrics;
+    private final int maxSessions;
+    private final double payloadLogSampleRate;
+
+    public ToolMetricsService(@Value("${leo.tools.metrics.max-sessions:500}") int maxSessions,
+                              @Value("${leo.tools.log.payload-sample-rate:0.01}") double payloadLogSampleRate) {
+        this.metrics = new ToolMetrics(maxSessions);
+        this.maxSessions = maxSessions;
+        this.payloadLogSampleRate = payloadLogSampleRate;
+    }
+
+    /**
+     * Tool executor of a corrector, recording into the shared metrics
+     */
+    public ToolExecutor newExecutor(ToolRegistry registry) {
+        return new ToolExecutor(registry, metrics, payloadLogSampleRate);
+    }
+
+    public ToolMetrics getMetrics() { return metrics; }
+
+    public int getMaxSessions() { return maxSessions; }
+
+    public double getPayloadLogSampleRate() { return payloadLogSampleRate; }
+}